@@ -1,5 +1,6 @@
 package hu.sztibor.staffi.backend.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -29,6 +30,9 @@ public class SecurityConfig {
                     exceptionHandling.authenticationEntryPoint(authenticationEntryPoint))
                 .authorizeHttpRequests((requests) ->
                         requests
+                                // Streamed exports and SSE end with a dispatch that carries no token,
+                                // the request itself was authorized before it started
+                                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                                 .requestMatchers(HttpMethod.POST, "/auth/login").permitAll()
                                 .requestMatchers(
                                         "/swagger-ui.html",
@@ -37,6 +41,7 @@ public class SecurityConfig {
                                         "/swagger-resources/**",
                                         "/webjars/**"
                                 ).permitAll()
+                                .requestMatchers("/actuator/metrics/**").hasRole("ADMIN")
                                 .anyRequest().authenticated()
                 );
 
@@ -8,29 +8,69 @@ import hu.sztibor.staffi.backend.dto.auth.UserDto;
 import hu.sztibor.staffi.backend.entities.User;
 import hu.sztibor.staffi.backend.enums.Role;
 import hu.sztibor.staffi.backend.repositories.UserRepository;
+import hu.sztibor.staffi.backend.utils.TransactionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+@Slf4j
 @RequiredArgsConstructor
 @Component
 public class UserAuthProvider {
     @Value("${security.jwt.token.secret-key:secret-key}")
     private String secretKey;
 
+    @Value("${security.jwt.token.cache.max-size:10000}")
+    private int cacheMaxSize;
+
     private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Verified tokens keyed by SHA-256 digest, kept until the token expires.
+     * Saves the signature check and the user lookup on every request.
+     */
+    private final Map<String, CachedAuthentication> tokenCache = new ConcurrentHashMap<>();
+
+    private Algorithm algorithm;
+    private JWTVerifier verifier;
+    private Counter cacheHits;
+    private Counter cacheMisses;
 
     @PostConstruct
     protected void init() {
         secretKey = Base64.getEncoder().encodeToString(secretKey.getBytes());
+        algorithm = Algorithm.HMAC256(secretKey);
+        verifier = JWT.require(algorithm).build();
+
+        cacheHits = Counter.builder("staffi.auth.token.cache")
+                .description("Verified-token cache lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        cacheMisses = Counter.builder("staffi.auth.token.cache")
+                .description("Verified-token cache lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("staffi.auth.token.cache.size", tokenCache, Map::size)
+                .description("Number of cached verified tokens")
+                .register(meterRegistry);
     }
 
     public String createToken(UserDto dto) {
@@ -45,13 +85,22 @@ public class UserAuthProvider {
                 .withClaim("firstName", dto.getFirstName())
                 .withClaim("lastName", dto.getLastName())
                 .withClaim("role", dto.getRole().name())
-                .sign(Algorithm.HMAC256(secretKey));
+                .sign(algorithm);
     }
 
     public Authentication validateToken(String token) {
+        String cacheKey = digest(token);
+        CachedAuthentication cached = tokenCache.get(cacheKey);
+        if (cached != null) {
+            if (cached.expiresAt() > System.currentTimeMillis()) {
+                cacheHits.increment();
+                return cached.authentication();
+            }
+            tokenCache.remove(cacheKey, cached);
+        }
+        cacheMisses.increment();
+
         try {
-            Algorithm algorithm = Algorithm.HMAC256(secretKey);
-            JWTVerifier verifier = JWT.require(algorithm).build();
             DecodedJWT decoded = verifier.verify(token);
 
             Long userId = decoded.getClaim("id").asLong();
@@ -72,10 +121,51 @@ public class UserAuthProvider {
 
             SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + user.getRole().name());
 
-            return new UsernamePasswordAuthenticationToken(user, null, List.of(authority));
+            Authentication authentication = new UsernamePasswordAuthenticationToken(user, null, List.of(authority));
+            if (decoded.getExpiresAt() != null) {
+                cache(cacheKey, new CachedAuthentication(userId, authentication, decoded.getExpiresAt().getTime()));
+            }
+
+            return authentication;
 
         } catch (Exception e) {
             return null;
         }
     }
+
+    /**
+     * Drop every cached token of a user, e.g. after the account was deactivated.
+     * Evicts now and once more after commit, so a request racing with the
+     * transaction cannot re-cache the still-active state.
+     */
+    public void invalidateUser(Long userId) {
+        Runnable evict = () -> tokenCache.values().removeIf(entry -> entry.userId().equals(userId));
+        evict.run();
+        TransactionUtils.afterCommit(evict);
+    }
+
+    private void cache(String cacheKey, CachedAuthentication entry) {
+        if (tokenCache.size() >= cacheMaxSize) {
+            long now = System.currentTimeMillis();
+            tokenCache.values().removeIf(existing -> existing.expiresAt() <= now);
+            if (tokenCache.size() >= cacheMaxSize) {
+                log.debug("Token cache is full ({} entries), not caching", tokenCache.size());
+                return;
+            }
+        }
+        tokenCache.put(cacheKey, entry);
+    }
+
+    private String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = messageDigest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record CachedAuthentication(Long userId, Authentication authentication, long expiresAt) {
+    }
 }
@@ -3,8 +3,11 @@ package hu.sztibor.staffi.backend.controllers;
 import hu.sztibor.staffi.backend.dto.accommodation.AccommodationDto;
 import hu.sztibor.staffi.backend.dto.accommodation.CreateAccommodationDto;
 import hu.sztibor.staffi.backend.dto.accommodation.UpdateAccommodationDto;
+import hu.sztibor.staffi.backend.dto.accommodation.VacancyDto;
 import hu.sztibor.staffi.backend.dto.room.*;
 import hu.sztibor.staffi.backend.services.AccommodationService;
+import hu.sztibor.staffi.backend.services.RoomAllocationBatchService;
+import hu.sztibor.staffi.backend.services.RoomAssignmentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -24,6 +27,8 @@ import java.util.List;
 public class AccommodationController {
 
     private final AccommodationService accommodationService;
+    private final RoomAllocationBatchService roomAllocationBatchService;
+    private final RoomAssignmentService roomAssignmentService;
 
     /**
      * GET /api/accommodations
@@ -67,6 +72,27 @@ public class AccommodationController {
         return ResponseEntity.ok(accommodation);
     }
 
+    /**
+     * GET /api/accommodations/vacancies?beds=4&companyName=Acme
+     * Find free beds across all accommodations
+     */
+    @GetMapping("/vacancies")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR')")
+    @Operation(summary = "Find vacancies", description = "Find rooms or accommodations with the requested number of free beds")
+    public ResponseEntity<VacancyDto> findVacancies(
+            @Parameter(description = "Number of beds needed")
+            @RequestParam(defaultValue = "1") int beds,
+            @Parameter(description = "Only search this accommodation")
+            @RequestParam(required = false) Long accommodationId,
+            @Parameter(description = "Only rooms that are empty or occupied by this company's employees")
+            @RequestParam(required = false) String companyName,
+            @Parameter(description = "Maximum number of rooms and accommodations to return (default: 20, max: 200)")
+            @RequestParam(required = false) Integer limit
+    ) {
+        VacancyDto vacancies = accommodationService.findVacancies(beds, accommodationId, companyName, limit);
+        return ResponseEntity.ok(vacancies);
+    }
+
     /**
      * GET /api/accommodations/{id}/rooms
      * Get all rooms in an accommodation with current occupancy
@@ -145,6 +171,34 @@ public class AccommodationController {
         return ResponseEntity.status(HttpStatus.CREATED).body(allocation);
     }
 
+    /**
+     * POST /api/accommodations/allocations/bulk
+     * Apply a batch of check-ins, check-outs and room moves
+     */
+    @PostMapping("/allocations/bulk")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR')")
+    @Operation(summary = "Bulk allocation", description = "Apply check-ins, check-outs and room moves in one transaction with per-line results")
+    public ResponseEntity<BulkAllocationResultDto> applyBulkAllocation(
+            @RequestBody BulkAllocationDto bulkAllocationDto
+    ) {
+        BulkAllocationResultDto result = roomAllocationBatchService.applyBatch(bulkAllocationDto);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * POST /api/accommodations/allocations/proposal
+     * Propose rooms for a batch of arriving employees without saving anything
+     */
+    @PostMapping("/allocations/proposal")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR')")
+    @Operation(summary = "Propose room assignments", description = "Propose rooms for arriving employees, grouping them by company and nationality and filling occupied rooms first")
+    public ResponseEntity<RoomAssignmentProposalDto> proposeAssignments(
+            @RequestBody RoomAssignmentRequestDto requestDto
+    ) {
+        RoomAssignmentProposalDto proposal = roomAssignmentService.proposeAssignments(requestDto);
+        return ResponseEntity.ok(proposal);
+    }
+
     /**
      * PUT /api/accommodations/allocations/{id}/checkout
      * Check out employee from room
@@ -1,5 +1,6 @@
 package hu.sztibor.staffi.backend.controllers;
 
+import hu.sztibor.staffi.backend.dto.CursorPageDto;
 import hu.sztibor.staffi.backend.dto.advance.AdvanceRequestDto;
 import hu.sztibor.staffi.backend.dto.advance.CreateAdvanceRequestDto;
 import hu.sztibor.staffi.backend.dto.advance.ReviewAdvanceRequestDto;
@@ -64,6 +65,26 @@ public class AdvanceController {
         return ResponseEntity.ok(requests);
     }
 
+    /**
+     * GET /api/advances?limit=50&cursor=...
+     * HR/Admin gets one page of advance requests using keyset pagination
+     * Selected when the limit parameter is present, pass nextCursor to get the following page
+     */
+    @GetMapping(params = "limit")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR')")
+    @Operation(summary = "Get advance requests page", description = "Retrieve one page of advance requests sorted by employee name (HR/Admin only) with optional status filter")
+    public ResponseEntity<CursorPageDto<AdvanceRequestDto>> getRequestsPage(
+            @Parameter(description = "Filter by status (PENDING, APPROVED, REJECTED, PAID)")
+            @RequestParam(required = false) String status,
+            @Parameter(description = "Cursor returned as nextCursor by the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max 500)")
+            @RequestParam Integer limit
+    ) {
+        CursorPageDto<AdvanceRequestDto> page = advanceRequestService.getRequestsPage(status, cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+
     /**
      * PUT /api/advances/{id}/review
      * HR/Admin reviews an advance request (approve or reject)
@@ -1,17 +1,25 @@
 package hu.sztibor.staffi.backend.controllers;
 
 import hu.sztibor.staffi.backend.dto.audit.AuditLogDto;
+import hu.sztibor.staffi.backend.dto.audit.AuditLogSliceDto;
 import hu.sztibor.staffi.backend.enums.AuditAction;
+import hu.sztibor.staffi.backend.enums.ExportFormat;
+import hu.sztibor.staffi.backend.services.AuditLogExportService;
 import hu.sztibor.staffi.backend.services.AuditLogService;
+import hu.sztibor.staffi.backend.services.AuditLogTail;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -23,6 +31,8 @@ import java.util.List;
 public class AuditLogController {
 
     private final AuditLogService auditLogService;
+    private final AuditLogExportService auditLogExportService;
+    private final AuditLogTail auditLogTail;
 
     /**
      * GET /api/audit-logs
@@ -59,6 +69,88 @@ public class AuditLogController {
         return ResponseEntity.ok(logs);
     }
 
+    /**
+     * GET /api/audit-logs?limit=50&cursor=...
+     * Get one slice of audit logs using keyset pagination, newest first
+     * Selected when the limit parameter is present, pass nextCursor to get the following slice
+     */
+    @GetMapping(params = "limit")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get audit log slice", description = "Retrieve audit logs with cursor pagination and optional filters, without an exact total count (ADMIN only)")
+    public ResponseEntity<AuditLogSliceDto> getAuditLogSlice(
+            @Parameter(description = "Filter by entity type (e.g., Employee, Contract)")
+            @RequestParam(required = false) String entityType,
+
+            @Parameter(description = "Filter by action (CREATE, UPDATE, DELETE, LOGIN, LOGOUT)")
+            @RequestParam(required = false) AuditAction action,
+
+            @Parameter(description = "Filter by user ID")
+            @RequestParam(required = false) Long userId,
+
+            @Parameter(description = "Filter by start date (ISO format: 2026-01-01T00:00:00)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+
+            @Parameter(description = "Filter by end date (ISO format: 2026-01-31T23:59:59)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+
+            @Parameter(description = "Cursor returned as nextCursor by the previous slice")
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Slice size (max 500)")
+            @RequestParam Integer limit,
+
+            @Parameter(description = "Include an estimated total of matching entries")
+            @RequestParam(defaultValue = "false") boolean estimateTotal
+    ) {
+        AuditLogSliceDto slice = auditLogService.getAuditLogSlice(
+                entityType, action, userId, startDate, endDate, cursor, limit, estimateTotal
+        );
+        return ResponseEntity.ok(slice);
+    }
+
+    /**
+     * GET /api/audit-logs/export?format=CSV&gzip=true
+     * Stream all audit logs matching the filters as NDJSON or CSV, oldest first
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Export audit logs", description = "Stream audit logs with optional filters as NDJSON or CSV, optionally gzip compressed (ADMIN only)")
+    public ResponseEntity<StreamingResponseBody> exportAuditLogs(
+            @Parameter(description = "Export format (NDJSON, CSV)")
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+
+            @Parameter(description = "Compress the export with gzip")
+            @RequestParam(defaultValue = "false") boolean gzip,
+
+            @Parameter(description = "Filter by entity type (e.g., Employee, Contract)")
+            @RequestParam(required = false) String entityType,
+
+            @Parameter(description = "Filter by action (CREATE, UPDATE, DELETE, LOGIN, LOGOUT)")
+            @RequestParam(required = false) AuditAction action,
+
+            @Parameter(description = "Filter by user ID")
+            @RequestParam(required = false) Long userId,
+
+            @Parameter(description = "Filter by start date (ISO format: 2026-01-01T00:00:00)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+
+            @Parameter(description = "Filter by end date (ISO format: 2026-01-31T23:59:59)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate
+    ) {
+        StreamingResponseBody body = outputStream -> auditLogExportService.export(
+                format, gzip, entityType, action, userId, startDate, endDate, outputStream
+        );
+
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                : format == ExportFormat.CSV ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                : MediaType.APPLICATION_NDJSON;
+
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + auditLogExportService.fileName(format, gzip) + "\"")
+                .body(body);
+    }
+
     /**
      * GET /api/audit-logs/entity/{entityType}/{entityId}
      * Get audit history for a specific entity
@@ -92,6 +184,24 @@ public class AuditLogController {
         return ResponseEntity.ok(logs);
     }
 
+    /**
+     * GET /api/audit-logs/stream
+     * Follow new audit logs live as Server-Sent Events
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Stream audit logs", description = "Follow new audit logs as Server-Sent Events, resuming after Last-Event-ID when it is still buffered (ADMIN only)")
+    public SseEmitter streamAuditLogs(
+            @Parameter(description = "Only send logs for this entity type")
+            @RequestParam(required = false) String entityType,
+            @Parameter(description = "Only send logs with this action")
+            @RequestParam(required = false) AuditAction action,
+            @Parameter(description = "Id of the last event the client received")
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        return auditLogTail.subscribe(entityType, action, lastEventId);
+    }
+
     /**
      * GET /api/audit-logs/statistics
      * Get audit log statistics
@@ -99,9 +209,23 @@ public class AuditLogController {
     @GetMapping("/statistics")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Get statistics", description = "Retrieve audit log statistics")
-    public ResponseEntity<AuditLogService.AuditLogStatistics> getStatistics() {
-        AuditLogService.AuditLogStatistics stats = auditLogService.getStatistics();
+    public ResponseEntity<AuditLogService.AuditLogStatistics> getStatistics(
+            @Parameter(description = "Also return per-day totals for this many recent days")
+            @RequestParam(required = false) Integer days
+    ) {
+        AuditLogService.AuditLogStatistics stats = auditLogService.getStatistics(days);
         return ResponseEntity.ok(stats);
     }
-}
 
+    /**
+     * POST /api/audit-logs/statistics/rebuild
+     * Recompute the statistics counters from the audit log
+     */
+    @PostMapping("/statistics/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Rebuild statistics", description = "Recompute the audit log statistics counters from the full audit log (ADMIN only)")
+    public ResponseEntity<Void> rebuildStatistics() {
+        auditLogService.rebuildStatistics();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,18 +1,23 @@
 package hu.sztibor.staffi.backend.controllers;
 
 import hu.sztibor.staffi.backend.dto.contract.ContractDto;
+import hu.sztibor.staffi.backend.dto.contract.ContractPdfStatusDto;
 import hu.sztibor.staffi.backend.services.ContractService;
+import hu.sztibor.staffi.backend.utils.FileDownloadWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 @RestController
 @RequestMapping("/contracts")
 @RequiredArgsConstructor
@@ -24,20 +29,35 @@ public class ContractController {
     /**
      * GET /api/contracts/{id}/pdf
      * Download PDF file for a contract
+     * Supports Range requests and revalidation via ETag / Last-Modified
      */
     @GetMapping("/{id}/pdf")
     @PreAuthorize("hasAnyRole('ADMIN', 'HR')")
     @Operation(summary = "Download contract PDF", description = "Download the generated PDF file for a contract")
-    public ResponseEntity<Resource> downloadContractPdf(
+    public void downloadContractPdf(
+            @Parameter(description = "Contract ID")
+            @PathVariable Long id,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        Path pdfFile = contractService.getContractPdfFile(id);
+
+        FileDownloadWriter.write(pdfFile, "contract-" + id + ".pdf", MediaType.APPLICATION_PDF, request, response);
+    }
+
+    /**
+     * GET /api/contracts/{id}/pdf/status
+     * Get the state of the contract's PDF rendering
+     */
+    @GetMapping("/{id}/pdf/status")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR')")
+    @Operation(summary = "Get contract PDF status", description = "Get the background rendering status of a contract's PDF")
+    public ResponseEntity<ContractPdfStatusDto> getContractPdfStatus(
             @Parameter(description = "Contract ID")
             @PathVariable Long id
     ) {
-        Resource pdfFile = contractService.getContractPdf(id);
-
-        return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_PDF)
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"contract-" + id + ".pdf\"")
-                .body(pdfFile);
+        ContractPdfStatusDto status = contractService.getContractPdfStatus(id);
+        return ResponseEntity.ok(status);
     }
 
     /**
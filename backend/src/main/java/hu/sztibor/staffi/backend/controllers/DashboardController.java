@@ -1,15 +1,27 @@
 package hu.sztibor.staffi.backend.controllers;
 
 import hu.sztibor.staffi.backend.dto.DashboardStatsDto;
+import hu.sztibor.staffi.backend.dto.DashboardTrendDto;
+import hu.sztibor.staffi.backend.enums.TrendGranularity;
 import hu.sztibor.staffi.backend.services.DashboardService;
+import hu.sztibor.staffi.backend.services.DashboardSnapshotService;
+import hu.sztibor.staffi.backend.services.DashboardStatsBroadcaster;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/dashboard")
@@ -18,6 +30,8 @@ import org.springframework.web.bind.annotation.RestController;
 public class DashboardController {
 
     private final DashboardService dashboardService;
+    private final DashboardSnapshotService dashboardSnapshotService;
+    private final DashboardStatsBroadcaster dashboardStatsBroadcaster;
 
     /**
      * GET /api/dashboard/stats
@@ -30,5 +44,37 @@ public class DashboardController {
         DashboardStatsDto stats = dashboardService.getDashboardStats();
         return ResponseEntity.ok(stats);
     }
-}
 
+    /**
+     * GET /api/dashboard/stream
+     * Receive the dashboard statistics as Server-Sent Events: the full statistics first, then changed fields only
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR')")
+    @Operation(summary = "Stream dashboard statistics", description = "Push dashboard statistics as a 'stats' event followed by 'delta' events with the changed fields")
+    public SseEmitter streamDashboardStats(
+            @Parameter(description = "Id of the last event the client received")
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        return dashboardStatsBroadcaster.subscribe(lastEventId);
+    }
+
+    /**
+     * GET /api/dashboard/trends?from=2025-01-01&to=2025-06-30&granularity=WEEK
+     * Get dashboard figures over time from the daily snapshots
+     */
+    @GetMapping("/trends")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR')")
+    @Operation(summary = "Get dashboard trends", description = "Retrieve daily, weekly or monthly dashboard figures from the nightly snapshots")
+    public ResponseEntity<DashboardTrendDto> getDashboardTrends(
+            @Parameter(description = "First day (default: 30 days before 'to')")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day (default: today)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Bucket size: DAY, WEEK or MONTH (default: DAY)")
+            @RequestParam(required = false) TrendGranularity granularity
+    ) {
+        DashboardTrendDto trends = dashboardSnapshotService.getTrends(from, to, granularity);
+        return ResponseEntity.ok(trends);
+    }
+}
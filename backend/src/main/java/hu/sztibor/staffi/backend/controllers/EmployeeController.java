@@ -1,22 +1,28 @@
 package hu.sztibor.staffi.backend.controllers;
 
+import hu.sztibor.staffi.backend.dto.CursorPageDto;
+import hu.sztibor.staffi.backend.dto.SearchSuggestionDto;
 import hu.sztibor.staffi.backend.dto.contract.ContractDto;
 import hu.sztibor.staffi.backend.dto.contract.CreateContractDto;
 import hu.sztibor.staffi.backend.dto.employee.CreateEmployeeDto;
 import hu.sztibor.staffi.backend.dto.employee.EmployeeDto;
+import hu.sztibor.staffi.backend.dto.employee.EmployeeImportResultDto;
 import hu.sztibor.staffi.backend.dto.employee.UpdateEmployeeDto;
 import hu.sztibor.staffi.backend.dto.room.MyRoomInfoDto;
 import hu.sztibor.staffi.backend.dto.room.RoomAllocationDto;
 import hu.sztibor.staffi.backend.services.ContractService;
+import hu.sztibor.staffi.backend.services.EmployeeImportService;
 import hu.sztibor.staffi.backend.services.EmployeeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
 
@@ -28,6 +34,7 @@ public class EmployeeController {
 
     private final EmployeeService employeeService;
     private final ContractService contractService;
+    private final EmployeeImportService employeeImportService;
 
     /**
      * GET /api/employees
@@ -47,6 +54,48 @@ public class EmployeeController {
         return ResponseEntity.ok(employees);
     }
 
+    /**
+     * GET /api/employees?limit=50&cursor=...
+     * Get one page of employees using keyset pagination
+     * Selected when the limit parameter is present, pass nextCursor to get the following page
+     */
+    @GetMapping(params = "limit")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR')")
+    @Operation(summary = "Get employees page", description = "Retrieve one page of employees (EMPLOYEE role only) sorted by name, with optional status and search filters")
+    public ResponseEntity<CursorPageDto<EmployeeDto>> getEmployeesPage(
+            @Parameter(description = "Filter by active status (true/false)")
+            @RequestParam(required = false) Boolean status,
+            @Parameter(description = "Search by name or email")
+            @RequestParam(required = false) String search,
+            @Parameter(description = "Cursor returned as nextCursor by the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max 500)")
+            @RequestParam Integer limit
+    ) {
+        CursorPageDto<EmployeeDto> page = employeeService.getEmployeesPage(status, search, cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * GET /api/employees/autocomplete
+     * Suggest employees matching a partial name or email, best matches first
+     * Accent-insensitive, served from the in-memory search index
+     */
+    @GetMapping("/autocomplete")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR')")
+    @Operation(summary = "Autocomplete employees", description = "Suggest employees (EMPLOYEE role only) whose name or email contains the term, ignoring case and accents")
+    public ResponseEntity<List<SearchSuggestionDto>> autocompleteEmployees(
+            @Parameter(description = "Partial name or email")
+            @RequestParam String q,
+            @Parameter(description = "Filter by active status (true/false)")
+            @RequestParam(required = false) Boolean status,
+            @Parameter(description = "Maximum number of suggestions (default 10, max 50)")
+            @RequestParam(required = false) Integer limit
+    ) {
+        List<SearchSuggestionDto> suggestions = employeeService.autocompleteEmployees(q, status, limit);
+        return ResponseEntity.ok(suggestions);
+    }
+
     /**
      * GET /api/employees/me
      * Get current employee's own data (for EMPLOYEE role)
@@ -104,6 +153,22 @@ public class EmployeeController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
+    /**
+     * POST /api/employees/import
+     * Bulk-create employees (EMPLOYEE role) from a CSV upload
+     * Returns a per-row report, rows that fail validation do not stop the rest of the import
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR')")
+    @Operation(summary = "Import employees from CSV", description = "Create employees in bulk from a CSV file with header row: firstName, lastName, email, password (required), taxId, tajNumber, idCardNumber, primaryAddress, phoneNumber, nationality, birthDate, companyName, startDate")
+    public ResponseEntity<EmployeeImportResultDto> importEmployees(
+            @Parameter(description = "CSV file (comma or semicolon separated, UTF-8)")
+            @RequestParam("file") MultipartFile file
+    ) {
+        EmployeeImportResultDto result = employeeImportService.importEmployees(file);
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * PUT /api/employees/{id}
      * Update employee data (e.g., address change, name change)
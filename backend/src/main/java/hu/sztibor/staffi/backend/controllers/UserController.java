@@ -1,5 +1,7 @@
 package hu.sztibor.staffi.backend.controllers;
 
+import hu.sztibor.staffi.backend.dto.CursorPageDto;
+import hu.sztibor.staffi.backend.dto.SearchSuggestionDto;
 import hu.sztibor.staffi.backend.dto.auth.UserDto;
 import hu.sztibor.staffi.backend.services.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -40,6 +42,49 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    /**
+     * GET /api/users?limit=50&cursor=...
+     * Get one page of users using keyset pagination
+     * Selected when the limit parameter is present, pass nextCursor to get the following page
+     * Only accessible by ADMIN
+     */
+    @GetMapping(params = "limit")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get users page", description = "Retrieve one page of users sorted by name, with optional filters (ADMIN only)")
+    public ResponseEntity<CursorPageDto<UserDto>> getUsersPage(
+            @Parameter(description = "Filter by role (ADMIN, HR, EMPLOYEE)")
+            @RequestParam(required = false) String role,
+            @Parameter(description = "Filter by active status (true/false)")
+            @RequestParam(required = false) Boolean isActive,
+            @Parameter(description = "Search by name or email")
+            @RequestParam(required = false) String search,
+            @Parameter(description = "Cursor returned as nextCursor by the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max 500)")
+            @RequestParam Integer limit
+    ) {
+        CursorPageDto<UserDto> page = userService.getUsersPage(role, isActive, search, cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * GET /api/users/autocomplete
+     * Suggest users of any role matching a partial name or email, best matches first
+     * Only accessible by ADMIN
+     */
+    @GetMapping("/autocomplete")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Autocomplete users", description = "Suggest users whose name or email contains the term, ignoring case and accents (ADMIN only)")
+    public ResponseEntity<List<SearchSuggestionDto>> autocompleteUsers(
+            @Parameter(description = "Partial name or email")
+            @RequestParam String q,
+            @Parameter(description = "Maximum number of suggestions (default 10, max 50)")
+            @RequestParam(required = false) Integer limit
+    ) {
+        List<SearchSuggestionDto> suggestions = userService.autocompleteUsers(q, limit);
+        return ResponseEntity.ok(suggestions);
+    }
+
     /**
      * GET /api/users/{id}
      * Get user by ID (any role)
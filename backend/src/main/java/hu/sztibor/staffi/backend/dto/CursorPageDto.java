@@ -0,0 +1,22 @@
+package hu.sztibor.staffi.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated list
+ * nextCursor is null on the last page
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CursorPageDto<T> {
+    private List<T> items;
+    private String nextCursor;
+    private Integer limit;
+}
@@ -0,0 +1,22 @@
+package hu.sztibor.staffi.backend.dto;
+
+import hu.sztibor.staffi.backend.enums.TrendGranularity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DashboardTrendDto {
+
+    private LocalDate from;
+    private LocalDate to;
+    private TrendGranularity granularity;
+    private List<DashboardTrendPointDto> points;
+}
@@ -0,0 +1,38 @@
+package hu.sztibor.staffi.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * One bucket of a dashboard trend
+ * Stock figures are taken from the last snapshot in the bucket, newEmployees and checkIns are summed.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DashboardTrendPointDto {
+
+    private LocalDate periodStart;
+    private LocalDate snapshotDate;
+
+    private Long totalEmployees;
+    private Long activeEmployees;
+
+    private Long totalRooms;
+    private Long occupiedRooms;
+    private Long totalCapacity;
+    private Long currentOccupancy;
+
+    private Long totalAdvanceRequests;
+    private Long pendingAdvanceRequests;
+    private Long approvedAdvanceRequests;
+    private Long rejectedAdvanceRequests;
+
+    private Long newEmployees;
+    private Long checkIns;
+}
@@ -0,0 +1,21 @@
+package hu.sztibor.staffi.backend.dto;
+
+import hu.sztibor.staffi.backend.enums.Role;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SearchSuggestionDto {
+    private Long userId;
+    private Long employeeId;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private Role role;
+    private Boolean isActive;
+}
@@ -15,5 +15,8 @@ public class AccommodationDto {
     private String address;
     private String managerContact;
     private Integer totalCapacity;
+    private Integer currentOccupancy;
+    private Integer freeBeds;
+    private Integer roomCount;
 }
 
@@ -0,0 +1,22 @@
+package hu.sztibor.staffi.backend.dto.accommodation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Free beds of one accommodation, with the fewest rooms that together hold the requested beds
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AccommodationVacancyDto {
+    private Long accommodationId;
+    private String accommodationName;
+    private Integer freeBeds;
+    private List<VacantRoomDto> rooms;
+}
@@ -0,0 +1,23 @@
+package hu.sztibor.staffi.backend.dto.accommodation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Answer to a vacancy search for a number of beds
+ * rooms: single rooms holding all beds, tightest fit first
+ * accommodations: accommodations holding all beds across their rooms, fewest rooms first
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class VacancyDto {
+    private Integer beds;
+    private List<VacantRoomDto> rooms;
+    private List<AccommodationVacancyDto> accommodations;
+}
@@ -0,0 +1,19 @@
+package hu.sztibor.staffi.backend.dto.accommodation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class VacantRoomDto {
+    private Long roomId;
+    private String roomNumber;
+    private Long accommodationId;
+    private String accommodationName;
+    private Integer capacity;
+    private Integer freeBeds;
+}
@@ -0,0 +1,25 @@
+package hu.sztibor.staffi.backend.dto.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One slice of the audit log read with a cursor
+ * nextCursor is null on the last slice; estimatedTotal is only filled when requested
+ * and comes from planner statistics, not an exact count.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AuditLogSliceDto {
+    private List<AuditLogDto> items;
+    private String nextCursor;
+    private Boolean hasNext;
+    private Integer limit;
+    private Long estimatedTotal;
+}
@@ -0,0 +1,24 @@
+package hu.sztibor.staffi.backend.dto.contract;
+
+import hu.sztibor.staffi.backend.enums.ContractStatus;
+import hu.sztibor.staffi.backend.enums.PdfJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ContractPdfStatusDto {
+    private Long contractId;
+    private ContractStatus contractStatus;
+    private PdfJobStatus jobStatus;
+    private Integer attempts;
+    private String lastError;
+    private LocalDateTime updatedAt;
+    private Boolean pdfAvailable;
+}
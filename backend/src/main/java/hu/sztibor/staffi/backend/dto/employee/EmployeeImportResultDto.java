@@ -0,0 +1,19 @@
+package hu.sztibor.staffi.backend.dto.employee;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeeImportResultDto {
+    private Integer totalRows;
+    private Integer imported;
+    private Integer failed;
+    private List<EmployeeImportRowDto> rows;
+}
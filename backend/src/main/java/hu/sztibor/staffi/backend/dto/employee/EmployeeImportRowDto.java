@@ -0,0 +1,19 @@
+package hu.sztibor.staffi.backend.dto.employee;
+
+import hu.sztibor.staffi.backend.enums.ImportRowStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeeImportRowDto {
+    private Long lineNumber;
+    private String email;
+    private ImportRowStatus status;
+    private Long employeeId;
+    private String message;
+}
@@ -0,0 +1,24 @@
+package hu.sztibor.staffi.backend.dto.room;
+
+import hu.sztibor.staffi.backend.enums.AllocationOperationType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * One line of a bulk allocation request
+ * roomId is the target room of a CHECK_IN or MOVE; CHECK_OUT and MOVE act on the employee's active allocation.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AllocationOperationDto {
+    private AllocationOperationType type;
+    private Long employeeId;
+    private Long roomId;
+    private LocalDate date;
+}
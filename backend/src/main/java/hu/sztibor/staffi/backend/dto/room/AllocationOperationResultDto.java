@@ -0,0 +1,22 @@
+package hu.sztibor.staffi.backend.dto.room;
+
+import hu.sztibor.staffi.backend.enums.AllocationOperationStatus;
+import hu.sztibor.staffi.backend.enums.AllocationOperationType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AllocationOperationResultDto {
+    private Integer index;
+    private AllocationOperationType type;
+    private Long employeeId;
+    private Long roomId;
+    private AllocationOperationStatus status;
+    private Long allocationId;
+    private String message;
+}
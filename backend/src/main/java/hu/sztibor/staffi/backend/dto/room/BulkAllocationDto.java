@@ -0,0 +1,19 @@
+package hu.sztibor.staffi.backend.dto.room;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkAllocationDto {
+    private List<AllocationOperationDto> operations;
+    private LocalDate date;
+    private boolean allOrNothing;
+}
@@ -0,0 +1,19 @@
+package hu.sztibor.staffi.backend.dto.room;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkAllocationResultDto {
+    private Integer totalOperations;
+    private Integer applied;
+    private Integer failed;
+    private List<AllocationOperationResultDto> results;
+}
@@ -0,0 +1,22 @@
+package hu.sztibor.staffi.backend.dto.room;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProposedAssignmentDto {
+    private Long employeeId;
+    private String employeeName;
+    private String companyName;
+    private String nationality;
+    private Long roomId;
+    private String roomNumber;
+    private Long accommodationId;
+    private String accommodationName;
+    private boolean openedRoom;
+}
@@ -0,0 +1,25 @@
+package hu.sztibor.staffi.backend.dto.room;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Proposed rooms for a batch of arrivals, nothing is saved
+ * The assignments can be applied as CHECK_IN lines of the bulk allocation endpoint.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RoomAssignmentProposalDto {
+    private int totalEmployees;
+    private int assigned;
+    private int roomsUsed;
+    private int roomsOpened;
+    private List<ProposedAssignmentDto> assignments;
+    private List<UnassignedEmployeeDto> unassigned;
+}
@@ -0,0 +1,20 @@
+package hu.sztibor.staffi.backend.dto.room;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Employees to place and where; any accommodation when accommodationIds is empty
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RoomAssignmentRequestDto {
+    private List<Long> employeeIds;
+    private List<Long> accommodationIds;
+}
@@ -13,14 +13,15 @@ import java.time.LocalDateTime;
 @Builder
 @Entity
 @Table(name = "audit_logs", indexes = {
-        @Index(name = "idx_entity_type", columnList = "entity_type"),
-        @Index(name = "idx_action", columnList = "action"),
-        @Index(name = "idx_user_id", columnList = "user_id"),
-        @Index(name = "idx_timestamp", columnList = "timestamp"),
-        @Index(name = "idx_entity_id", columnList = "entity_id")
+        // Keyset slices seek on it; created by db/audit_logs_keyset_index.sql or db/audit_logs_partitioning.sql
+        @Index(name = "idx_audit_logs_timestamp_id", columnList = "timestamp, id"),
+        @Index(name = "idx_audit_logs_entity", columnList = "entity_type, entity_id"),
+        @Index(name = "idx_audit_logs_action", columnList = "action"),
+        @Index(name = "idx_audit_logs_user_id", columnList = "user_id")
 })
 public class AuditLog {
 
+    // The partitioned table's key is (id, timestamp); ids come from one sequence and stay unique
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -0,0 +1,48 @@
+package hu.sztibor.staffi.backend.entities;
+
+import hu.sztibor.staffi.backend.enums.AuditAction;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Number of audit log entries per day, entity type and action
+ * Incremented by AuditLogWriter in the same transaction that writes the entries.
+ * The table is created by db/audit_log_counters.sql.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "audit_log_counters")
+@IdClass(AuditLogCounter.Key.class)
+public class AuditLogCounter {
+
+    @Id
+    @Column(name = "bucket_date", nullable = false)
+    private LocalDate bucketDate;
+
+    @Id
+    @Column(name = "entity_type", nullable = false, length = 100)
+    private String entityType;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "action", nullable = false, length = 20)
+    private AuditAction action;
+
+    @Column(name = "entry_count", nullable = false)
+    private long entryCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate bucketDate;
+        private String entityType;
+        private AuditAction action;
+    }
+}
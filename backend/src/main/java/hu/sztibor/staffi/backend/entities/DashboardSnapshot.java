@@ -0,0 +1,65 @@
+package hu.sztibor.staffi.backend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Dashboard figures at the end of one day
+ * Written once per day by DashboardSnapshotService, read by the trends endpoint.
+ * Stock figures are the values at snapshot time, flow figures count the events of that day.
+ * The table is created by db/dashboard_snapshots.sql.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "dashboard_snapshots")
+public class DashboardSnapshot {
+
+    @Id
+    @Column(name = "snapshot_date", nullable = false)
+    private LocalDate snapshotDate;
+
+    @Column(name = "total_employees", nullable = false)
+    private long totalEmployees;
+
+    @Column(name = "active_employees", nullable = false)
+    private long activeEmployees;
+
+    @Column(name = "total_rooms", nullable = false)
+    private long totalRooms;
+
+    @Column(name = "occupied_rooms", nullable = false)
+    private long occupiedRooms;
+
+    @Column(name = "total_capacity", nullable = false)
+    private long totalCapacity;
+
+    @Column(name = "current_occupancy", nullable = false)
+    private long currentOccupancy;
+
+    @Column(name = "total_advance_requests", nullable = false)
+    private long totalAdvanceRequests;
+
+    @Column(name = "pending_advance_requests", nullable = false)
+    private long pendingAdvanceRequests;
+
+    @Column(name = "approved_advance_requests", nullable = false)
+    private long approvedAdvanceRequests;
+
+    @Column(name = "rejected_advance_requests", nullable = false)
+    private long rejectedAdvanceRequests;
+
+    @Column(name = "new_employees", nullable = false)
+    private long newEmployees;
+
+    @Column(name = "check_ins", nullable = false)
+    private long checkIns;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
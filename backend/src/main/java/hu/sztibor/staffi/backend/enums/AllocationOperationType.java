@@ -0,0 +1,7 @@
+package hu.sztibor.staffi.backend.enums;
+
+public enum AllocationOperationType {
+    CHECK_IN,
+    CHECK_OUT,
+    MOVE
+}
@@ -0,0 +1,6 @@
+package hu.sztibor.staffi.backend.enums;
+
+public enum ImportRowStatus {
+    IMPORTED,
+    FAILED
+}
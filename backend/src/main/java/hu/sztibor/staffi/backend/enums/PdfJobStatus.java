@@ -0,0 +1,10 @@
+package hu.sztibor.staffi.backend.enums;
+
+public enum PdfJobStatus {
+    NOT_QUEUED,
+    QUEUED,
+    RENDERING,
+    RETRY_SCHEDULED,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,7 @@
+package hu.sztibor.staffi.backend.enums;
+
+public enum TrendGranularity {
+    DAY,
+    WEEK,
+    MONTH
+}
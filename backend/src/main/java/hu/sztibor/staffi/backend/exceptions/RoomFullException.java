@@ -0,0 +1,15 @@
+package hu.sztibor.staffi.backend.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * A room cannot take the beds being reserved
+ * Thrown by RoomOccupancyRegistry, so callers can retry on it without catching every bad request.
+ */
+public class RoomFullException extends AppException {
+
+    public RoomFullException(String message) {
+        super(message, HttpStatus.BAD_REQUEST);
+    }
+
+}
@@ -1,10 +1,48 @@
 package hu.sztibor.staffi.backend.repositories;
 
 import hu.sztibor.staffi.backend.entities.Accommodation;
+import hu.sztibor.staffi.backend.enums.AllocationStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface AccommodationRepository extends JpaRepository<Accommodation, Long> {
-}
 
+    String SUMMARY_SELECT = "SELECT a.id AS id, a.name AS name, a.address AS address, a.managerContact AS managerContact, " +
+                            "COUNT(r.id) AS roomCount, COALESCE(SUM(r.capacity), 0) AS totalCapacity, " +
+                            "(SELECT COUNT(ra.id) FROM RoomAllocation ra " +
+                            " WHERE ra.room.accommodation.id = a.id AND ra.status = :status) AS currentOccupancy " +
+                            "FROM Accommodation a LEFT JOIN a.rooms r ";
+
+    String SUMMARY_GROUP_BY = "GROUP BY a.id, a.name, a.address, a.managerContact ";
+
+    /**
+     * Capacity and occupancy of every accommodation in one query, without loading rooms
+     */
+    @Query(SUMMARY_SELECT + SUMMARY_GROUP_BY + "ORDER BY a.id")
+    List<AccommodationSummary> findAllSummaries(@Param("status") AllocationStatus status);
+
+    @Query(SUMMARY_SELECT + "WHERE a.id = :id " + SUMMARY_GROUP_BY)
+    Optional<AccommodationSummary> findSummaryById(@Param("id") Long id, @Param("status") AllocationStatus status);
+
+    interface AccommodationSummary {
+        Long getId();
+
+        String getName();
+
+        String getAddress();
+
+        String getManagerContact();
+
+        Long getRoomCount();
+
+        Long getTotalCapacity();
+
+        Long getCurrentOccupancy();
+    }
+}
@@ -0,0 +1,56 @@
+package hu.sztibor.staffi.backend.repositories;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.sztibor.staffi.backend.enums.AuditAction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Approximate row counts for the audit log
+ * On PostgreSQL the unfiltered total comes from pg_class statistics and filtered totals from
+ * the planner's row estimate, so neither scans the table. Other databases get an exact count.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class AuditLogCountEstimator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Estimated number of audit log entries matching the filters
+     */
+    public long estimate(String entityType, AuditAction action, Long userId,
+                         LocalDateTime startDate, LocalDateTime endDate) {
+        AuditLogFilterSql filter = AuditLogFilterSql.of(entityType, action, userId, startDate, endDate);
+
+        if (databasePlatform.isPostgres()) {
+            if (filter.isEmpty()) {
+                // Kept up to date by autovacuum; negative until the table was first analyzed
+                Long rows = jdbcTemplate.queryForObject(
+                        "SELECT reltuples::bigint FROM pg_class WHERE oid = 'audit_logs'::regclass", Long.class);
+                if (rows != null && rows >= 0) {
+                    return rows;
+                }
+            }
+
+            String plan = jdbcTemplate.queryForObject(
+                    "EXPLAIN (FORMAT JSON) SELECT 1 FROM audit_logs" + filter.where(), String.class, filter.args());
+            try {
+                return objectMapper.readTree(plan).path(0).path("Plan").path("Plan Rows").asLong();
+            } catch (JsonProcessingException e) {
+                log.warn("Could not read audit log row estimate, counting instead: {}", e.getMessage());
+            }
+        }
+
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_logs" + filter.where(), Long.class, filter.args());
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,60 @@
+package hu.sztibor.staffi.backend.repositories;
+
+import hu.sztibor.staffi.backend.entities.AuditLogCounter;
+import hu.sztibor.staffi.backend.enums.AuditAction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface AuditLogCounterRepository extends JpaRepository<AuditLogCounter, AuditLogCounter.Key> {
+
+    @Query("SELECT c.entityType AS entityType, c.action AS action, SUM(c.entryCount) AS total " +
+           "FROM AuditLogCounter c GROUP BY c.entityType, c.action")
+    List<CounterTotal> sumByEntityTypeAndAction();
+
+    @Query("SELECT c.bucketDate AS bucketDate, SUM(c.entryCount) AS total FROM AuditLogCounter c " +
+           "WHERE c.bucketDate >= :from GROUP BY c.bucketDate ORDER BY c.bucketDate")
+    List<DailyTotal> sumByDaySince(@Param("from") LocalDate from);
+
+    @Modifying
+    @Query("DELETE FROM AuditLogCounter")
+    int deleteAllCounters();
+
+    @Modifying
+    @Query("DELETE FROM AuditLogCounter c WHERE c.bucketDate >= :from AND c.bucketDate < :to")
+    int deleteCountersBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Recompute every counter from the audit_logs table, expects the counters to be empty
+     */
+    @Modifying
+    @Query(value = "INSERT INTO audit_log_counters (bucket_date, entity_type, action, entry_count) " +
+                   "SELECT CAST(a.timestamp AS DATE), a.entity_type, a.action, COUNT(*) FROM audit_logs a " +
+                   "GROUP BY CAST(a.timestamp AS DATE), a.entity_type, a.action",
+           nativeQuery = true)
+    int insertCountsFromAuditLogs();
+
+    /**
+     * Blocks concurrent counter increments until the rebuild commits (PostgreSQL only)
+     */
+    @Modifying
+    @Query(value = "LOCK TABLE audit_log_counters IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    interface CounterTotal {
+        String getEntityType();
+        AuditAction getAction();
+        Long getTotal();
+    }
+
+    interface DailyTotal {
+        LocalDate getBucketDate();
+        Long getTotal();
+    }
+}
@@ -0,0 +1,49 @@
+package hu.sztibor.staffi.backend.repositories;
+
+import hu.sztibor.staffi.backend.enums.AuditAction;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * WHERE clause and bind values for the audit log filters, for queries run through JdbcTemplate
+ * Mirrors the Specification built by AuditLogService for the JPA queries.
+ */
+public record AuditLogFilterSql(String where, Object[] args) {
+
+    public static AuditLogFilterSql of(String entityType, AuditAction action, Long userId,
+                                       LocalDateTime startDate, LocalDateTime endDate) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+
+        if (entityType != null && !entityType.isEmpty()) {
+            conditions.add("entity_type = ?");
+            args.add(entityType);
+        }
+        if (action != null) {
+            conditions.add("action = ?");
+            args.add(action.name());
+        }
+        if (userId != null) {
+            conditions.add("user_id = ?");
+            args.add(userId);
+        }
+        if (startDate != null) {
+            conditions.add("timestamp >= ?");
+            args.add(Timestamp.valueOf(startDate));
+        }
+        if (endDate != null) {
+            conditions.add("timestamp <= ?");
+            args.add(Timestamp.valueOf(endDate));
+        }
+
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        return new AuditLogFilterSql(where, args.toArray());
+    }
+
+    public boolean isEmpty() {
+        return args.length == 0;
+    }
+}
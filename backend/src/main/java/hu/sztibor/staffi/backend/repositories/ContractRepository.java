@@ -1,9 +1,11 @@
 package hu.sztibor.staffi.backend.repositories;
 
 import hu.sztibor.staffi.backend.entities.Contract;
+import hu.sztibor.staffi.backend.enums.ContractStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -12,5 +14,7 @@ public interface ContractRepository extends JpaRepository<Contract, Long> {
     List<Contract> findByEmployeeId(Long employeeId);
 
     Contract findByContractNumber(String contractNumber);
+
+    List<Contract> findByStatusAndPdfPathIsNullAndCreatedAtBefore(ContractStatus status, LocalDateTime createdBefore);
 }
 
@@ -0,0 +1,14 @@
+package hu.sztibor.staffi.backend.repositories;
+
+import hu.sztibor.staffi.backend.entities.DashboardSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DashboardSnapshotRepository extends JpaRepository<DashboardSnapshot, LocalDate> {
+
+    List<DashboardSnapshot> findBySnapshotDateBetweenOrderBySnapshotDateAsc(LocalDate from, LocalDate to);
+}
@@ -0,0 +1,110 @@
+package hu.sztibor.staffi.backend.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Aggregate queries behind the dashboard
+ * All counters are computed by a single SQL statement, no entities are loaded.
+ */
+@Repository
+public class DashboardStatsRepository {
+
+    private static final String DASHBOARD_COUNTS_SQL = """
+            SELECT e.total_employees,
+                   u.active_employees,
+                   u.new_employees,
+                   r.total_rooms,
+                   r.total_capacity,
+                   a.current_occupancy,
+                   a.occupied_rooms,
+                   a.check_ins,
+                   ar.total_advances,
+                   ar.pending_advances,
+                   ar.approved_advances,
+                   ar.rejected_advances
+            FROM (SELECT COUNT(*) AS total_employees FROM employees) e
+            CROSS JOIN (SELECT COALESCE(SUM(CASE WHEN role = 'EMPLOYEE' AND is_active = TRUE THEN 1 ELSE 0 END), 0) AS active_employees,
+                               COALESCE(SUM(CASE WHEN role = 'EMPLOYEE' AND created_at >= :periodStart AND created_at < :periodEnd THEN 1 ELSE 0 END), 0) AS new_employees
+                        FROM users) u
+            CROSS JOIN (SELECT COUNT(*) AS total_rooms,
+                               COALESCE(SUM(capacity), 0) AS total_capacity
+                        FROM rooms) r
+            CROSS JOIN (SELECT COALESCE(SUM(CASE WHEN status = 'ACTIVE' THEN 1 ELSE 0 END), 0) AS current_occupancy,
+                               COUNT(DISTINCT CASE WHEN status = 'ACTIVE' THEN room_id END) AS occupied_rooms,
+                               COALESCE(SUM(CASE WHEN check_in_date >= :periodStartDate AND check_in_date < :periodEndDate THEN 1 ELSE 0 END), 0) AS check_ins
+                        FROM room_allocations) a
+            CROSS JOIN (SELECT COUNT(*) AS total_advances,
+                               COALESCE(SUM(CASE WHEN status = 'PENDING' THEN 1 ELSE 0 END), 0) AS pending_advances,
+                               COALESCE(SUM(CASE WHEN status = 'APPROVED' THEN 1 ELSE 0 END), 0) AS approved_advances,
+                               COALESCE(SUM(CASE WHEN status = 'REJECTED' THEN 1 ELSE 0 END), 0) AS rejected_advances
+                        FROM advance_requests) ar
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Compute every dashboard counter in one round-trip
+     *
+     * @param monthStart First day of the current month, used for the "this month" counters
+     */
+    public DashboardCounts fetchCounts(LocalDate monthStart) {
+        return fetchCounts(monthStart, monthStart.plusMonths(1));
+    }
+
+    /**
+     * Compute every dashboard counter in one round-trip
+     * The new employee and check-in counters cover [periodStart, periodEnd), the others are current values.
+     */
+    public DashboardCounts fetchCounts(LocalDate periodStart, LocalDate periodEnd) {
+        Object[] row = (Object[]) entityManager.createNativeQuery(DASHBOARD_COUNTS_SQL)
+                .setParameter("periodStart", periodStart.atStartOfDay())
+                .setParameter("periodEnd", periodEnd.atStartOfDay())
+                .setParameter("periodStartDate", periodStart)
+                .setParameter("periodEndDate", periodEnd)
+                .getSingleResult();
+
+        return new DashboardCounts(
+                toLong(row[0]),
+                toLong(row[1]),
+                toLong(row[2]),
+                toLong(row[3]),
+                toLong(row[4]),
+                toLong(row[5]),
+                toLong(row[6]),
+                toLong(row[7]),
+                toLong(row[8]),
+                toLong(row[9]),
+                toLong(row[10]),
+                toLong(row[11])
+        );
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    /**
+     * Raw dashboard counters as returned by the aggregate query
+     */
+    public record DashboardCounts(
+            long totalEmployees,
+            long activeEmployees,
+            long newEmployeesThisMonth,
+            long totalRooms,
+            long totalCapacity,
+            long currentOccupancy,
+            long occupiedRooms,
+            long checkInsThisMonth,
+            long totalAdvanceRequests,
+            long pendingAdvanceRequests,
+            long approvedAdvanceRequests,
+            long rejectedAdvanceRequests
+    ) {
+    }
+}
@@ -3,8 +3,12 @@ package hu.sztibor.staffi.backend.repositories;
 import hu.sztibor.staffi.backend.entities.Employee;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -17,5 +21,57 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long>, JpaSp
     Optional<Employee> findByTajNumber(String tajNumber);
 
     Optional<Employee> findByIdCardNumber(String idCardNumber);
-}
 
+    @Query("SELECT e.taxId FROM Employee e WHERE e.taxId IN :taxIds")
+    List<String> findExistingTaxIds(@Param("taxIds") Collection<String> taxIds);
+
+    @Query("SELECT e.tajNumber FROM Employee e WHERE e.tajNumber IN :tajNumbers")
+    List<String> findExistingTajNumbers(@Param("tajNumbers") Collection<String> tajNumbers);
+
+    @Query("SELECT e.idCardNumber FROM Employee e WHERE e.idCardNumber IN :idCardNumbers")
+    List<String> findExistingIdCardNumbers(@Param("idCardNumbers") Collection<String> idCardNumbers);
+
+    /**
+     * Employee ids of the given users, without loading the entities
+     */
+    @Query("SELECT e.user.id AS userId, e.id AS employeeId FROM Employee e WHERE e.user.id IN :userIds")
+    List<UserEmployeeId> findEmployeeIdsByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    interface UserEmployeeId {
+        Long getUserId();
+
+        Long getEmployeeId();
+    }
+
+    /**
+     * Company names of the given employees, without loading the entities
+     */
+    @Query("SELECT e.id AS employeeId, e.companyName AS companyName FROM Employee e WHERE e.id IN :ids")
+    List<EmployeeCompany> findCompanyNamesByIds(@Param("ids") Collection<Long> ids);
+
+    interface EmployeeCompany {
+        Long getEmployeeId();
+
+        String getCompanyName();
+    }
+
+    /**
+     * Names, company and nationality of the given employees, without loading the entities
+     */
+    @Query("SELECT e.id AS employeeId, u.firstName AS firstName, u.lastName AS lastName, " +
+           "e.companyName AS companyName, e.nationality AS nationality " +
+           "FROM Employee e LEFT JOIN e.user u WHERE e.id IN :ids")
+    List<EmployeeProfile> findProfilesByIds(@Param("ids") Collection<Long> ids);
+
+    interface EmployeeProfile {
+        Long getEmployeeId();
+
+        String getFirstName();
+
+        String getLastName();
+
+        String getCompanyName();
+
+        String getNationality();
+    }
+}
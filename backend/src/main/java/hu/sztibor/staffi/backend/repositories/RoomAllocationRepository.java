@@ -3,8 +3,12 @@ package hu.sztibor.staffi.backend.repositories;
 import hu.sztibor.staffi.backend.entities.RoomAllocation;
 import hu.sztibor.staffi.backend.enums.AllocationStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,5 +23,97 @@ public interface RoomAllocationRepository extends JpaRepository<RoomAllocation,
     List<RoomAllocation> findByEmployeeIdOrderByCheckInDateDesc(Long employeeId);
 
     Long countByStatus(AllocationStatus status);
+
+    /**
+     * Room numbers of the given employees' allocations, without loading the entities
+     */
+    @Query("SELECT ra.employee.id AS employeeId, ra.room.roomNumber AS roomNumber " +
+           "FROM RoomAllocation ra " +
+           "WHERE ra.employee.id IN :employeeIds AND ra.status = :status")
+    List<EmployeeRoomNumber> findRoomNumbersByEmployeeIds(@Param("employeeIds") Collection<Long> employeeIds,
+                                                          @Param("status") AllocationStatus status);
+
+    /**
+     * Occupants of every room of an accommodation in one query, without loading the entities
+     */
+    @Query("SELECT ra.room.id AS roomId, ra.id AS allocationId, e.id AS employeeId, " +
+           "u.firstName AS firstName, u.lastName AS lastName, e.companyName AS companyName, ra.checkInDate AS checkInDate " +
+           "FROM RoomAllocation ra JOIN ra.employee e JOIN e.user u " +
+           "WHERE ra.room.accommodation.id = :accommodationId AND ra.status = :status " +
+           "ORDER BY ra.checkInDate, ra.id")
+    List<RoomOccupant> findOccupantsByAccommodationId(@Param("accommodationId") Long accommodationId,
+                                                      @Param("status") AllocationStatus status);
+
+    /**
+     * Occupants of a single room, same shape as findOccupantsByAccommodationId
+     */
+    @Query("SELECT ra.room.id AS roomId, ra.id AS allocationId, e.id AS employeeId, " +
+           "u.firstName AS firstName, u.lastName AS lastName, e.companyName AS companyName, ra.checkInDate AS checkInDate " +
+           "FROM RoomAllocation ra JOIN ra.employee e JOIN e.user u " +
+           "WHERE ra.room.id = :roomId AND ra.status = :status " +
+           "ORDER BY ra.checkInDate, ra.id")
+    List<RoomOccupant> findOccupantsByRoomId(@Param("roomId") Long roomId,
+                                             @Param("status") AllocationStatus status);
+
+    /**
+     * Active allocations of the given employees, without loading the entities
+     */
+    @Query("SELECT ra.id AS allocationId, ra.employee.id AS employeeId, ra.room.id AS roomId, ra.room.roomNumber AS roomNumber " +
+           "FROM RoomAllocation ra " +
+           "WHERE ra.employee.id IN :employeeIds AND ra.status = :status")
+    List<EmployeeAllocation> findAllocationsByEmployeeIds(@Param("employeeIds") Collection<Long> employeeIds,
+                                                          @Param("status") AllocationStatus status);
+
+    /**
+     * Active occupants of the given rooms counted per company and nationality
+     */
+    @Query("SELECT ra.room.id AS roomId, e.companyName AS companyName, e.nationality AS nationality, COUNT(ra) AS occupants " +
+           "FROM RoomAllocation ra JOIN ra.employee e " +
+           "WHERE ra.room.id IN :roomIds AND ra.status = :status " +
+           "GROUP BY ra.room.id, e.companyName, e.nationality")
+    List<RoomOccupantGroup> findOccupantGroupsByRoomIds(@Param("roomIds") Collection<Long> roomIds,
+                                                        @Param("status") AllocationStatus status);
+
+    interface EmployeeAllocation {
+        Long getAllocationId();
+
+        Long getEmployeeId();
+
+        Long getRoomId();
+
+        String getRoomNumber();
+    }
+
+    interface RoomOccupant {
+        Long getRoomId();
+
+        Long getAllocationId();
+
+        Long getEmployeeId();
+
+        String getFirstName();
+
+        String getLastName();
+
+        String getCompanyName();
+
+        LocalDate getCheckInDate();
+    }
+
+    interface RoomOccupantGroup {
+        Long getRoomId();
+
+        String getCompanyName();
+
+        String getNationality();
+
+        Long getOccupants();
+    }
+
+    interface EmployeeRoomNumber {
+        Long getEmployeeId();
+
+        String getRoomNumber();
+    }
 }
 
@@ -5,10 +5,13 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface RoomRepository extends JpaRepository<Room, Long> {
 
     List<Room> findByAccommodationId(Long accommodationId);
+
+    Optional<Room> findFirstByRoomNumberOrderByIdAsc(String roomNumber);
 }
 
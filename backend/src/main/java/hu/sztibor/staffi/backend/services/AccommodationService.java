@@ -1,8 +1,11 @@
 package hu.sztibor.staffi.backend.services;
 
 import hu.sztibor.staffi.backend.dto.accommodation.AccommodationDto;
+import hu.sztibor.staffi.backend.dto.accommodation.AccommodationVacancyDto;
 import hu.sztibor.staffi.backend.dto.accommodation.CreateAccommodationDto;
 import hu.sztibor.staffi.backend.dto.accommodation.UpdateAccommodationDto;
+import hu.sztibor.staffi.backend.dto.accommodation.VacancyDto;
+import hu.sztibor.staffi.backend.dto.accommodation.VacantRoomDto;
 import hu.sztibor.staffi.backend.dto.room.*;
 import hu.sztibor.staffi.backend.entities.Accommodation;
 import hu.sztibor.staffi.backend.entities.Employee;
@@ -11,11 +14,13 @@ import hu.sztibor.staffi.backend.entities.RoomAllocation;
 import hu.sztibor.staffi.backend.enums.AllocationStatus;
 import hu.sztibor.staffi.backend.enums.AuditAction;
 import hu.sztibor.staffi.backend.exceptions.AppException;
-import hu.sztibor.staffi.backend.mappers.AccommodationMapper;
 import hu.sztibor.staffi.backend.repositories.AccommodationRepository;
+import hu.sztibor.staffi.backend.repositories.AccommodationRepository.AccommodationSummary;
 import hu.sztibor.staffi.backend.repositories.EmployeeRepository;
 import hu.sztibor.staffi.backend.repositories.RoomAllocationRepository;
+import hu.sztibor.staffi.backend.repositories.RoomAllocationRepository.RoomOccupant;
 import hu.sztibor.staffi.backend.repositories.RoomRepository;
+import hu.sztibor.staffi.backend.services.RoomOccupancyRegistry.RoomVacancy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -23,7 +28,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -31,20 +43,25 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AccommodationService {
 
+    private static final int DEFAULT_VACANCY_RESULTS = 20;
+    private static final int MAX_VACANCY_RESULTS = 200;
+
     private final AccommodationRepository accommodationRepository;
     private final RoomRepository roomRepository;
     private final RoomAllocationRepository allocationRepository;
     private final EmployeeRepository employeeRepository;
-    private final AccommodationMapper accommodationMapper;
     private final AuditLogService auditLogService;
+    private final DashboardService dashboardService;
+    private final RoomOccupancyRegistry occupancyRegistry;
 
     /**
-     * Get all accommodations (buildings)
+     * Get all accommodations (buildings) with capacity and occupancy
+     * Computed by one aggregate query (see AccommodationRepository), rooms are not loaded.
      */
     public List<AccommodationDto> getAllAccommodations() {
-        return accommodationRepository.findAll()
+        return accommodationRepository.findAllSummaries(AllocationStatus.ACTIVE)
                 .stream()
-                .map(accommodationMapper::toDto)
+                .map(this::buildAccommodationDto)
                 .collect(Collectors.toList());
     }
 
@@ -77,7 +94,7 @@ public class AccommodationService {
             newValueMap
         );
 
-        return accommodationMapper.toDto(saved);
+        return getAccommodationDto(saved.getId());
     }
 
     /**
@@ -121,7 +138,7 @@ public class AccommodationService {
             newValueMap
         );
 
-        return accommodationMapper.toDto(updated);
+        return getAccommodationDto(updated.getId());
     }
 
     /**
@@ -150,6 +167,7 @@ public class AccommodationService {
                 .build();
 
         Room saved = roomRepository.save(room);
+        occupancyRegistry.register(saved.getId(), accommodation.getId(), saved.getCapacity());
 
         java.util.Map<String, Object> newValueMap = new java.util.HashMap<>();
         newValueMap.put("id", saved.getId());
@@ -158,6 +176,8 @@ public class AccommodationService {
         newValueMap.put("accommodationId", accommodation.getId());
         newValueMap.put("accommodationName", accommodation.getName());
 
+        dashboardService.invalidateStats();
+
         auditLogService.logAction(
             "Room",
             saved.getId(),
@@ -199,16 +219,7 @@ public class AccommodationService {
         }
 
         if (dto.getCapacity() != null) {
-            List<RoomAllocation> activeAllocations = allocationRepository
-                    .findByRoomIdAndStatus(roomId, AllocationStatus.ACTIVE);
-
-            if (dto.getCapacity() < activeAllocations.size()) {
-                throw new AppException(
-                        "Cannot reduce capacity below current occupancy (" +
-                        activeAllocations.size() + " occupants)",
-                        HttpStatus.BAD_REQUEST
-                );
-            }
+            occupancyRegistry.changeCapacity(roomId, dto.getCapacity());
             room.setCapacity(dto.getCapacity());
         }
 
@@ -218,6 +229,8 @@ public class AccommodationService {
         newValueMap.put("roomNumber", updated.getRoomNumber());
         newValueMap.put("capacity", updated.getCapacity());
 
+        dashboardService.invalidateStats();
+
         auditLogService.logAction(
             "Room",
             updated.getId(),
@@ -250,6 +263,8 @@ public class AccommodationService {
             );
         }
 
+        dashboardService.invalidateStats();
+
         auditLogService.logAction(
             "Room",
             room.getId(),
@@ -259,22 +274,101 @@ public class AccommodationService {
         );
 
         roomRepository.delete(room);
+        occupancyRegistry.remove(roomId);
     }
 
     /**
      * Get all rooms in an accommodation with current occupancy info
+     * Rooms and the occupants of all of them are read with one query each and joined in memory.
      */
     public List<RoomDto> getRoomsByAccommodation(Long accommodationId) {
-        accommodationRepository.findById(accommodationId)
-                .orElseThrow(() -> new AppException("Accommodation not found", HttpStatus.NOT_FOUND));
+        if (!accommodationRepository.existsById(accommodationId)) {
+            throw new AppException("Accommodation not found", HttpStatus.NOT_FOUND);
+        }
 
         List<Room> rooms = roomRepository.findByAccommodationId(accommodationId);
+        Map<Long, List<RoomOccupant>> occupantsByRoom = allocationRepository
+                .findOccupantsByAccommodationId(accommodationId, AllocationStatus.ACTIVE)
+                .stream()
+                .collect(Collectors.groupingBy(RoomOccupant::getRoomId));
 
         return rooms.stream()
-                .map(this::buildRoomDto)
+                .map(room -> buildRoomDto(room, occupantsByRoom.getOrDefault(room.getId(), List.of())))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Find where the given number of beds are free, in a single room or spread over one accommodation
+     * Answered from the occupancy registry's free-beds index; only the names of the returned rooms are read.
+     */
+    public VacancyDto findVacancies(int beds, Long accommodationId, String companyName, Integer limit) {
+        if (beds < 1) {
+            throw new AppException("Number of beds must be at least 1", HttpStatus.BAD_REQUEST);
+        }
+        if (limit != null && limit < 1) {
+            throw new AppException("Limit must be at least 1", HttpStatus.BAD_REQUEST);
+        }
+        int maxResults = limit != null ? Math.min(limit, MAX_VACANCY_RESULTS) : DEFAULT_VACANCY_RESULTS;
+
+        List<RoomVacancy> candidates = occupancyRegistry.findVacancies(1, accommodationId, companyName);
+
+        // Candidates come fewest free beds first, so the first fitting rooms waste the fewest beds
+        List<RoomVacancy> singleRooms = candidates.stream()
+                .filter(vacancy -> vacancy.freeBeds() >= beds)
+                .limit(maxResults)
+                .toList();
+
+        Map<Long, List<RoomVacancy>> byAccommodation = candidates.stream()
+                .filter(vacancy -> vacancy.accommodationId() != null)
+                .collect(Collectors.groupingBy(RoomVacancy::accommodationId, LinkedHashMap::new, Collectors.toList()));
+        Map<Long, Integer> freeByAccommodation = new LinkedHashMap<>();
+        byAccommodation.forEach((id, vacancies) ->
+                freeByAccommodation.put(id, vacancies.stream().mapToInt(RoomVacancy::freeBeds).sum()));
+
+        // Per accommodation, the emptiest rooms first until the beds are covered
+        List<List<RoomVacancy>> groups = new ArrayList<>();
+        byAccommodation.forEach((id, vacancies) -> {
+            if (freeByAccommodation.get(id) < beds) {
+                return;
+            }
+            List<RoomVacancy> picked = new ArrayList<>();
+            int covered = 0;
+            for (int i = vacancies.size() - 1; covered < beds; i--) {
+                picked.add(vacancies.get(i));
+                covered += vacancies.get(i).freeBeds();
+            }
+            groups.add(picked);
+        });
+        groups.sort(Comparator.<List<RoomVacancy>>comparingInt(List::size)
+                .thenComparing(picked -> freeByAccommodation.get(picked.get(0).accommodationId()), Comparator.reverseOrder()));
+        List<List<RoomVacancy>> topGroups = groups.subList(0, Math.min(groups.size(), maxResults));
+
+        Set<Long> roomIds = new HashSet<>();
+        singleRooms.forEach(vacancy -> roomIds.add(vacancy.roomId()));
+        topGroups.forEach(picked -> picked.forEach(vacancy -> roomIds.add(vacancy.roomId())));
+        Map<Long, Room> rooms = roomRepository.findAllById(roomIds).stream()
+                .collect(Collectors.toMap(Room::getId, Function.identity()));
+
+        List<AccommodationVacancyDto> accommodations = topGroups.stream()
+                .map(picked -> {
+                    List<VacantRoomDto> pickedRooms = toVacantRooms(picked, rooms);
+                    Long id = picked.get(0).accommodationId();
+                    return AccommodationVacancyDto.builder()
+                            .accommodationId(id)
+                            .accommodationName(pickedRooms.isEmpty() ? null : pickedRooms.get(0).getAccommodationName())
+                            .freeBeds(freeByAccommodation.get(id))
+                            .rooms(pickedRooms)
+                            .build();
+                })
+                .toList();
+
+        return VacancyDto.builder()
+                .beds(beds)
+                .rooms(toVacantRooms(singleRooms, rooms))
+                .accommodations(accommodations)
+                .build();
+    }
+
     /**
      * Create new room allocation (check-in)
      */
@@ -297,12 +391,7 @@ public class AccommodationService {
             );
         }
 
-        List<RoomAllocation> currentOccupants = allocationRepository
-                .findByRoomIdAndStatus(dto.getRoomId(), AllocationStatus.ACTIVE);
-
-        if (currentOccupants.size() >= room.getCapacity()) {
-            throw new AppException("Room is at full capacity", HttpStatus.BAD_REQUEST);
-        }
+        occupancyRegistry.reserve(room.getId(), employee.getCompanyName());
 
         RoomAllocation allocation = RoomAllocation.builder()
                 .room(room)
@@ -322,6 +411,8 @@ public class AccommodationService {
         newValueMap.put("checkInDate", saved.getCheckInDate());
         newValueMap.put("status", saved.getStatus().name());
 
+        dashboardService.invalidateStats();
+
         auditLogService.logAction(
             "RoomAllocation",
             saved.getId(),
@@ -354,6 +445,7 @@ public class AccommodationService {
         allocation.setStatus(AllocationStatus.CHECKED_OUT);
 
         RoomAllocation updated = allocationRepository.save(allocation);
+        occupancyRegistry.release(allocation.getRoom().getId());
 
         java.util.Map<String, Object> oldValueMap = new java.util.HashMap<>();
         oldValueMap.put("status", "ACTIVE");
@@ -363,6 +455,8 @@ public class AccommodationService {
         newValueMap.put("status", updated.getStatus().name());
         newValueMap.put("checkOutDate", updated.getCheckOutDate());
 
+        dashboardService.invalidateStats();
+
         auditLogService.logAction(
             "RoomAllocation",
             updated.getId(),
@@ -395,21 +489,66 @@ public class AccommodationService {
                 .collect(Collectors.toList());
     }
 
+    private AccommodationDto getAccommodationDto(Long id) {
+        return accommodationRepository.findSummaryById(id, AllocationStatus.ACTIVE)
+                .map(this::buildAccommodationDto)
+                .orElseThrow(() -> new AppException("Accommodation not found", HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Build AccommodationDto from the aggregate summary
+     */
+    private AccommodationDto buildAccommodationDto(AccommodationSummary summary) {
+        int totalCapacity = summary.getTotalCapacity().intValue();
+        int currentOccupancy = summary.getCurrentOccupancy().intValue();
+
+        return AccommodationDto.builder()
+                .id(summary.getId())
+                .name(summary.getName())
+                .address(summary.getAddress())
+                .managerContact(summary.getManagerContact())
+                .totalCapacity(totalCapacity)
+                .currentOccupancy(currentOccupancy)
+                .freeBeds(Math.max(0, totalCapacity - currentOccupancy))
+                .roomCount(summary.getRoomCount().intValue())
+                .build();
+    }
+
+    /**
+     * Build VacantRoomDto for each vacancy, skipping rooms deleted in the meantime
+     */
+    private List<VacantRoomDto> toVacantRooms(List<RoomVacancy> vacancies, Map<Long, Room> rooms) {
+        return vacancies.stream()
+                .filter(vacancy -> rooms.containsKey(vacancy.roomId()))
+                .map(vacancy -> {
+                    Room room = rooms.get(vacancy.roomId());
+                    return VacantRoomDto.builder()
+                            .roomId(room.getId())
+                            .roomNumber(room.getRoomNumber())
+                            .accommodationId(room.getAccommodation().getId())
+                            .accommodationName(room.getAccommodation().getName())
+                            .capacity(vacancy.capacity())
+                            .freeBeds(vacancy.freeBeds())
+                            .build();
+                })
+                .toList();
+    }
+
     /**
      * Build RoomDto with occupancy information
      */
     private RoomDto buildRoomDto(Room room) {
-        List<RoomAllocation> activeAllocations = allocationRepository
-                .findByRoomIdAndStatus(room.getId(), AllocationStatus.ACTIVE);
-
-        List<RoomDto.Occupant> occupants = activeAllocations.stream()
-                .map(allocation -> RoomDto.Occupant.builder()
-                        .allocationId(allocation.getId())
-                        .employeeId(allocation.getEmployee().getId())
-                        .employeeName(allocation.getEmployee().getUser().getLastName() + " " +
-                                     allocation.getEmployee().getUser().getFirstName())
-                        .companyName(allocation.getEmployee().getCompanyName())
-                        .checkInDate(allocation.getCheckInDate())
+        return buildRoomDto(room, allocationRepository.findOccupantsByRoomId(room.getId(), AllocationStatus.ACTIVE));
+    }
+
+    private RoomDto buildRoomDto(Room room, List<RoomOccupant> activeOccupants) {
+        List<RoomDto.Occupant> occupants = activeOccupants.stream()
+                .map(occupant -> RoomDto.Occupant.builder()
+                        .allocationId(occupant.getAllocationId())
+                        .employeeId(occupant.getEmployeeId())
+                        .employeeName(occupant.getLastName() + " " + occupant.getFirstName())
+                        .companyName(occupant.getCompanyName())
+                        .checkInDate(occupant.getCheckInDate())
                         .build())
                 .collect(Collectors.toList());
 
@@ -417,7 +556,7 @@ public class AccommodationService {
                 .id(room.getId())
                 .roomNumber(room.getRoomNumber())
                 .capacity(room.getCapacity())
-                .currentOccupancy(activeAllocations.size())
+                .currentOccupancy(occupants.size())
                 .currentOccupants(occupants)
                 .build();
     }
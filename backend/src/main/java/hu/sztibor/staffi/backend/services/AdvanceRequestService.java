@@ -1,5 +1,6 @@
 package hu.sztibor.staffi.backend.services;
 
+import hu.sztibor.staffi.backend.dto.CursorPageDto;
 import hu.sztibor.staffi.backend.dto.advance.AdvanceRequestDto;
 import hu.sztibor.staffi.backend.dto.advance.CreateAdvanceRequestDto;
 import hu.sztibor.staffi.backend.dto.advance.ReviewAdvanceRequestDto;
@@ -13,8 +14,12 @@ import hu.sztibor.staffi.backend.exceptions.AppException;
 import hu.sztibor.staffi.backend.repositories.AdvanceRequestRepository;
 import hu.sztibor.staffi.backend.repositories.EmployeeRepository;
 import hu.sztibor.staffi.backend.repositories.UserRepository;
+import hu.sztibor.staffi.backend.utils.KeysetCursor;
+import jakarta.persistence.criteria.JoinType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -30,10 +35,13 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AdvanceRequestService {
 
+    private static final Sort ADVANCE_KEYSET_SORT = Sort.by("employee.user.lastName", "employee.user.firstName", "id");
+
     private final AdvanceRequestRepository advanceRequestRepository;
     private final EmployeeRepository employeeRepository;
     private final UserRepository userRepository;
     private final AuditLogService auditLogService;
+    private final DashboardService dashboardService;
 
     /**
      * Employee creates an advance request
@@ -69,6 +77,8 @@ public class AdvanceRequestService {
         newValueMap.put("status", saved.getStatus().name());
         newValueMap.put("requestDate", saved.getRequestDate());
 
+        dashboardService.invalidateStats();
+
         auditLogService.logAction(
             "AdvanceRequest",
             saved.getId(),
@@ -123,6 +133,52 @@ public class AdvanceRequestService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Get one page of advance requests using keyset pagination (HR/Admin only)
+     * Sorted by the employee's last name, first name, then request id
+     */
+    public CursorPageDto<AdvanceRequestDto> getRequestsPage(String status, String cursor, Integer limit) {
+        int pageSize = KeysetCursor.resolveLimit(limit);
+        AdvanceStatus advanceStatus = parseStatus(status);
+
+        Specification<AdvanceRequest> filter = (root, query, criteriaBuilder) -> {
+            // Load the employee and user with the request instead of one select per row
+            if (query.getResultType() == AdvanceRequest.class) {
+                root.fetch("employee", JoinType.INNER).fetch("user", JoinType.INNER);
+                root.fetch("reviewedBy", JoinType.LEFT);
+            }
+            return advanceStatus != null
+                    ? criteriaBuilder.equal(root.get("status"), advanceStatus)
+                    : criteriaBuilder.conjunction();
+        };
+        Specification<AdvanceRequest> spec = filter
+                .and(KeysetCursor.seekAfter(KeysetCursor.decode(cursor),
+                        root -> root.get("employee").get("user").get("lastName"),
+                        root -> root.get("employee").get("user").get("firstName"),
+                        root -> root.get("id")));
+
+        List<AdvanceRequest> requests = advanceRequestRepository.findBy(spec,
+                query -> query.sortBy(ADVANCE_KEYSET_SORT).limit(pageSize + 1).all());
+
+        return KeysetCursor.toPage(requests, pageSize,
+                request -> new KeysetCursor(request.getEmployee().getUser().getLastName(),
+                        request.getEmployee().getUser().getFirstName(), request.getId()),
+                page -> page.stream()
+                        .map(this::mapToDto)
+                        .collect(Collectors.toList()));
+    }
+
+    private AdvanceStatus parseStatus(String status) {
+        if (status == null || status.isEmpty()) {
+            return null;
+        }
+        try {
+            return AdvanceStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new AppException("Invalid status: " + status, HttpStatus.BAD_REQUEST);
+        }
+    }
+
     /**
      * Review advance request (HR/Admin only)
      */
@@ -182,6 +238,8 @@ public class AdvanceRequestService {
             newValueMap.put("rejectionReason", updated.getRejectionReason());
         }
 
+        dashboardService.invalidateStats();
+
         auditLogService.logAction(
             "AdvanceRequest",
             updated.getId(),
@@ -0,0 +1,574 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.entities.AuditLog;
+import hu.sztibor.staffi.backend.enums.AuditAction;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * One immutable segment of the cold audit archive
+ * Rows are cut by time into sections of consecutive entries, so sections do not overlap in time. Within
+ * a section the data file holds deflate-compressed blocks of rows sorted by (entityType, entityId, timestamp, id).
+ * The index file holds the segment's time range, the entity types it contains, the first block of every
+ * section and one fixed-size entry per block (first key, time range, file position). It is memory-mapped
+ * and binary searched per section, so finding the history of one entity inflates a block or two per section,
+ * and a time-bounded scan only inflates the blocks of the sections it reaches.
+ * The index is written last; a data file without an index is an interrupted write and is ignored.
+ */
+public final class AuditArchiveSegment implements Closeable {
+
+    static final String DATA_SUFFIX = ".seg";
+    static final String INDEX_SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x53544146;
+    private static final int VERSION = 2;
+    private static final int BLOCK_ROWS = 512;
+    private static final int SECTION_ROWS = 16 * BLOCK_ROWS;
+    // typeCode, entityId, first timestamp, min timestamp, max timestamp, offset, length, row count
+    private static final int ENTRY_SIZE = 2 + 8 + 8 + 8 + 8 + 8 + 4 + 4;
+    private static final long NO_ENTITY_ID = Long.MIN_VALUE;
+
+    private static final Comparator<AuditLog> ROW_ORDER = Comparator
+            .comparing(AuditLog::getEntityType)
+            .thenComparingLong(row -> entityKey(row.getEntityId()))
+            .thenComparing(AuditLog::getTimestamp)
+            .thenComparing(AuditLog::getId);
+
+    private static final Comparator<AuditLog> TIME_ORDER = Comparator
+            .comparing(AuditLog::getTimestamp)
+            .thenComparing(AuditLog::getId);
+
+    private final String name;
+    private final FileChannel data;
+    private final MappedByteBuffer index;
+    private final List<String> entityTypes;
+    /** First entry of every section followed by entryCount */
+    private final int[] sectionStarts;
+    private final int entriesOffset;
+    private final LocalDateTime minTimestamp;
+    private final LocalDateTime maxTimestamp;
+    private final long rowCount;
+
+    private AuditArchiveSegment(String name, FileChannel data, MappedByteBuffer index) throws IOException {
+        this.name = name;
+        this.data = data;
+        this.index = index;
+
+        if (index.getInt(0) != MAGIC || index.getInt(4) != VERSION) {
+            throw new IOException("Not an audit archive index: " + name);
+        }
+        minTimestamp = fromMicros(index.getLong(8));
+        maxTimestamp = fromMicros(index.getLong(16));
+        rowCount = index.getLong(24);
+
+        int position = 32;
+        int typeCount = index.getInt(position);
+        position += 4;
+        List<String> types = new ArrayList<>(typeCount);
+        for (int i = 0; i < typeCount; i++) {
+            int length = index.getShort(position);
+            byte[] bytes = new byte[length];
+            index.get(position + 2, bytes);
+            types.add(new String(bytes, StandardCharsets.UTF_8));
+            position += 2 + length;
+        }
+        entityTypes = List.copyOf(types);
+
+        int sectionCount = index.getInt(position);
+        position += 4;
+        sectionStarts = new int[sectionCount + 1];
+        for (int i = 0; i < sectionCount; i++) {
+            sectionStarts[i] = index.getInt(position);
+            position += 4;
+        }
+        sectionStarts[sectionCount] = index.getInt(position);
+        entriesOffset = position + 4;
+    }
+
+    /**
+     * Write the rows as a new segment and open it
+     */
+    public static AuditArchiveSegment write(Path directory, String name, List<AuditLog> rows) throws IOException {
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("An archive segment needs at least one row");
+        }
+        List<AuditLog> byTime = new ArrayList<>(rows);
+        byTime.sort(TIME_ORDER);
+
+        try (Writer writer = new Writer(directory)) {
+            for (AuditLog row : byTime) {
+                writer.add(row);
+            }
+            return writer.finish(name);
+        }
+    }
+
+    /**
+     * Open a segment from its index file
+     */
+    public static AuditArchiveSegment open(Path indexFile) throws IOException {
+        String fileName = indexFile.getFileName().toString();
+        String name = fileName.substring(0, fileName.length() - INDEX_SUFFIX.length());
+
+        MappedByteBuffer index;
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        FileChannel data = FileChannel.open(indexFile.resolveSibling(name + DATA_SUFFIX), StandardOpenOption.READ);
+        try {
+            return new AuditArchiveSegment(name, data, index);
+        } catch (IOException | RuntimeException e) {
+            data.close();
+            throw e;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LocalDateTime getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    public LocalDateTime getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * All rows of one entity
+     */
+    public List<AuditLog> findEntity(String entityType, Long entityId) throws IOException {
+        int code = Collections.binarySearch(entityTypes, entityType);
+        if (code < 0) {
+            return List.of();
+        }
+        long id = entityKey(entityId);
+
+        List<AuditLog> rows = new ArrayList<>();
+        for (int section = 0; section + 1 < sectionStarts.length; section++) {
+            int start = sectionStarts[section];
+            int end = sectionStarts[section + 1];
+            // Rows of the entity may start at the end of the block before the first one keyed with it
+            for (int entry = Math.max(lastEntryBefore(code, id, start, end), start); entry < end; entry++) {
+                if (compareEntry(entry, code, id) > 0) {
+                    break;
+                }
+                for (AuditLog row : readBlock(entry)) {
+                    if (row.getEntityType().equals(entityType) && entityKey(row.getEntityId()) == id) {
+                        rows.add(row);
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Pass every row within [from, to] to the sink, optionally restricted to one entity type
+     * Bounds may be null. Blocks outside the time range or holding other entity types are not inflated.
+     */
+    public void scan(LocalDateTime from, LocalDateTime to, String entityType, Consumer<AuditLog> sink) throws IOException {
+        scan(from, to, entityType, () -> null, sink);
+    }
+
+    /**
+     * Like scan, visiting the newest sections first and skipping blocks that end before the floor
+     * The floor is read before every block, so a caller collecting the newest N rows can raise it
+     * once it holds N rows and the rest of the segment is passed over section by section.
+     */
+    public void scan(LocalDateTime from, LocalDateTime to, String entityType,
+                     Supplier<LocalDateTime> floor, Consumer<AuditLog> sink) throws IOException {
+        long fromMicros = from != null ? toMicros(from) : Long.MIN_VALUE;
+        long toMicros = to != null ? toMicros(to) : Long.MAX_VALUE;
+        if (toMicros(maxTimestamp) < fromMicros || toMicros(minTimestamp) > toMicros) {
+            return;
+        }
+
+        int code = -1;
+        if (entityType != null) {
+            code = Collections.binarySearch(entityTypes, entityType);
+            if (code < 0) {
+                return;
+            }
+        }
+
+        for (int section = sectionStarts.length - 2; section >= 0; section--) {
+            scanSection(section, code, entityType, fromMicros, toMicros, floor, sink);
+        }
+    }
+
+    /**
+     * Like scan, passing the rows oldest first
+     * Sections are visited oldest first and the matching rows of one section are sorted before they
+     * are passed on, so at most one section of rows is held in memory.
+     */
+    public void scanOldestFirst(LocalDateTime from, LocalDateTime to, String entityType,
+                                Consumer<AuditLog> sink) throws IOException {
+        long fromMicros = from != null ? toMicros(from) : Long.MIN_VALUE;
+        long toMicros = to != null ? toMicros(to) : Long.MAX_VALUE;
+        if (toMicros(maxTimestamp) < fromMicros || toMicros(minTimestamp) > toMicros) {
+            return;
+        }
+
+        int code = -1;
+        if (entityType != null) {
+            code = Collections.binarySearch(entityTypes, entityType);
+            if (code < 0) {
+                return;
+            }
+        }
+
+        List<AuditLog> rows = new ArrayList<>();
+        for (int section = 0; section + 1 < sectionStarts.length; section++) {
+            scanSection(section, code, entityType, fromMicros, toMicros, () -> null, rows::add);
+            rows.sort(TIME_ORDER);
+            rows.forEach(sink);
+            rows.clear();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        data.close();
+    }
+
+    private void scanSection(int section, int code, String entityType, long fromMicros, long toMicros,
+                             Supplier<LocalDateTime> floor, Consumer<AuditLog> sink) throws IOException {
+        int start = sectionStarts[section];
+        int end = sectionStarts[section + 1];
+        int firstEntry = code >= 0 ? Math.max(lastEntryBefore(code, NO_ENTITY_ID, start, end), start) : start;
+
+        for (int entry = firstEntry; entry < end; entry++) {
+            int position = entriesOffset + entry * ENTRY_SIZE;
+            if (code >= 0 && index.getShort(position) > code) {
+                break;
+            }
+            long blockMax = index.getLong(position + 26);
+            LocalDateTime currentFloor = floor.get();
+            if (blockMax < fromMicros || index.getLong(position + 18) > toMicros
+                    || (currentFloor != null && blockMax < toMicros(currentFloor))) {
+                continue;
+            }
+            for (AuditLog row : readBlock(entry)) {
+                long micros = toMicros(row.getTimestamp());
+                if (micros >= fromMicros && micros <= toMicros
+                        && (entityType == null || row.getEntityType().equals(entityType))) {
+                    sink.accept(row);
+                }
+            }
+        }
+    }
+
+    /**
+     * Last entry in [start, end) whose first key is strictly below (code, entityId), start - 1 when there is none
+     */
+    private int lastEntryBefore(int code, long entityId, int start, int end) {
+        int low = start;
+        int high = end - 1;
+        int result = start - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (compareEntry(mid, code, entityId) < 0) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    private int compareEntry(int entry, int code, long entityId) {
+        int position = entriesOffset + entry * ENTRY_SIZE;
+        int result = Integer.compare(index.getShort(position), code);
+        return result != 0 ? result : Long.compare(index.getLong(position + 2), entityId);
+    }
+
+    private List<AuditLog> readBlock(int entry) throws IOException {
+        int position = entriesOffset + entry * ENTRY_SIZE;
+        long offset = index.getLong(position + 34);
+        int length = index.getInt(position + 42);
+        int count = index.getInt(position + 46);
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (data.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Truncated archive segment " + name);
+            }
+        }
+
+        List<AuditLog> rows = new ArrayList<>(count);
+        try (DataInputStream in = new DataInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(buffer.array())))) {
+            for (int i = 0; i < count; i++) {
+                rows.add(readRow(in));
+            }
+        }
+        return rows;
+    }
+
+    private static byte[] compress(List<AuditLog> block) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            for (AuditLog row : block) {
+                writeRow(out, row);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeRow(DataOutputStream out, AuditLog row) throws IOException {
+        out.writeLong(row.getId());
+        writeString(out, row.getEntityType());
+        writeLong(out, row.getEntityId());
+        writeString(out, row.getAction().name());
+        writeLong(out, row.getUserId());
+        writeString(out, row.getUserEmail());
+        writeString(out, row.getUserRole());
+        writeString(out, row.getDescription());
+        writeString(out, row.getOldValue());
+        writeString(out, row.getNewValue());
+        writeString(out, row.getIpAddress());
+        out.writeLong(toMicros(row.getTimestamp()));
+    }
+
+    private static AuditLog readRow(DataInputStream in) throws IOException {
+        return AuditLog.builder()
+                .id(in.readLong())
+                .entityType(readString(in))
+                .entityId(readLong(in))
+                .action(AuditAction.valueOf(readString(in)))
+                .userId(readLong(in))
+                .userEmail(readString(in))
+                .userRole(readString(in))
+                .description(readString(in))
+                .oldValue(readString(in))
+                .newValue(readString(in))
+                .ipAddress(readString(in))
+                .timestamp(fromMicros(in.readLong()))
+                .build();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static long entityKey(Long entityId) {
+        return entityId != null ? entityId : NO_ENTITY_ID;
+    }
+
+    private static long toMicros(LocalDateTime timestamp) {
+        return ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), timestamp);
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC).plus(micros, ChronoUnit.MICROS);
+    }
+
+    /**
+     * Writes a segment from rows arriving oldest first, holding one section in memory at a time
+     * The data goes to a temporary file that finish() renames once the name is known; closing an
+     * unfinished writer deletes it.
+     */
+    public static final class Writer implements Closeable {
+
+        private final Path directory;
+        private final Path dataTemp;
+        private final FileChannel channel;
+        private final List<AuditLog> section = new ArrayList<>(SECTION_ROWS);
+        private final List<BlockEntry> entries = new ArrayList<>();
+        private final List<Integer> sectionStarts = new ArrayList<>();
+        private final Set<String> types = new TreeSet<>();
+        private AuditLog last;
+        private long rowCount;
+        private long offset;
+        private boolean finished;
+
+        public Writer(Path directory) throws IOException {
+            this.directory = directory;
+            this.dataTemp = Files.createTempFile(directory, "segment-", DATA_SUFFIX + ".tmp");
+            this.channel = FileChannel.open(dataTemp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        /**
+         * Append the next row, which must not be older than the previous one
+         */
+        public void add(AuditLog row) throws IOException {
+            if (last != null && TIME_ORDER.compare(row, last) < 0) {
+                throw new IllegalArgumentException("Archive rows must arrive oldest first");
+            }
+            last = row;
+            section.add(row);
+            types.add(row.getEntityType());
+            rowCount++;
+            if (section.size() == SECTION_ROWS) {
+                flushSection();
+            }
+        }
+
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * Write the index under the given name and open the segment
+         */
+        public AuditArchiveSegment finish(String name) throws IOException {
+            if (rowCount == 0) {
+                throw new IllegalStateException("An archive segment needs at least one row");
+            }
+            flushSection();
+            channel.force(true);
+            channel.close();
+
+            Path dataFile = directory.resolve(name + DATA_SUFFIX);
+            Path indexFile = directory.resolve(name + INDEX_SUFFIX);
+            Path indexTemp = directory.resolve(name + INDEX_SUFFIX + ".tmp");
+            Files.move(dataTemp, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            finished = true;
+
+            List<String> typeList = List.copyOf(types);
+            long minMicros = entries.stream().mapToLong(BlockEntry::minMicros).min().orElseThrow();
+            long maxMicros = entries.stream().mapToLong(BlockEntry::maxMicros).max().orElseThrow();
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexTemp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(minMicros);
+                out.writeLong(maxMicros);
+                out.writeLong(rowCount);
+                out.writeInt(typeList.size());
+                for (String type : typeList) {
+                    byte[] bytes = type.getBytes(StandardCharsets.UTF_8);
+                    out.writeShort(bytes.length);
+                    out.write(bytes);
+                }
+                out.writeInt(sectionStarts.size());
+                for (int sectionStart : sectionStarts) {
+                    out.writeInt(sectionStart);
+                }
+                out.writeInt(entries.size());
+                // Type codes are only known once every row has been seen
+                for (BlockEntry entry : entries) {
+                    out.writeShort(Collections.binarySearch(typeList, entry.entityType()));
+                    out.writeLong(entry.entityKey());
+                    out.writeLong(entry.firstMicros());
+                    out.writeLong(entry.minMicros());
+                    out.writeLong(entry.maxMicros());
+                    out.writeLong(entry.offset());
+                    out.writeInt(entry.length());
+                    out.writeInt(entry.rows());
+                }
+            }
+            try (FileChannel indexChannel = FileChannel.open(indexTemp, StandardOpenOption.WRITE)) {
+                indexChannel.force(true);
+            }
+            Files.move(indexTemp, indexFile, StandardCopyOption.ATOMIC_MOVE);
+
+            return open(indexFile);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                channel.close();
+                Files.deleteIfExists(dataTemp);
+            }
+        }
+
+        private void flushSection() throws IOException {
+            if (section.isEmpty()) {
+                return;
+            }
+            section.sort(ROW_ORDER);
+            sectionStarts.add(entries.size());
+
+            for (int start = 0; start < section.size(); start += BLOCK_ROWS) {
+                List<AuditLog> block = section.subList(start, Math.min(start + BLOCK_ROWS, section.size()));
+                byte[] compressed = compress(block);
+                ByteBuffer buffer = ByteBuffer.wrap(compressed);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+
+                long blockMin = Long.MAX_VALUE;
+                long blockMax = Long.MIN_VALUE;
+                for (AuditLog row : block) {
+                    long micros = toMicros(row.getTimestamp());
+                    blockMin = Math.min(blockMin, micros);
+                    blockMax = Math.max(blockMax, micros);
+                }
+
+                AuditLog first = block.get(0);
+                entries.add(new BlockEntry(first.getEntityType(), entityKey(first.getEntityId()),
+                        toMicros(first.getTimestamp()), blockMin, blockMax, offset, compressed.length, block.size()));
+                offset += compressed.length;
+            }
+            section.clear();
+        }
+    }
+
+    private record BlockEntry(String entityType, long entityKey, long firstMicros, long minMicros, long maxMicros,
+                              long offset, int length, int rows) {
+    }
+}
@@ -0,0 +1,378 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.entities.AuditLog;
+import hu.sztibor.staffi.backend.enums.AuditAction;
+import hu.sztibor.staffi.backend.utils.AuditLogCursor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Cold archive for audit log entries past the retention window of the hot table
+ * A scheduled job moves the oldest rows into compressed segment files (see AuditArchiveSegment)
+ * and deletes them from audit_logs. Entity history and audit log slices read through to the archive
+ * when the requested range reaches below the hot window.
+ * Each run archives the oldest remaining rows, so segments never overlap in time except at their edges.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuditArchiveService {
+
+    private static final String OLDEST_ROWS_SQL = """
+            SELECT id, entity_type, entity_id, action, user_id, user_email, user_role,
+                   description, old_value, new_value, ip_address, timestamp
+            FROM audit_logs
+            WHERE timestamp < ?
+            ORDER BY timestamp, id
+            LIMIT ?
+            """;
+
+    private static final String DELETE_ARCHIVED_SQL =
+            "DELETE FROM audit_logs WHERE timestamp < ? OR (timestamp = ? AND id <= ?)";
+
+    private static final String ARCHIVED_COUNTS_SQL = """
+            SELECT CAST(timestamp AS DATE) AS bucket_date, entity_type, action, COUNT(*) AS entry_count
+            FROM audit_logs
+            WHERE timestamp < ? OR (timestamp = ? AND id <= ?)
+            GROUP BY CAST(timestamp AS DATE), entity_type, action
+            ORDER BY bucket_date, entity_type, action
+            """;
+
+    private static final String DECREMENT_COUNTER_SQL = """
+            UPDATE audit_log_counters SET entry_count = entry_count - ?
+            WHERE bucket_date = ? AND entity_type = ? AND action = ?
+            """;
+
+    private static final String DELETE_EMPTY_COUNTERS_SQL = "DELETE FROM audit_log_counters WHERE entry_count <= 0";
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final Comparator<AuditLog> NEWEST_FIRST = Comparator
+            .comparing(AuditLog::getTimestamp)
+            .thenComparing(AuditLog::getId)
+            .reversed();
+
+    @Value("${staffi.audit.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${staffi.audit.archive.directory:audit-archive}")
+    private String directory;
+
+    @Value("${staffi.audit.archive.max-age-days:365}")
+    private int maxAgeDays;
+
+    @Value("${staffi.audit.archive.segment-rows:100000}")
+    private int segmentRows;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    /** Open segments, oldest first */
+    private final List<AuditArchiveSegment> segments = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    protected void openSegments() throws IOException {
+        readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTransaction.setReadOnly(true);
+
+        Path root = Paths.get(directory);
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+
+        List<AuditArchiveSegment> opened = new ArrayList<>();
+        try (Stream<Path> files = Files.list(root)) {
+            for (Path file : files.toList()) {
+                if (file.toString().endsWith(AuditArchiveSegment.INDEX_SUFFIX)) {
+                    opened.add(AuditArchiveSegment.open(file));
+                } else if (file.toString().endsWith(".tmp")) {
+                    // Left behind by a run that stopped while writing
+                    Files.delete(file);
+                }
+            }
+        }
+        opened.sort(Comparator.comparing(AuditArchiveSegment::getMinTimestamp));
+        segments.addAll(opened);
+
+        if (!segments.isEmpty()) {
+            log.info("Audit archive opened with {} segments, {} entries up to {}", segments.size(),
+                    segments.stream().mapToLong(AuditArchiveSegment::getRowCount).sum(), archivedUntil());
+        }
+    }
+
+    @PreDestroy
+    protected void closeSegments() {
+        for (AuditArchiveSegment segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                log.warn("Could not close audit archive segment {}: {}", segment.getName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Timestamp of the newest archived entry, null while the archive is empty
+     */
+    public LocalDateTime archivedUntil() {
+        return segments.stream()
+                .map(AuditArchiveSegment::getMaxTimestamp)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+    }
+
+    /**
+     * Whether a query starting at the given time (null = unbounded) can match archived entries
+     */
+    public boolean covers(LocalDateTime startDate) {
+        LocalDateTime until = archivedUntil();
+        return until != null && (startDate == null || !startDate.isAfter(until));
+    }
+
+    /**
+     * Move entries older than max-age-days from audit_logs into new segments
+     */
+    @Scheduled(cron = "${staffi.audit.archive.cron:0 45 2 * * *}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(maxAgeDays);
+
+        try {
+            int archived;
+            do {
+                archived = archiveSegment(cutoff);
+            } while (archived == segmentRows);
+        } catch (IOException e) {
+            log.error("Audit archive run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Pass the archived entries matching the filters to the sink, oldest first
+     */
+    public void scanOldestFirst(
+            String entityType,
+            AuditAction action,
+            Long userId,
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            Consumer<AuditLog> sink) throws IOException {
+
+        String type = entityType != null && !entityType.isEmpty() ? entityType : null;
+        List<AuditArchiveSegment> oldestFirst = new ArrayList<>(segments);
+        oldestFirst.sort(Comparator.comparing(AuditArchiveSegment::getMinTimestamp));
+        // Each run archives rows after those of the previous one, so segments follow each other in time
+        for (AuditArchiveSegment segment : oldestFirst) {
+            segment.scanOldestFirst(startDate, endDate, type, row -> {
+                if ((action == null || row.getAction() == action)
+                        && (userId == null || userId.equals(row.getUserId()))) {
+                    sink.accept(row);
+                }
+            });
+        }
+    }
+
+    /**
+     * Archived entries of one entity
+     */
+    public List<AuditLog> findEntityHistory(String entityType, Long entityId) {
+        Map<Long, AuditLog> rows = new HashMap<>();
+        for (AuditArchiveSegment segment : segments) {
+            try {
+                segment.findEntity(entityType, entityId).forEach(row -> rows.putIfAbsent(row.getId(), row));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        List<AuditLog> history = new ArrayList<>(rows.values());
+        history.sort(NEWEST_FIRST);
+        return history;
+    }
+
+    /**
+     * Newest archived entries matching the filters and lying before the cursor
+     * Reads segments and their sections newest first, keeps at most limit rows in memory and
+     * stops inflating blocks once they can only hold rows older than the ones kept.
+     */
+    public List<AuditLog> findSlice(
+            String entityType,
+            AuditAction action,
+            Long userId,
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            AuditLogCursor before,
+            int limit) {
+
+        LocalDateTime to = endDate;
+        if (before != null && (to == null || before.timestamp().isBefore(to))) {
+            to = before.timestamp();
+        }
+
+        // Min-heap on recency: the head is the oldest of the rows kept so far
+        PriorityQueue<AuditLog> newest = new PriorityQueue<>(limit + 1, NEWEST_FIRST.reversed());
+        Set<Long> kept = new HashSet<>();
+        List<AuditArchiveSegment> newestSegmentsFirst = new ArrayList<>(segments);
+        newestSegmentsFirst.sort(Comparator.comparing(AuditArchiveSegment::getMaxTimestamp).reversed());
+        // Once limit rows are held, blocks ending before the oldest of them cannot contribute
+        Supplier<LocalDateTime> floor = () -> newest.size() == limit ? newest.peek().getTimestamp() : null;
+
+        for (AuditArchiveSegment segment : newestSegmentsFirst) {
+            if (newest.size() == limit && segment.getMaxTimestamp().isBefore(newest.peek().getTimestamp())) {
+                break;
+            }
+            try {
+                segment.scan(startDate, to, entityType, floor, row -> {
+                    if ((action != null && row.getAction() != action)
+                            || (userId != null && !userId.equals(row.getUserId()))
+                            || (before != null && !isBefore(row, before))
+                            || !kept.add(row.getId())) {
+                        return;
+                    }
+                    newest.add(row);
+                    if (newest.size() > limit) {
+                        kept.remove(newest.poll().getId());
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        List<AuditLog> rows = new ArrayList<>(newest);
+        rows.sort(NEWEST_FIRST);
+        return rows;
+    }
+
+    /**
+     * Write the oldest rows before the cutoff into one segment, then delete them from the hot table
+     * A crash between the two steps leaves rows in both places; readers drop such duplicates by id.
+     * The statistics counters describe the hot table (they are rebuilt from it), so the deleted rows
+     * are subtracted from them in the same transaction.
+     *
+     * @return Number of rows archived
+     */
+    private int archiveSegment(LocalDateTime cutoff) throws IOException {
+        Path root = Files.createDirectories(Paths.get(directory));
+        AuditLog[] bounds = new AuditLog[2];
+        int[] rowCount = {0};
+        AuditArchiveSegment written = null;
+
+        try (AuditArchiveSegment.Writer writer = new AuditArchiveSegment.Writer(root)) {
+            // Rows are streamed into the writer, which only holds one section in memory
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                    PreparedStatement ps = connection.prepareStatement(OLDEST_ROWS_SQL,
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(FETCH_SIZE);
+                    ps.setTimestamp(1, Timestamp.valueOf(cutoff));
+                    ps.setInt(2, segmentRows);
+                    return ps;
+                }, (RowCallbackHandler) rs -> {
+                    AuditLog row = mapRow(rs, 0);
+                    try {
+                        writer.add(row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    if (bounds[0] == null) {
+                        bounds[0] = row;
+                    }
+                    bounds[1] = row;
+                    rowCount[0]++;
+                }));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (bounds[0] == null) {
+                return 0;
+            }
+
+            String name = String.format("segment-%019d-%019d", bounds[0].getId(), bounds[1].getId());
+            // Same rows as a segment whose delete did not go through last time
+            if (segments.stream().noneMatch(segment -> segment.getName().equals(name))) {
+                written = writer.finish(name);
+            }
+        }
+        if (written != null) {
+            segments.add(written);
+        }
+
+        AuditLog last = bounds[1];
+        Timestamp lastTimestamp = Timestamp.valueOf(last.getTimestamp());
+        Integer deleted = transactionTemplate.execute(status -> {
+            // Ordered like the writer's increments, so the two cannot deadlock on counter rows
+            List<Object[]> decrements = jdbcTemplate.query(ARCHIVED_COUNTS_SQL, (rs, rowNum) -> new Object[]{
+                    rs.getLong("entry_count"), rs.getDate("bucket_date"), rs.getString("entity_type"), rs.getString("action")
+            }, lastTimestamp, lastTimestamp, last.getId());
+            jdbcTemplate.batchUpdate(DECREMENT_COUNTER_SQL, decrements);
+            jdbcTemplate.update(DELETE_EMPTY_COUNTERS_SQL);
+            return jdbcTemplate.update(DELETE_ARCHIVED_SQL, lastTimestamp, lastTimestamp, last.getId());
+        });
+
+        log.info("Archived {} audit log entries up to {} ({} deleted from audit_logs)",
+                rowCount[0], last.getTimestamp(), deleted);
+        return rowCount[0];
+    }
+
+    private static boolean isBefore(AuditLog row, AuditLogCursor cursor) {
+        int result = row.getTimestamp().compareTo(cursor.timestamp());
+        return result < 0 || (result == 0 && row.getId() < cursor.id());
+    }
+
+    static AuditLog mapRow(ResultSet rs, int rowNum) throws SQLException {
+        long entityId = rs.getLong("entity_id");
+        boolean entityIdNull = rs.wasNull();
+        long userId = rs.getLong("user_id");
+        boolean userIdNull = rs.wasNull();
+
+        return AuditLog.builder()
+                .id(rs.getLong("id"))
+                .entityType(rs.getString("entity_type"))
+                .entityId(entityIdNull ? null : entityId)
+                .action(AuditAction.valueOf(rs.getString("action")))
+                .userId(userIdNull ? null : userId)
+                .userEmail(rs.getString("user_email"))
+                .userRole(rs.getString("user_role"))
+                .description(rs.getString("description"))
+                .oldValue(rs.getString("old_value"))
+                .newValue(rs.getString("new_value"))
+                .ipAddress(rs.getString("ip_address"))
+                .timestamp(rs.getTimestamp("timestamp").toLocalDateTime())
+                .build();
+    }
+}
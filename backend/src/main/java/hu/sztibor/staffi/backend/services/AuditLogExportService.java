@@ -0,0 +1,228 @@
+package hu.sztibor.staffi.backend.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.sztibor.staffi.backend.entities.AuditLog;
+import hu.sztibor.staffi.backend.enums.AuditAction;
+import hu.sztibor.staffi.backend.enums.ExportFormat;
+import hu.sztibor.staffi.backend.repositories.AuditLogFilterSql;
+import hu.sztibor.staffi.backend.utils.CsvWriter;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams audit log extracts as NDJSON or CSV
+ * Rows are read through a forward-only cursor with a fixed fetch size and written as they arrive,
+ * so memory use does not grow with the size of the extract. Ranges reaching below the hot window
+ * are read from the archive first, one segment section at a time.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AuditLogExportService {
+
+    private static final String SELECT_SQL = """
+            SELECT id, entity_type, entity_id, action, user_id, user_email, user_role,
+                   description, old_value, new_value, ip_address, timestamp
+            FROM audit_logs""";
+
+    private static final String[] COLUMNS = {
+            "id", "entityType", "entityId", "action", "userId", "userEmail", "userRole",
+            "description", "oldValue", "newValue", "ipAddress", "timestamp"
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Value("${staffi.audit.export.fetch-size:1000}")
+    private int fetchSize;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditArchiveService auditArchiveService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    protected void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * File name offered for the download
+     */
+    public String fileName(ExportFormat format, boolean gzip) {
+        String extension = format == ExportFormat.CSV ? ".csv" : ".ndjson";
+        return "audit-logs" + extension + (gzip ? ".gz" : "");
+    }
+
+    /**
+     * Write all audit log entries matching the filters, oldest first, to the output stream
+     * The stream itself is left open.
+     */
+    public void export(
+            ExportFormat format,
+            boolean gzip,
+            String entityType,
+            AuditAction action,
+            Long userId,
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            OutputStream target) throws IOException {
+
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(target, BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(compressed != null ? compressed : target, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        RowWriter rowWriter = format == ExportFormat.CSV ? csvRows(writer) : ndjsonRows(writer);
+        long[] rows = {0};
+
+        // Archived entries come first, audit_logs only holds entries from the end of the archive on
+        LocalDateTime archivedUntil = auditArchiveService.covers(startDate) ? auditArchiveService.archivedUntil() : null;
+        Set<Long> archivedAtEdge = new HashSet<>();
+        if (archivedUntil != null) {
+            try {
+                auditArchiveService.scanOldestFirst(entityType, action, userId, startDate, endDate, row -> {
+                    try {
+                        rowWriter.write(row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    if (row.getTimestamp().equals(archivedUntil)) {
+                        archivedAtEdge.add(row.getId());
+                    }
+                    rows[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        // Older hot rows, and archived rows at the edge, are left over from a run that stopped before its delete
+        LocalDateTime hotStart = archivedUntil != null && (startDate == null || startDate.isBefore(archivedUntil))
+                ? archivedUntil : startDate;
+        AuditLogFilterSql filter = AuditLogFilterSql.of(entityType, action, userId, hotStart, endDate);
+        String sql = SELECT_SQL + filter.where() + " ORDER BY timestamp, id";
+
+        try {
+            // PostgreSQL only honours the fetch size inside a transaction, otherwise it buffers the whole result
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                for (int i = 0; i < filter.args().length; i++) {
+                    ps.setObject(i + 1, filter.args()[i]);
+                }
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                AuditLog row = AuditArchiveService.mapRow(rs, 0);
+                if (archivedAtEdge.contains(row.getId())) {
+                    return;
+                }
+                try {
+                    rowWriter.write(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.flush();
+        if (compressed != null) {
+            compressed.finish();
+        }
+        target.flush();
+
+        log.info("Exported {} audit log entries as {}{}", rows[0], format, gzip ? " (gzip)" : "");
+    }
+
+    private RowWriter csvRows(Writer writer) throws IOException {
+        CsvWriter csv = new CsvWriter(writer);
+        csv.writeRecord((Object[]) COLUMNS);
+
+        return row -> csv.writeRecord(
+                row.getId(),
+                row.getEntityType(),
+                row.getEntityId(),
+                row.getAction().name(),
+                row.getUserId(),
+                row.getUserEmail(),
+                row.getUserRole(),
+                row.getDescription(),
+                row.getOldValue(),
+                row.getNewValue(),
+                row.getIpAddress(),
+                timestamp(row));
+    }
+
+    private RowWriter ndjsonRows(Writer writer) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        json.setRootValueSeparator(null);
+
+        return row -> {
+            json.writeStartObject();
+            json.writeNumberField(COLUMNS[0], row.getId());
+            json.writeStringField(COLUMNS[1], row.getEntityType());
+            writeNullableNumber(json, COLUMNS[2], row.getEntityId());
+            json.writeStringField(COLUMNS[3], row.getAction().name());
+            writeNullableNumber(json, COLUMNS[4], row.getUserId());
+            json.writeStringField(COLUMNS[5], row.getUserEmail());
+            json.writeStringField(COLUMNS[6], row.getUserRole());
+            json.writeStringField(COLUMNS[7], row.getDescription());
+            json.writeStringField(COLUMNS[8], row.getOldValue());
+            json.writeStringField(COLUMNS[9], row.getNewValue());
+            json.writeStringField(COLUMNS[10], row.getIpAddress());
+            json.writeStringField(COLUMNS[11], timestamp(row));
+            json.writeEndObject();
+            json.writeRaw('\n');
+            // Hand the row to the writer's buffer, the generator keeps its own
+            json.flush();
+        };
+    }
+
+    private static void writeNullableNumber(JsonGenerator json, String field, Long value) throws IOException {
+        if (value != null) {
+            json.writeNumberField(field, value);
+        } else {
+            json.writeNullField(field);
+        }
+    }
+
+    private static String timestamp(AuditLog row) {
+        return row.getTimestamp() != null ? row.getTimestamp().toString() : null;
+    }
+
+    /**
+     * Writes one entry in the export format
+     */
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(AuditLog row) throws IOException;
+    }
+}
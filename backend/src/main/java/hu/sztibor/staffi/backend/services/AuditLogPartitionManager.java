@@ -0,0 +1,210 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.repositories.AuditLogCounterRepository;
+import hu.sztibor.staffi.backend.repositories.DatabasePlatform;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of audit_logs in shape (PostgreSQL only)
+ * Creates partitions a few months ahead so inserts never land in the default partition, and
+ * detaches partitions older than the retention period, which replaces a large DELETE.
+ * The legacy partition left by the conversion is retired the same way once its last month expires.
+ * Does nothing until the table was converted with db/audit_logs_partitioning.sql and
+ * staffi.audit.partitioning.enabled is set. With the archive enabled as well, the retention must
+ * outlast the archive's max-age-days, otherwise the application does not start.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuditLogPartitionManager {
+
+    private static final String PARTITION_PREFIX = "audit_logs_";
+    static final String LEGACY_PARTITION = "audit_logs_legacy";
+
+    /** Upper bound of a range partition, e.g. FOR VALUES FROM (MINVALUE) TO ('2026-10-01 00:00:00') */
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('(\\d{4}-\\d{2}-\\d{2})");
+
+    /** Lower bound for counters of the legacy partition, which starts at MINVALUE */
+    private static final LocalDate BEGINNING = LocalDate.of(1970, 1, 1);
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+
+    private static final String IS_PARTITIONED_SQL =
+            "SELECT COUNT(*) FROM pg_partitioned_table WHERE partrelid = 'audit_logs'::regclass";
+
+    private static final String PARTITIONS_SQL = """
+            SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) AS bound FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'audit_logs'::regclass
+            """;
+
+    @Value("${staffi.audit.partitioning.enabled:false}")
+    private boolean enabled;
+
+    @Value("${staffi.audit.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${staffi.audit.partitioning.retention-months:0}")
+    private int retentionMonths;
+
+    @Value("${staffi.audit.partitioning.drop-detached:false}")
+    private boolean dropDetached;
+
+    @Value("${staffi.audit.archive.enabled:false}")
+    private boolean archiveEnabled;
+
+    @Value("${staffi.audit.archive.max-age-days:365}")
+    private int archiveMaxAgeDays;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final AuditLogCounterRepository auditLogCounterRepository;
+
+    /**
+     * Refuse to start when retention could retire rows before the archive has taken them
+     * A retired partition holds rows at least retention-months months old, counted as 28 days each.
+     */
+    @PostConstruct
+    protected void checkRetention() {
+        if (enabled && archiveEnabled && retentionMonths > 0 && archiveMaxAgeDays >= retentionMonths * 28) {
+            throw new IllegalStateException(String.format(
+                    "staffi.audit.partitioning.retention-months (%d) would retire audit log entries before " +
+                    "staffi.audit.archive.max-age-days (%d) archives them, keep more than %d months",
+                    retentionMonths, archiveMaxAgeDays, archiveMaxAgeDays / 28));
+        }
+    }
+
+    /**
+     * Create upcoming partitions and retire expired ones
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${staffi.audit.partitioning.cron:0 15 2 * * *}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        if (!databasePlatform.isPostgres() || !isPartitioned()) {
+            log.warn("Audit log partitioning is enabled but audit_logs is not partitioned, " +
+                    "run db/audit_logs_partitioning.sql first");
+            return;
+        }
+
+        List<Partition> partitions = jdbcTemplate.query(PARTITIONS_SQL, this::mapPartition);
+        YearMonth current = YearMonth.now();
+
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (partitions.stream().noneMatch(partition -> partition.name().equals(partitionName(month)))) {
+                createPartition(month);
+            }
+        }
+
+        if (retentionMonths > 0) {
+            YearMonth oldestKept = current.minusMonths(retentionMonths);
+            for (Partition partition : partitions) {
+                YearMonth month = parseMonth(partition.name());
+                if (month != null && month.isBefore(oldestKept)) {
+                    retirePartition(partition.name(), month.atDay(1), month.plusMonths(1).atDay(1));
+                } else if (LEGACY_PARTITION.equals(partition.name())) {
+                    LocalDate end = upperBound(partition.bound());
+                    // The legacy partition ends at the start of the month after its last one
+                    if (end != null && !YearMonth.from(end).isAfter(oldestKept)) {
+                        retirePartition(partition.name(), BEGINNING, end);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean isPartitioned() {
+        Long count = jdbcTemplate.queryForObject(IS_PARTITIONED_SQL, Long.class);
+        return count != null && count > 0;
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        try {
+            jdbcTemplate.execute(String.format(
+                    "CREATE TABLE IF NOT EXISTS %s PARTITION OF audit_logs FOR VALUES FROM ('%s') TO ('%s')",
+                    name, month.atDay(1), month.plusMonths(1).atDay(1)));
+            log.info("Created audit log partition {}", name);
+        } catch (DataAccessException e) {
+            // Typically rows for that month already sit in the default partition
+            log.error("Could not create audit log partition {}: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * Detach (and optionally drop) a partition, together with the statistics counters of its days
+     */
+    private void retirePartition(String name, LocalDate from, LocalDate to) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("ALTER TABLE audit_logs DETACH PARTITION " + name);
+                auditLogCounterRepository.deleteCountersBetween(from, to);
+                if (dropDetached) {
+                    jdbcTemplate.execute("DROP TABLE " + name);
+                }
+            });
+            log.info("{} audit log partition {}", dropDetached ? "Dropped" : "Detached", name);
+        } catch (DataAccessException e) {
+            log.error("Could not retire audit log partition {}: {}", name, e.getMessage());
+        }
+    }
+
+    private Partition mapPartition(ResultSet rs, int rowNum) throws SQLException {
+        return new Partition(rs.getString("relname"), rs.getString("bound"));
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_MONTH);
+    }
+
+    /**
+     * Month of a partition created by this class, null for any other partition
+     */
+    static YearMonth parseMonth(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_MONTH);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Exclusive upper bound of a range partition, null for MAXVALUE or the default partition
+     */
+    static LocalDate upperBound(String bound) {
+        if (bound == null) {
+            return null;
+        }
+        Matcher matcher = UPPER_BOUND.matcher(bound);
+        return matcher.find() ? LocalDate.parse(matcher.group(1)) : null;
+    }
+
+    record Partition(String name, String bound) {
+    }
+}
@@ -4,31 +4,47 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import hu.sztibor.staffi.backend.dto.audit.AuditLogDto;
+import hu.sztibor.staffi.backend.dto.audit.AuditLogSliceDto;
 import hu.sztibor.staffi.backend.dto.auth.UserDto;
 import hu.sztibor.staffi.backend.entities.AuditLog;
 import hu.sztibor.staffi.backend.enums.AuditAction;
 import hu.sztibor.staffi.backend.exceptions.AppException;
+import hu.sztibor.staffi.backend.repositories.AuditLogCountEstimator;
+import hu.sztibor.staffi.backend.repositories.AuditLogCounterRepository;
 import hu.sztibor.staffi.backend.repositories.AuditLogRepository;
+import hu.sztibor.staffi.backend.repositories.DatabasePlatform;
+import hu.sztibor.staffi.backend.utils.AuditLogCursor;
+import hu.sztibor.staffi.backend.utils.KeysetCursor;
+import hu.sztibor.staffi.backend.utils.TransactionUtils;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -37,12 +53,20 @@ import java.util.stream.Collectors;
 public class AuditLogService {
 
     private final AuditLogRepository auditLogRepository;
+    private final AuditLogWriter auditLogWriter;
+    private final AuditLogCountEstimator auditLogCountEstimator;
+    private final AuditLogCounterRepository auditLogCounterRepository;
+    private final DatabasePlatform databasePlatform;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditArchiveService auditArchiveService;
     private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
 
     /**
      * Log an action
+     * The entry is captured now and handed to the background writer once the
+     * surrounding transaction commits, so rolled back changes are not audited.
+     * The writer publishes the entry to the live audit tail once it has an id.
      */
-    @Transactional
     public void logAction(String entityType, Long entityId, AuditAction action, String description, Object oldValue, Object newValue) {
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -65,11 +89,12 @@ public class AuditLogService {
                     .oldValue(oldValue != null ? toJson(oldValue) : null)
                     .newValue(newValue != null ? toJson(newValue) : null)
                     .ipAddress(ipAddress)
+                    .timestamp(LocalDateTime.now())
                     .build();
 
-            auditLogRepository.save(auditLog);
+            TransactionUtils.afterCommit(() -> auditLogWriter.submit(auditLog));
 
-            log.info("Audit log created: {} {} on {} (ID: {}) by {}",
+            log.info("Audit log queued: {} {} on {} (ID: {}) by {}",
                      action, entityType, entityId,
                      currentUser != null ? currentUser.getEmail() : "System");
         } catch (Exception e) {
@@ -96,7 +121,70 @@ public class AuditLogService {
             int page,
             int size) {
 
-        Specification<AuditLog> spec = (root, query, criteriaBuilder) -> {
+        Specification<AuditLog> spec = auditFilter(entityType, action, userId, startDate, endDate);
+
+        Pageable pageable = PageRequest.of(page, size, Sort.by("timestamp").descending());
+        Page<AuditLog> logs = auditLogRepository.findAll(spec, pageable);
+
+        return logs.map(AuditLogService::mapToDto);
+    }
+
+    /**
+     * Get one slice of audit logs, newest first, using keyset pagination
+     * Avoids OFFSET and the exact count(*) of getAuditLogs; pass nextCursor to continue
+     */
+    public AuditLogSliceDto getAuditLogSlice(
+            String entityType,
+            AuditAction action,
+            Long userId,
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            String cursor,
+            Integer limit,
+            boolean includeEstimate) {
+
+        int sliceSize = KeysetCursor.resolveLimit(limit);
+        Specification<AuditLog> spec = auditFilter(entityType, action, userId, startDate, endDate)
+                .and(AuditLogCursor.seekBefore(AuditLogCursor.decode(cursor)));
+
+        List<AuditLog> logs = auditLogRepository.findBy(spec,
+                query -> query.sortBy(AuditLogCursor.SORT).limit(sliceSize + 1).all());
+
+        // Hot rows ran out: continue below the hot window in the archive
+        if (logs.size() <= sliceSize && auditArchiveService.covers(startDate)) {
+            AuditLogCursor archiveCursor = logs.isEmpty()
+                    ? AuditLogCursor.decode(cursor)
+                    : AuditLogCursor.of(logs.get(logs.size() - 1));
+            List<AuditLog> archived = auditArchiveService.findSlice(entityType, action, userId, startDate, endDate,
+                    archiveCursor, sliceSize + 1 - logs.size());
+            logs = merge(logs, archived);
+        }
+
+        boolean hasNext = logs.size() > sliceSize;
+        List<AuditLog> slice = hasNext ? logs.subList(0, sliceSize) : logs;
+
+        return AuditLogSliceDto.builder()
+                .items(slice.stream().map(AuditLogService::mapToDto).collect(Collectors.toList()))
+                .nextCursor(hasNext ? AuditLogCursor.of(slice.get(slice.size() - 1)).encode() : null)
+                .hasNext(hasNext)
+                .limit(sliceSize)
+                .estimatedTotal(includeEstimate
+                        ? auditLogCountEstimator.estimate(entityType, action, userId, startDate, endDate)
+                        : null)
+                .build();
+    }
+
+    /**
+     * Filters shared by the paged and the keyset audit log queries
+     */
+    private Specification<AuditLog> auditFilter(
+            String entityType,
+            AuditAction action,
+            Long userId,
+            LocalDateTime startDate,
+            LocalDateTime endDate) {
+
+        return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
 
             if (entityType != null && !entityType.isEmpty()) {
@@ -121,11 +209,6 @@ public class AuditLogService {
 
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
-
-        Pageable pageable = PageRequest.of(page, size, Sort.by("timestamp").descending());
-        Page<AuditLog> logs = auditLogRepository.findAll(spec, pageable);
-
-        return logs.map(this::mapToDto);
     }
 
     /**
@@ -133,7 +216,24 @@ public class AuditLogService {
      */
     public List<AuditLogDto> getEntityHistory(String entityType, Long entityId) {
         List<AuditLog> logs = auditLogRepository.findByEntityTypeAndEntityIdOrderByTimestampDesc(entityType, entityId);
-        return logs.stream().map(this::mapToDto).collect(Collectors.toList());
+        if (auditArchiveService.covers(null)) {
+            logs = merge(logs, auditArchiveService.findEntityHistory(entityType, entityId));
+        }
+        return logs.stream().map(AuditLogService::mapToDto).collect(Collectors.toList());
+    }
+
+    /**
+     * Append archived entries after the hot ones, skipping rows present in both
+     * (left behind when an archive run stopped before deleting them from the hot table)
+     */
+    private List<AuditLog> merge(List<AuditLog> hot, List<AuditLog> archived) {
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        Set<Long> hotIds = hot.stream().map(AuditLog::getId).collect(Collectors.toSet());
+        List<AuditLog> merged = new ArrayList<>(hot);
+        archived.stream().filter(row -> !hotIds.contains(row.getId())).forEach(merged::add);
+        return merged;
     }
 
     /**
@@ -142,28 +242,86 @@ public class AuditLogService {
     public List<AuditLogDto> getRecentLogs(int limit) {
         Pageable pageable = PageRequest.of(0, limit, Sort.by("timestamp").descending());
         Page<AuditLog> logs = auditLogRepository.findAll(pageable);
-        return logs.stream().map(this::mapToDto).collect(Collectors.toList());
+        return logs.stream().map(AuditLogService::mapToDto).collect(Collectors.toList());
     }
 
     /**
      * Get audit log statistics
+     * Read from the counters maintained by AuditLogWriter, only a handful of rows are scanned
+     *
+     * @param days When set, also return per-day totals for the last given number of days
      */
-    public AuditLogStatistics getStatistics() {
-        long totalLogs = auditLogRepository.count();
-        long createActions = auditLogRepository.countByAction(AuditAction.CREATE);
-        long updateActions = auditLogRepository.countByAction(AuditAction.UPDATE);
-        long deleteActions = auditLogRepository.countByAction(AuditAction.DELETE);
-        long loginActions = auditLogRepository.countByAction(AuditAction.LOGIN);
+    public AuditLogStatistics getStatistics(Integer days) {
+        Map<String, Long> byEntityType = new TreeMap<>();
+        Map<AuditAction, Long> byAction = new EnumMap<>(AuditAction.class);
+        long totalLogs = 0;
+
+        for (AuditLogCounterRepository.CounterTotal counter : auditLogCounterRepository.sumByEntityTypeAndAction()) {
+            byEntityType.merge(counter.getEntityType(), counter.getTotal(), Long::sum);
+            byAction.merge(counter.getAction(), counter.getTotal(), Long::sum);
+            totalLogs += counter.getTotal();
+        }
+
+        Map<LocalDate, Long> daily = null;
+        if (days != null) {
+            if (days < 1) {
+                throw new AppException("Days must be at least 1", HttpStatus.BAD_REQUEST);
+            }
+            daily = new LinkedHashMap<>();
+            for (AuditLogCounterRepository.DailyTotal day :
+                    auditLogCounterRepository.sumByDaySince(LocalDate.now().minusDays(days - 1L))) {
+                daily.put(day.getBucketDate(), day.getTotal());
+            }
+        }
 
         return AuditLogStatistics.builder()
                 .totalLogs(totalLogs)
-                .createActions(createActions)
-                .updateActions(updateActions)
-                .deleteActions(deleteActions)
-                .loginActions(loginActions)
+                .createActions(byAction.getOrDefault(AuditAction.CREATE, 0L))
+                .updateActions(byAction.getOrDefault(AuditAction.UPDATE, 0L))
+                .deleteActions(byAction.getOrDefault(AuditAction.DELETE, 0L))
+                .loginActions(byAction.getOrDefault(AuditAction.LOGIN, 0L))
+                .byEntityType(byEntityType)
+                .byAction(byAction)
+                .daily(daily)
                 .build();
     }
 
+    /**
+     * Recompute the statistics counters from the audit_logs table
+     * On PostgreSQL the counters are locked meanwhile, so concurrent writes are neither lost nor counted twice.
+     *
+     * @return Number of counter rows written
+     */
+    public int rebuildStatistics() {
+        Integer rows = transactionTemplate.execute(status -> {
+            if (databasePlatform.isPostgres()) {
+                auditLogCounterRepository.lockForRebuild();
+            }
+            auditLogCounterRepository.deleteAllCounters();
+            return auditLogCounterRepository.insertCountsFromAuditLogs();
+        });
+        log.info("Rebuilt audit log statistics: {} counter rows", rows);
+        return rows != null ? rows : 0;
+    }
+
+    /**
+     * Scheduled rebuild, disabled unless staffi.audit.counters.rebuild-cron is set
+     */
+    @Scheduled(cron = "${staffi.audit.counters.rebuild-cron:-}")
+    public void scheduledRebuild() {
+        rebuildStatistics();
+    }
+
+    /**
+     * Fill the counters on the first start after they were introduced
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildStatisticsIfEmpty() {
+        if (auditLogCounterRepository.count() == 0 && auditLogRepository.count() > 0) {
+            rebuildStatistics();
+        }
+    }
+
     /**
      * Helper method to convert object to JSON
      */
@@ -199,7 +357,7 @@ public class AuditLogService {
     /**
      * Map AuditLog entity to DTO
      */
-    private AuditLogDto mapToDto(AuditLog log) {
+    static AuditLogDto mapToDto(AuditLog log) {
         return AuditLogDto.builder()
                 .id(log.getId())
                 .entityType(log.getEntityType())
@@ -227,6 +385,9 @@ public class AuditLogService {
         private long updateActions;
         private long deleteActions;
         private long loginActions;
+        private Map<String, Long> byEntityType;
+        private Map<AuditAction, Long> byAction;
+        private Map<LocalDate, Long> daily;
     }
 }
 
@@ -0,0 +1,194 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.dto.audit.AuditLogDto;
+import hu.sztibor.staffi.backend.entities.AuditLog;
+import hu.sztibor.staffi.backend.enums.AuditAction;
+import hu.sztibor.staffi.backend.exceptions.AppException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Live feed of audit log entries served to admin consoles over Server-Sent Events
+ * AuditLogWriter appends every entry it has written, with its id, to a fixed-size ring buffer.
+ * Each subscriber remembers the last sequence number it was sent and is drained from the ring
+ * through an SseFanout, so a slow console never holds up the others or the audit writer.
+ * Sequence numbers are the SSE event ids; a reconnecting client resumes after its Last-Event-ID
+ * as long as those entries are still in the buffer. They are seeded from the clock at startup, so
+ * ids keep growing across restarts and a client from before one is told it missed entries.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuditLogTail {
+
+    private static final String AUDIT_EVENT = "audit";
+    private static final String OVERFLOW_EVENT = "overflow";
+
+    @Value("${staffi.audit.tail.capacity:1000}")
+    private int capacity;
+
+    @Value("${staffi.audit.tail.max-subscribers:100}")
+    private int maxSubscribers;
+
+    @Value("${staffi.audit.tail.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${staffi.audit.tail.sender-threads:4}")
+    private int senderThreads;
+
+    private final MeterRegistry meterRegistry;
+
+    /** Guarded by this */
+    private AuditLogDto[] ring;
+    /** Sequence number of the first entry appended since startup */
+    private long firstSequence;
+    /** Sequence number the next appended entry gets, guarded by this */
+    private long nextSequence;
+
+    private SseFanout<Subscriber> fanout;
+
+    @PostConstruct
+    protected void start() {
+        ring = new AuditLogDto[capacity];
+        // Like the versions of DashboardStatsBroadcaster, with room for a thousand entries per millisecond
+        firstSequence = System.currentTimeMillis() * 1000;
+        nextSequence = firstSequence;
+        fanout = new SseFanout<>("live audit log", "audit-tail", senderThreads, maxSubscribers,
+                this::drain, subscriber -> subscriber.lastSequence < latestSequence());
+        fanout.registerGauge(meterRegistry, "staffi.audit.tail.subscribers", "Admin consoles following the live audit feed");
+    }
+
+    @PreDestroy
+    protected void stop() {
+        fanout.close();
+    }
+
+    /**
+     * Add written entries to the buffer and wake up the subscribers
+     */
+    public void append(List<AuditLog> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            for (AuditLog entry : entries) {
+                ring[(int) (nextSequence % capacity)] = AuditLogService.mapToDto(entry);
+                nextSequence++;
+            }
+        }
+        fanout.publish();
+    }
+
+    /**
+     * Follow new entries, optionally filtered by entity type and action
+     *
+     * @param lastEventId Last-Event-ID sent by a reconnecting client, entries after it are replayed from the buffer
+     */
+    public SseEmitter subscribe(String entityType, AuditAction action, String lastEventId) {
+        return subscribe(new SseEmitter(timeoutMs), entityType, action, lastEventId);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, String entityType, AuditAction action, String lastEventId) {
+        fanout.checkCapacity();
+
+        long latest = latestSequence();
+        long resumeAfter = latest;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                // Ids ahead of the sequence were not issued by any run, start from now for those
+                resumeAfter = Math.min(Long.parseLong(lastEventId.trim()), latest);
+            } catch (NumberFormatException e) {
+                throw new AppException("Invalid Last-Event-ID", HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        fanout.add(new Subscriber(emitter, entityType, action, resumeAfter));
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${staffi.audit.tail.heartbeat-ms:15000}")
+    public void heartbeat() {
+        fanout.heartbeat();
+    }
+
+    private synchronized long latestSequence() {
+        return nextSequence - 1;
+    }
+
+    /**
+     * Send the subscriber everything appended since its last event
+     */
+    private void drain(Subscriber subscriber) throws IOException {
+        while (true) {
+            long first;
+            long oldest;
+            long lastSequence = subscriber.lastSequence;
+            List<AuditLogDto> pending = new ArrayList<>();
+            synchronized (this) {
+                long latest = nextSequence - 1;
+                oldest = Math.max(firstSequence, nextSequence - capacity);
+                first = Math.max(lastSequence + 1, oldest);
+                for (long sequence = first; sequence <= latest; sequence++) {
+                    pending.add(ring[(int) (sequence % capacity)]);
+                }
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            if (lastSequence + 1 < oldest) {
+                // The entries a client from before the restart missed are not known, only the ones of this run
+                long skipped = oldest - Math.max(lastSequence + 1, firstSequence);
+                Map<String, Object> overflow = lastSequence + 1 < firstSequence
+                        ? Map.of("skipped", skipped, "restarted", true)
+                        : Map.of("skipped", skipped);
+                subscriber.emitter().send(SseEmitter.event()
+                        .name(OVERFLOW_EVENT)
+                        .data(overflow, MediaType.APPLICATION_JSON));
+            }
+            for (int i = 0; i < pending.size(); i++) {
+                long sequence = first + i;
+                AuditLogDto entry = pending.get(i);
+                if (subscriber.matches(entry)) {
+                    subscriber.emitter().send(SseEmitter.event()
+                            .id(Long.toString(sequence))
+                            .name(AUDIT_EVENT)
+                            .data(entry, MediaType.APPLICATION_JSON));
+                }
+                subscriber.lastSequence = sequence;
+            }
+        }
+    }
+
+    static final class Subscriber extends SseFanout.Subscriber {
+
+        private final String entityType;
+        private final AuditAction action;
+        /** Only touched by the thread currently draining this subscriber */
+        private volatile long lastSequence;
+
+        private Subscriber(SseEmitter emitter, String entityType, AuditAction action, long lastSequence) {
+            super(emitter);
+            this.entityType = entityType;
+            this.action = action;
+            this.lastSequence = lastSequence;
+        }
+
+        private boolean matches(AuditLogDto entry) {
+            return (entityType == null || entityType.isEmpty() || entityType.equals(entry.getEntityType()))
+                    && (action == null || action == entry.getAction());
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.entities.AuditLog;
+import hu.sztibor.staffi.backend.entities.AuditLogCounter;
+import hu.sztibor.staffi.backend.repositories.DatabasePlatform;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Background writer for audit log entries
+ * Entries are queued by AuditLogService after the business transaction commits
+ * and written in JDBC batches by a single worker thread.
+ * When the queue is full the caller waits briefly and then writes its entry itself.
+ * A failed batch is retried with backoff and then written row by row, so a bad entry only loses itself.
+ * Written entries carry their generated id and are then published to the live audit tail.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuditLogWriter {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO audit_logs (entity_type, entity_id, action, user_id, user_email, user_role,
+                                    description, old_value, new_value, ip_address, timestamp)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String UPSERT_COUNTER_SQL = """
+            INSERT INTO audit_log_counters (bucket_date, entity_type, action, entry_count)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (bucket_date, entity_type, action)
+            DO UPDATE SET entry_count = audit_log_counters.entry_count + EXCLUDED.entry_count
+            """;
+
+    private static final String UPDATE_COUNTER_SQL = """
+            UPDATE audit_log_counters SET entry_count = entry_count + ?
+            WHERE bucket_date = ? AND entity_type = ? AND action = ?
+            """;
+
+    private static final String INSERT_COUNTER_SQL = """
+            INSERT INTO audit_log_counters (bucket_date, entity_type, action, entry_count)
+            VALUES (?, ?, ?, ?)
+            """;
+
+    private static final Comparator<AuditLogCounter.Key> COUNTER_ORDER = Comparator
+            .comparing(AuditLogCounter.Key::getBucketDate)
+            .thenComparing(AuditLogCounter.Key::getEntityType)
+            .thenComparing(AuditLogCounter.Key::getAction);
+
+    @Value("${staffi.audit.writer.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${staffi.audit.writer.flush-size:200}")
+    private int flushSize;
+
+    @Value("${staffi.audit.writer.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    @Value("${staffi.audit.writer.offer-timeout-ms:100}")
+    private long offerTimeoutMs;
+
+    @Value("${staffi.audit.writer.retry-attempts:3}")
+    private int retryAttempts;
+
+    @Value("${staffi.audit.writer.retry-backoff-ms:200}")
+    private long retryBackoffMs;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final MeterRegistry meterRegistry;
+    private final AuditLogTail auditLogTail;
+
+    private BlockingQueue<AuditLog> queue;
+    private Thread worker;
+    private volatile boolean running;
+
+    private Timer flushTimer;
+    private Counter overflowCounter;
+    private Counter droppedCounter;
+
+    @PostConstruct
+    protected void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("staffi.audit.queue.depth", queue, BlockingQueue::size)
+                .description("Audit log entries waiting to be written")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("staffi.audit.flush")
+                .description("Time spent writing one batch of audit log entries")
+                .register(meterRegistry);
+        overflowCounter = Counter.builder("staffi.audit.queue.overflow")
+                .description("Audit log entries written synchronously because the queue was full")
+                .register(meterRegistry);
+        droppedCounter = Counter.builder("staffi.audit.dropped")
+                .description("Audit log entries that could not be written and were discarded")
+                .register(meterRegistry);
+
+        running = true;
+        worker = new Thread(this::drainLoop, "audit-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Drain the queue before the application context closes the data source
+     */
+    @PreDestroy
+    protected void stop() {
+        running = false;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Audit log writer stopped with {} entries still queued", queue.size());
+        }
+    }
+
+    /**
+     * Queue an entry for writing
+     */
+    public void submit(AuditLog auditLog) {
+        if (running) {
+            try {
+                if (queue.offer(auditLog, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            overflowCounter.increment();
+            log.warn("Audit log queue is full ({} entries), writing entry synchronously", queue.size());
+        }
+        flush(List.of(auditLog));
+    }
+
+    private void drainLoop() {
+        List<AuditLog> batch = new ArrayList<>(flushSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditLog first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Linger up to the flush interval to fill the batch
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < flushSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || !running) {
+                        queue.drainTo(batch, flushSize - batch.size());
+                        break;
+                    }
+                    AuditLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+                queue.drainTo(batch, flushSize - batch.size());
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    void flush(List<AuditLog> batch) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            if (writeWithRetry(batch)) {
+                log.debug("Wrote {} audit log entries", batch.size());
+                auditLogTail.append(batch);
+                return;
+            }
+            if (batch.size() > 1) {
+                writeOneByOne(batch);
+            } else {
+                droppedCounter.increment();
+            }
+        } finally {
+            sample.stop(flushTimer);
+        }
+    }
+
+    /**
+     * Write the batch in one transaction, retrying with exponential backoff
+     *
+     * @return false when every attempt failed
+     */
+    private boolean writeWithRetry(List<AuditLog> batch) {
+        long backoffMs = retryBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeBatch(batch));
+                return true;
+            } catch (Exception e) {
+                if (attempt >= retryAttempts) {
+                    log.error("Failed to write {} audit log entries after {} attempts: {}", batch.size(), attempt, e.getMessage());
+                    return false;
+                }
+                log.warn("Failed to write {} audit log entries, retrying in {} ms: {}", batch.size(), backoffMs, e.getMessage());
+            }
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            backoffMs *= 2;
+        }
+    }
+
+    /**
+     * Last resort after the batch kept failing, each entry in its own transaction
+     */
+    private void writeOneByOne(List<AuditLog> batch) {
+        int dropped = 0;
+        List<AuditLog> written = new ArrayList<>(batch.size());
+        for (AuditLog entry : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeBatch(List.of(entry)));
+                written.add(entry);
+            } catch (Exception e) {
+                dropped++;
+                log.error("Dropped audit log entry {} {} of {}: {}", entry.getAction(), entry.getEntityType(),
+                        entry.getEntityId(), e.getMessage());
+            }
+        }
+        if (dropped > 0) {
+            droppedCounter.increment(dropped);
+        }
+        auditLogTail.append(written);
+    }
+
+    private void writeBatch(List<AuditLog> batch) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        AuditLog entry = batch.get(i);
+                        ps.setString(1, entry.getEntityType());
+                        setLong(ps, 2, entry.getEntityId());
+                        ps.setString(3, entry.getAction().name());
+                        setLong(ps, 4, entry.getUserId());
+                        ps.setString(5, entry.getUserEmail());
+                        ps.setString(6, entry.getUserRole());
+                        ps.setString(7, entry.getDescription());
+                        ps.setString(8, entry.getOldValue());
+                        ps.setString(9, entry.getNewValue());
+                        ps.setString(10, entry.getIpAddress());
+                        ps.setTimestamp(11, Timestamp.valueOf(entry.getTimestamp()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                },
+                keyHolder);
+
+        // Only the id column is requested, its key name differs between databases
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < batch.size() && i < keys.size(); i++) {
+            batch.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+        incrementCounters(batch);
+    }
+
+    /**
+     * Add the batch to the per day / entity type / action counters read by the statistics endpoint
+     * Keys are applied in a fixed order so concurrent batches cannot deadlock on counter rows.
+     */
+    private void incrementCounters(List<AuditLog> batch) {
+        Map<AuditLogCounter.Key, Long> deltas = batch.stream()
+                .collect(Collectors.groupingBy(
+                        entry -> new AuditLogCounter.Key(entry.getTimestamp().toLocalDate(), entry.getEntityType(), entry.getAction()),
+                        () -> new TreeMap<>(COUNTER_ORDER),
+                        Collectors.counting()));
+
+        if (databasePlatform.isPostgres()) {
+            List<Object[]> args = new ArrayList<>(deltas.size());
+            deltas.forEach((key, delta) -> args.add(new Object[]{
+                    Date.valueOf(key.getBucketDate()), key.getEntityType(), key.getAction().name(), delta}));
+            jdbcTemplate.batchUpdate(UPSERT_COUNTER_SQL, args);
+            return;
+        }
+
+        deltas.forEach((key, delta) -> {
+            Date bucketDate = Date.valueOf(key.getBucketDate());
+            int updated = jdbcTemplate.update(UPDATE_COUNTER_SQL, delta, bucketDate, key.getEntityType(), key.getAction().name());
+            if (updated == 0) {
+                jdbcTemplate.update(INSERT_COUNTER_SQL, bucketDate, key.getEntityType(), key.getAction().name(), delta);
+            }
+        });
+    }
+
+    private static void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) {
+            ps.setLong(index, value);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+}
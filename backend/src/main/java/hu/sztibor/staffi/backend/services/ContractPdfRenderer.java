@@ -0,0 +1,255 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.entities.Contract;
+import hu.sztibor.staffi.backend.enums.AuditAction;
+import hu.sztibor.staffi.backend.enums.ContractStatus;
+import hu.sztibor.staffi.backend.enums.PdfJobStatus;
+import hu.sztibor.staffi.backend.repositories.ContractRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders contract PDFs on a bounded worker pool
+ * Jobs are submitted after the contract is committed. A contract stays DRAFT until its PDF
+ * is written and then becomes ACTIVE. Failed renders are retried with a growing delay, and a
+ * scheduled sweep re-queues DRAFT contracts left without a PDF (queue overflow, restart,
+ * exhausted retries). A contract whose renders keep failing is re-queued by the sweep at most
+ * max-sweeps times and then stays FAILED until it is submitted again.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ContractPdfRenderer {
+
+    @Value("${staffi.contracts.pdf.workers:2}")
+    private int workers;
+
+    @Value("${staffi.contracts.pdf.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${staffi.contracts.pdf.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${staffi.contracts.pdf.retry-delay-ms:5000}")
+    private long retryDelayMs;
+
+    @Value("${staffi.contracts.pdf.sweep-min-age-ms:120000}")
+    private long sweepMinAgeMs;
+
+    @Value("${staffi.contracts.pdf.max-sweeps:3}")
+    private int maxSweeps;
+
+    private final ContractRepository contractRepository;
+    private final PdfGeneratorService pdfGeneratorService;
+    private final AuditLogService auditLogService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    /** Latest job state per contract; finished jobs are dropped by the sweep */
+    private final Map<Long, PdfJob> jobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolTaskExecutor executor;
+    private Timer renderTimer;
+
+    @PostConstruct
+    protected void start() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("contract-pdf-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+
+        Gauge.builder("staffi.contracts.pdf.queue.depth", executor, ThreadPoolTaskExecutor::getQueueSize)
+                .description("Contract PDFs waiting to be rendered")
+                .register(meterRegistry);
+        renderTimer = Timer.builder("staffi.contracts.pdf.render")
+                .description("Time spent rendering one contract PDF")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    protected void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Queue rendering of the contract's PDF
+     * Does nothing when a job for the contract is already queued or running.
+     */
+    public void submit(Long contractId) {
+        submit(contractId, 0);
+    }
+
+    private void submit(Long contractId, int sweeps) {
+        boolean[] created = {false};
+        jobs.compute(contractId, (id, current) -> {
+            if (current != null && current.isInProgress()) {
+                return current;
+            }
+            created[0] = true;
+            return new PdfJob(PdfJobStatus.QUEUED, 0, sweeps, null, LocalDateTime.now());
+        });
+
+        if (created[0]) {
+            execute(contractId, 1);
+        }
+    }
+
+    /**
+     * Current job state of the contract, empty when no job is known
+     */
+    public Optional<PdfJob> getJob(Long contractId) {
+        return Optional.ofNullable(jobs.get(contractId));
+    }
+
+    /**
+     * Re-queue DRAFT contracts that still have no PDF and forget finished jobs
+     */
+    @Scheduled(fixedDelayString = "${staffi.contracts.pdf.sweep-interval-ms:60000}",
+               initialDelayString = "${staffi.contracts.pdf.sweep-interval-ms:60000}")
+    public void sweep() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(sweepMinAgeMs, ChronoUnit.MILLIS);
+
+        List<Contract> pending = contractRepository
+                .findByStatusAndPdfPathIsNullAndCreatedAtBefore(ContractStatus.DRAFT, cutoff);
+        for (Contract contract : pending) {
+            PdfJob job = jobs.get(contract.getId());
+            if (job == null) {
+                log.info("Re-queueing PDF rendering for contract {}", contract.getContractNumber());
+                submit(contract.getId(), 0);
+            } else if (job.status() == PdfJobStatus.FAILED && job.updatedAt().isBefore(cutoff)
+                    && job.sweeps() < maxSweeps) {
+                log.info("Re-queueing PDF rendering for contract {} (sweep {}/{})",
+                        contract.getContractNumber(), job.sweeps() + 1, maxSweeps);
+                submit(contract.getId(), job.sweeps() + 1);
+            }
+        }
+
+        jobs.entrySet().removeIf(entry -> entry.getValue().status() == PdfJobStatus.COMPLETED
+                && entry.getValue().updatedAt().isBefore(cutoff));
+    }
+
+    private void execute(Long contractId, int attempt) {
+        try {
+            executor.execute(() -> render(contractId, attempt));
+        } catch (TaskRejectedException e) {
+            log.warn("PDF render queue is full, contract {} will be picked up by the sweep", contractId);
+            update(contractId, PdfJobStatus.FAILED, attempt - 1, "Render queue is full");
+        }
+    }
+
+    private void render(Long contractId, int attempt) {
+        update(contractId, PdfJobStatus.RENDERING, attempt, null);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Optional<Contract> contract = contractRepository.findById(contractId);
+            if (contract.isEmpty()) {
+                jobs.remove(contractId);
+                return;
+            }
+
+            // Rendering runs outside of any transaction, no connection is held meanwhile
+            String pdfPath = contract.get().getPdfPath() != null
+                    ? contract.get().getPdfPath()
+                    : pdfGeneratorService.generateContractPdf(contract.get());
+
+            transactionTemplate.executeWithoutResult(status -> activate(contractId, pdfPath));
+            update(contractId, PdfJobStatus.COMPLETED, attempt, null);
+            log.info("Rendered PDF for contract {} (attempt {})", contract.get().getContractNumber(), attempt);
+        } catch (Exception e) {
+            if (attempt < maxAttempts) {
+                log.warn("Rendering PDF for contract {} failed (attempt {}/{}): {}",
+                        contractId, attempt, maxAttempts, e.getMessage());
+                update(contractId, PdfJobStatus.RETRY_SCHEDULED, attempt, e.getMessage());
+                CompletableFuture.delayedExecutor(retryDelayMs * attempt, TimeUnit.MILLISECONDS)
+                        .execute(() -> execute(contractId, attempt + 1));
+            } else {
+                log.error("Rendering PDF for contract {} failed after {} attempts: {}",
+                        contractId, attempt, e.getMessage());
+                update(contractId, PdfJobStatus.FAILED, attempt, e.getMessage());
+                if (jobs.get(contractId).sweeps() >= maxSweeps) {
+                    log.error("Giving up on the PDF of contract {}, it is no longer re-queued by the sweep", contractId);
+                }
+            }
+        } finally {
+            sample.stop(renderTimer);
+        }
+    }
+
+    /**
+     * Store the PDF path and activate the contract if it is still a draft
+     */
+    private void activate(Long contractId, String pdfPath) {
+        Contract contract = contractRepository.findById(contractId).orElse(null);
+        if (contract == null) {
+            return;
+        }
+
+        ContractStatus oldStatus = contract.getStatus();
+        contract.setPdfPath(pdfPath);
+        if (oldStatus == ContractStatus.DRAFT) {
+            contract.setStatus(ContractStatus.ACTIVE);
+        }
+        Contract updated = contractRepository.save(contract);
+
+        Map<String, Object> oldValueMap = new HashMap<>();
+        oldValueMap.put("status", oldStatus.name());
+        oldValueMap.put("pdfPath", null);
+
+        Map<String, Object> newValueMap = new HashMap<>();
+        newValueMap.put("status", updated.getStatus().name());
+        newValueMap.put("pdfPath", updated.getPdfPath());
+
+        auditLogService.logAction(
+            "Contract",
+            updated.getId(),
+            AuditAction.UPDATE,
+            String.format("Generated PDF for contract %s", updated.getContractNumber()),
+            oldValueMap,
+            newValueMap
+        );
+    }
+
+    private void update(Long contractId, PdfJobStatus status, int attempts, String error) {
+        jobs.compute(contractId, (id, current) -> new PdfJob(status, attempts,
+                current != null ? current.sweeps() : 0, error, LocalDateTime.now()));
+    }
+
+    /**
+     * State of the latest render job of a contract
+     *
+     * @param sweeps How many times the sweep re-queued the contract after its renders failed
+     */
+    public record PdfJob(PdfJobStatus status, int attempts, int sweeps, String lastError, LocalDateTime updatedAt) {
+
+        boolean isInProgress() {
+            return status == PdfJobStatus.QUEUED
+                    || status == PdfJobStatus.RENDERING
+                    || status == PdfJobStatus.RETRY_SCHEDULED;
+        }
+    }
+}
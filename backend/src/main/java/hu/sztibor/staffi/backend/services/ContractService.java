@@ -1,18 +1,19 @@
 package hu.sztibor.staffi.backend.services;
 
 import hu.sztibor.staffi.backend.dto.contract.ContractDto;
+import hu.sztibor.staffi.backend.dto.contract.ContractPdfStatusDto;
 import hu.sztibor.staffi.backend.dto.contract.CreateContractDto;
 import hu.sztibor.staffi.backend.entities.Contract;
 import hu.sztibor.staffi.backend.entities.Employee;
 import hu.sztibor.staffi.backend.enums.AuditAction;
 import hu.sztibor.staffi.backend.enums.ContractStatus;
+import hu.sztibor.staffi.backend.enums.PdfJobStatus;
 import hu.sztibor.staffi.backend.exceptions.AppException;
 import hu.sztibor.staffi.backend.repositories.ContractRepository;
 import hu.sztibor.staffi.backend.repositories.EmployeeRepository;
+import hu.sztibor.staffi.backend.utils.TransactionUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -35,7 +36,7 @@ public class ContractService {
     private final ContractRepository contractRepository;
     private final EmployeeRepository employeeRepository;
     private final AuditLogService auditLogService;
-    private final PdfGeneratorService pdfGeneratorService;
+    private final ContractPdfRenderer contractPdfRenderer;
 
     private static final String PDF_STORAGE_PATH = "contracts/pdfs/";
 
@@ -55,7 +56,7 @@ public class ContractService {
 
     /**
      * Create a new contract for an employee
-     * Generates contract number and PDF
+     * Generates contract number and queues PDF rendering; the contract stays DRAFT until the PDF exists
      */
     @Transactional
     public ContractDto createContract(Long employeeId, CreateContractDto dto) {
@@ -89,15 +90,9 @@ public class ContractService {
 
         Contract saved = contractRepository.save(contract);
 
-        try {
-            String pdfPath = pdfGeneratorService.generateContractPdf(saved);
-            saved.setPdfPath(pdfPath);
-            saved.setStatus(ContractStatus.ACTIVE);
-            saved = contractRepository.save(saved);
-        } catch (Exception e) {
-            log.error("Error generating PDF for contract {}: {}", contractNumber, e.getMessage());
-        }
-
+        // The PDF is rendered in the background; the contract becomes ACTIVE once it is written
+        Long contractId = saved.getId();
+        TransactionUtils.afterCommit(() -> contractPdfRenderer.submit(contractId));
 
         java.util.Map<String, Object> newValueMap = new java.util.HashMap<>();
         newValueMap.put("id", saved.getId());
@@ -127,9 +122,9 @@ public class ContractService {
     }
 
     /**
-     * Get PDF file for download
+     * Get the stored PDF file for download
      */
-    public Resource getContractPdf(Long contractId) {
+    public Path getContractPdfFile(Long contractId) {
         Contract contract = contractRepository.findById(contractId)
                 .orElseThrow(() -> new AppException("Contract not found", HttpStatus.NOT_FOUND));
 
@@ -137,18 +132,40 @@ public class ContractService {
             throw new AppException("PDF not available for this contract", HttpStatus.NOT_FOUND);
         }
 
-        try {
-            Path filePath = Paths.get(contract.getPdfPath());
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (resource.exists() && resource.isReadable()) {
-                return resource;
-            } else {
-                throw new AppException("PDF file not found or not readable", HttpStatus.NOT_FOUND);
-            }
-        } catch (Exception e) {
-            throw new AppException("Error reading PDF file: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        Path filePath = Paths.get(contract.getPdfPath());
+        if (!Files.isRegularFile(filePath) || !Files.isReadable(filePath)) {
+            throw new AppException("PDF file not found or not readable", HttpStatus.NOT_FOUND);
+        }
+
+        return filePath;
+    }
+
+    /**
+     * Get the state of the contract's PDF rendering
+     */
+    public ContractPdfStatusDto getContractPdfStatus(Long contractId) {
+        Contract contract = contractRepository.findById(contractId)
+                .orElseThrow(() -> new AppException("Contract not found", HttpStatus.NOT_FOUND));
+
+        ContractPdfRenderer.PdfJob job = contractPdfRenderer.getJob(contractId).orElse(null);
+        boolean pdfAvailable = contract.getPdfPath() != null;
+
+        ContractPdfStatusDto.ContractPdfStatusDtoBuilder status = ContractPdfStatusDto.builder()
+                .contractId(contract.getId())
+                .contractStatus(contract.getStatus())
+                .pdfAvailable(pdfAvailable);
+
+        if (job != null) {
+            status.jobStatus(job.status())
+                    .attempts(job.attempts())
+                    .lastError(job.lastError())
+                    .updatedAt(job.updatedAt());
+        } else {
+            status.jobStatus(pdfAvailable ? PdfJobStatus.COMPLETED : PdfJobStatus.NOT_QUEUED)
+                    .attempts(0);
         }
+
+        return status.build();
     }
 
     /**
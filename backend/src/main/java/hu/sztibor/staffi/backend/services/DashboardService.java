@@ -1,86 +1,136 @@
 package hu.sztibor.staffi.backend.services;
 
 import hu.sztibor.staffi.backend.dto.DashboardStatsDto;
-import hu.sztibor.staffi.backend.enums.AdvanceStatus;
-import hu.sztibor.staffi.backend.enums.AllocationStatus;
-import hu.sztibor.staffi.backend.enums.Role;
-import hu.sztibor.staffi.backend.repositories.*;
+import hu.sztibor.staffi.backend.repositories.DashboardStatsRepository;
+import hu.sztibor.staffi.backend.repositories.DashboardStatsRepository.DashboardCounts;
+import hu.sztibor.staffi.backend.utils.TransactionUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class DashboardService {
 
-    private final EmployeeRepository employeeRepository;
-    private final RoomRepository roomRepository;
-    private final RoomAllocationRepository roomAllocationRepository;
-    private final AdvanceRequestRepository advanceRequestRepository;
-    private final UserRepository userRepository;
+    @Value("${staffi.dashboard.cache-ttl-ms:30000}")
+    private long cacheTtlMs;
+
+    private final DashboardStatsRepository dashboardStatsRepository;
+
+    /** Bumped by every committed write that can change the statistics */
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile CachedStats cached;
+
+    /** Guarded by this */
+    private CompletableFuture<CachedStats> inFlight;
 
     /**
      * Get all dashboard statistics
+     * Served from memory while the cached value is younger than the TTL and no write has
+     * invalidated it. Concurrent misses share a single computation.
      */
     public DashboardStatsDto getDashboardStats() {
-        log.info("Fetching dashboard statistics");
+        LocalDate startOfMonth = LocalDate.now().withDayOfMonth(1);
 
-        Long totalEmployees = employeeRepository.count();
-        Long activeEmployees = userRepository.countByRoleAndIsActive(Role.EMPLOYEE, true);
-        Long inactiveEmployees = totalEmployees - activeEmployees;
+        CachedStats current = cached;
+        if (isFresh(current, startOfMonth)) {
+            return current.stats();
+        }
 
-        Long totalRooms = roomRepository.count();
-        Long totalCapacity = roomRepository.findAll().stream()
-                .mapToLong(room -> room.getCapacity())
-                .sum();
+        CompletableFuture<CachedStats> computation;
+        boolean owner = false;
+        synchronized (this) {
+            current = cached;
+            if (isFresh(current, startOfMonth)) {
+                return current.stats();
+            }
+            if (inFlight == null) {
+                inFlight = new CompletableFuture<>();
+                owner = true;
+            }
+            computation = inFlight;
+        }
 
-        Long currentOccupancy = roomAllocationRepository.countByStatus(AllocationStatus.ACTIVE);
+        if (owner) {
+            try {
+                // Tagged with the generation seen before reading, so a write racing the query marks it stale
+                long startGeneration = generation.get();
+                CachedStats computed = new CachedStats(computeStats(startOfMonth), startGeneration, startOfMonth, System.nanoTime());
+                cached = computed;
+                computation.complete(computed);
+            } catch (RuntimeException e) {
+                computation.completeExceptionally(e);
+                throw e;
+            } finally {
+                synchronized (this) {
+                    inFlight = null;
+                }
+            }
+        }
 
-        Long occupiedRooms = roomRepository.findAll().stream()
-                .filter(room -> roomAllocationRepository
-                        .findByRoomIdAndStatus(room.getId(), AllocationStatus.ACTIVE)
-                        .size() > 0)
-                .count();
+        try {
+            return computation.join().stats();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Drop the cached statistics once the current transaction commits
+     * Called by the write paths that change employees, rooms, allocations or advance requests.
+     */
+    public void invalidateStats() {
+        TransactionUtils.afterCommit(generation::incrementAndGet);
+    }
 
-        Long availableRooms = totalRooms - occupiedRooms;
+    /**
+     * Current invalidation generation, changes whenever a write may have changed the statistics
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
 
-        Long totalAdvanceRequests = advanceRequestRepository.count();
-        Long pendingAdvanceRequests = advanceRequestRepository.countByStatus(AdvanceStatus.PENDING);
-        Long approvedAdvanceRequests = advanceRequestRepository.countByStatus(AdvanceStatus.APPROVED);
-        Long rejectedAdvanceRequests = advanceRequestRepository.countByStatus(AdvanceStatus.REJECTED);
+    private boolean isFresh(CachedStats stats, LocalDate startOfMonth) {
+        return stats != null
+                && stats.generation() == generation.get()
+                && stats.startOfMonth().equals(startOfMonth)
+                && System.nanoTime() - stats.computedAt() < cacheTtlMs * 1_000_000L;
+    }
 
-        LocalDateTime startOfMonth = LocalDate.now().withDayOfMonth(1).atStartOfDay();
-        Long newEmployeesThisMonth = userRepository.findAll().stream()
-                .filter(user -> user.getRole() == Role.EMPLOYEE &&
-                               user.getCreatedAt() != null &&
-                               user.getCreatedAt().isAfter(startOfMonth))
-                .count();
+    /**
+     * Computed by a single aggregate query (see DashboardStatsRepository)
+     */
+    private DashboardStatsDto computeStats(LocalDate startOfMonth) {
+        log.info("Computing dashboard statistics");
 
-        Long checkInsThisMonth = roomAllocationRepository.findAll().stream()
-                .filter(allocation -> allocation.getCheckInDate() != null &&
-                                     allocation.getCheckInDate().isAfter(startOfMonth.toLocalDate()))
-                .count();
+        DashboardCounts counts = dashboardStatsRepository.fetchCounts(startOfMonth);
 
         return DashboardStatsDto.builder()
-                .totalEmployees(totalEmployees)
-                .activeEmployees(activeEmployees)
-                .inactiveEmployees(inactiveEmployees)
-                .totalRooms(totalRooms)
-                .occupiedRooms(occupiedRooms)
-                .availableRooms(availableRooms)
-                .totalCapacity(totalCapacity)
-                .currentOccupancy(currentOccupancy)
-                .totalAdvanceRequests(totalAdvanceRequests)
-                .pendingAdvanceRequests(pendingAdvanceRequests)
-                .approvedAdvanceRequests(approvedAdvanceRequests)
-                .rejectedAdvanceRequests(rejectedAdvanceRequests)
-                .newEmployeesThisMonth(newEmployeesThisMonth)
-                .checkInsThisMonth(checkInsThisMonth)
+                .totalEmployees(counts.totalEmployees())
+                .activeEmployees(counts.activeEmployees())
+                .inactiveEmployees(counts.totalEmployees() - counts.activeEmployees())
+                .totalRooms(counts.totalRooms())
+                .occupiedRooms(counts.occupiedRooms())
+                .availableRooms(counts.totalRooms() - counts.occupiedRooms())
+                .totalCapacity(counts.totalCapacity())
+                .currentOccupancy(counts.currentOccupancy())
+                .totalAdvanceRequests(counts.totalAdvanceRequests())
+                .pendingAdvanceRequests(counts.pendingAdvanceRequests())
+                .approvedAdvanceRequests(counts.approvedAdvanceRequests())
+                .rejectedAdvanceRequests(counts.rejectedAdvanceRequests())
+                .newEmployeesThisMonth(counts.newEmployeesThisMonth())
+                .checkInsThisMonth(counts.checkInsThisMonth())
                 .build();
     }
-}
 
+    private record CachedStats(DashboardStatsDto stats, long generation, LocalDate startOfMonth, long computedAt) {
+    }
+}
@@ -0,0 +1,210 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.dto.DashboardTrendDto;
+import hu.sztibor.staffi.backend.dto.DashboardTrendPointDto;
+import hu.sztibor.staffi.backend.entities.DashboardSnapshot;
+import hu.sztibor.staffi.backend.enums.TrendGranularity;
+import hu.sztibor.staffi.backend.exceptions.AppException;
+import hu.sztibor.staffi.backend.repositories.DashboardSnapshotRepository;
+import hu.sztibor.staffi.backend.repositories.DashboardStatsRepository;
+import hu.sztibor.staffi.backend.repositories.DashboardStatsRepository.DashboardCounts;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Daily dashboard snapshots and the trends built from them
+ * Shortly after midnight the previous day is recorded: current stock figures plus the new
+ * employees and check-ins of that day. Trends read only the snapshot table.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DashboardSnapshotService {
+
+    private static final long MAX_RANGE_DAYS = 3660;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO dashboard_snapshots (snapshot_date, total_employees, active_employees, total_rooms,
+                occupied_rooms, total_capacity, current_occupancy, total_advance_requests,
+                pending_advance_requests, approved_advance_requests, rejected_advance_requests,
+                new_employees, check_ins, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    @Value("${staffi.dashboard.snapshot-catch-up-hours:6}")
+    private long catchUpHours;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DashboardSnapshotRepository dashboardSnapshotRepository;
+    private final DashboardStatsRepository dashboardStatsRepository;
+
+    /**
+     * Record yesterday's figures
+     */
+    @Scheduled(cron = "${staffi.dashboard.snapshot-cron:0 5 0 * * *}")
+    @Transactional
+    public void snapshotYesterday() {
+        takeSnapshot(LocalDate.now().minusDays(1));
+    }
+
+    /**
+     * Catch up on a snapshot missed while the application was down
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUp() {
+        catchUp(LocalDateTime.now());
+    }
+
+    /**
+     * Stock figures of a missed day cannot be reconstructed, so yesterday is only filled in
+     * during the first hours of today, while the current figures still describe its end.
+     * An existing row is never replaced, another instance may have written it already.
+     */
+    void catchUp(LocalDateTime now) {
+        LocalDate yesterday = now.toLocalDate().minusDays(1);
+        if (!now.toLocalTime().isBefore(LocalTime.MIDNIGHT.plusHours(catchUpHours))) {
+            log.warn("Dashboard snapshot for {} not caught up, current figures are too far from its end", yesterday);
+            return;
+        }
+
+        DashboardSnapshot snapshot = buildSnapshot(yesterday);
+        try {
+            jdbcTemplate.update(INSERT_SQL,
+                    snapshot.getSnapshotDate(),
+                    snapshot.getTotalEmployees(),
+                    snapshot.getActiveEmployees(),
+                    snapshot.getTotalRooms(),
+                    snapshot.getOccupiedRooms(),
+                    snapshot.getTotalCapacity(),
+                    snapshot.getCurrentOccupancy(),
+                    snapshot.getTotalAdvanceRequests(),
+                    snapshot.getPendingAdvanceRequests(),
+                    snapshot.getApprovedAdvanceRequests(),
+                    snapshot.getRejectedAdvanceRequests(),
+                    snapshot.getNewEmployees(),
+                    snapshot.getCheckIns(),
+                    snapshot.getCreatedAt());
+            log.info("Dashboard snapshot caught up for {}", yesterday);
+        } catch (DuplicateKeyException e) {
+            log.debug("Dashboard snapshot for {} already exists", yesterday);
+        }
+    }
+
+    /**
+     * Write or overwrite the snapshot of the given day
+     */
+    public DashboardSnapshot takeSnapshot(LocalDate day) {
+        DashboardSnapshot snapshot = dashboardSnapshotRepository.save(buildSnapshot(day));
+
+        log.info("Dashboard snapshot written for {}", day);
+        return snapshot;
+    }
+
+    private DashboardSnapshot buildSnapshot(LocalDate day) {
+        DashboardCounts counts = dashboardStatsRepository.fetchCounts(day, day.plusDays(1));
+
+        return DashboardSnapshot.builder()
+                .snapshotDate(day)
+                .totalEmployees(counts.totalEmployees())
+                .activeEmployees(counts.activeEmployees())
+                .totalRooms(counts.totalRooms())
+                .occupiedRooms(counts.occupiedRooms())
+                .totalCapacity(counts.totalCapacity())
+                .currentOccupancy(counts.currentOccupancy())
+                .totalAdvanceRequests(counts.totalAdvanceRequests())
+                .pendingAdvanceRequests(counts.pendingAdvanceRequests())
+                .approvedAdvanceRequests(counts.approvedAdvanceRequests())
+                .rejectedAdvanceRequests(counts.rejectedAdvanceRequests())
+                .newEmployees(counts.newEmployeesThisMonth())
+                .checkIns(counts.checkInsThisMonth())
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Get dashboard figures over time, one point per day, week (starting Monday) or month
+     */
+    @Transactional(readOnly = true)
+    public DashboardTrendDto getTrends(LocalDate from, LocalDate to, TrendGranularity granularity) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(30);
+        TrendGranularity step = granularity != null ? granularity : TrendGranularity.DAY;
+
+        if (start.isAfter(end)) {
+            throw new AppException("'from' must not be after 'to'", HttpStatus.BAD_REQUEST);
+        }
+        if (ChronoUnit.DAYS.between(start, end) > MAX_RANGE_DAYS) {
+            throw new AppException("Trend range must not exceed " + MAX_RANGE_DAYS + " days", HttpStatus.BAD_REQUEST);
+        }
+
+        List<DashboardSnapshot> snapshots = dashboardSnapshotRepository.findBySnapshotDateBetweenOrderBySnapshotDateAsc(start, end);
+
+        return DashboardTrendDto.builder()
+                .from(start)
+                .to(end)
+                .granularity(step)
+                .points(aggregate(snapshots, step))
+                .build();
+    }
+
+    /**
+     * Fold the ordered snapshots into buckets
+     */
+    static List<DashboardTrendPointDto> aggregate(List<DashboardSnapshot> snapshots, TrendGranularity granularity) {
+        List<DashboardTrendPointDto> points = new ArrayList<>();
+        DashboardTrendPointDto point = null;
+
+        for (DashboardSnapshot snapshot : snapshots) {
+            LocalDate periodStart = periodStart(snapshot.getSnapshotDate(), granularity);
+            if (point == null || !point.getPeriodStart().equals(periodStart)) {
+                point = DashboardTrendPointDto.builder()
+                        .periodStart(periodStart)
+                        .newEmployees(0L)
+                        .checkIns(0L)
+                        .build();
+                points.add(point);
+            }
+
+            // Stock figures end up as those of the last day in the bucket
+            point.setSnapshotDate(snapshot.getSnapshotDate());
+            point.setTotalEmployees(snapshot.getTotalEmployees());
+            point.setActiveEmployees(snapshot.getActiveEmployees());
+            point.setTotalRooms(snapshot.getTotalRooms());
+            point.setOccupiedRooms(snapshot.getOccupiedRooms());
+            point.setTotalCapacity(snapshot.getTotalCapacity());
+            point.setCurrentOccupancy(snapshot.getCurrentOccupancy());
+            point.setTotalAdvanceRequests(snapshot.getTotalAdvanceRequests());
+            point.setPendingAdvanceRequests(snapshot.getPendingAdvanceRequests());
+            point.setApprovedAdvanceRequests(snapshot.getApprovedAdvanceRequests());
+            point.setRejectedAdvanceRequests(snapshot.getRejectedAdvanceRequests());
+            point.setNewEmployees(point.getNewEmployees() + snapshot.getNewEmployees());
+            point.setCheckIns(point.getCheckIns() + snapshot.getCheckIns());
+        }
+        return points;
+    }
+
+    private static LocalDate periodStart(LocalDate day, TrendGranularity granularity) {
+        return switch (granularity) {
+            case DAY -> day;
+            case WEEK -> day.with(DayOfWeek.MONDAY);
+            case MONTH -> day.withDayOfMonth(1);
+        };
+    }
+}
@@ -0,0 +1,182 @@
+package hu.sztibor.staffi.backend.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Pushes dashboard statistics to open dashboards over Server-Sent Events
+ * Once per change window the statistics are recomputed, at most once, if a write invalidated
+ * them or the cached value expired. Each subscriber gets the full statistics on connect and
+ * afterwards only the fields that changed since the last version it was sent, so a slow
+ * client simply receives one combined delta when it catches up.
+ */
+@Component
+@RequiredArgsConstructor
+public class DashboardStatsBroadcaster {
+
+    private static final String STATS_EVENT = "stats";
+    private static final String DELTA_EVENT = "delta";
+    private static final TypeReference<Map<String, Object>> FIELDS = new TypeReference<>() {
+    };
+
+    @Value("${staffi.dashboard.cache-ttl-ms:30000}")
+    private long refreshIntervalMs;
+
+    @Value("${staffi.dashboard.push.max-subscribers:200}")
+    private int maxSubscribers;
+
+    @Value("${staffi.dashboard.push.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${staffi.dashboard.push.reconnect-ms:5000}")
+    private long reconnectMs;
+
+    @Value("${staffi.dashboard.push.sender-threads:2}")
+    private int senderThreads;
+
+    private final DashboardService dashboardService;
+    private final MeterRegistry meterRegistry;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile Version latest;
+    private long latestGeneration = -1;
+    private long latestComputedAt;
+
+    private SseFanout<Subscriber> fanout;
+
+    @PostConstruct
+    protected void start() {
+        fanout = new SseFanout<>("live dashboard", "dashboard-push", senderThreads, maxSubscribers,
+                this::drain, subscriber -> latest != subscriber.sent);
+        fanout.registerGauge(meterRegistry, "staffi.dashboard.push.subscribers", "Dashboards receiving pushed statistics");
+    }
+
+    @PreDestroy
+    protected void stop() {
+        fanout.close();
+    }
+
+    /**
+     * Follow the dashboard statistics
+     *
+     * @param lastEventId Last-Event-ID of a reconnecting client, the full statistics are skipped when it is still current
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        return subscribe(new SseEmitter(timeoutMs), lastEventId);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, String lastEventId) {
+        fanout.checkCapacity();
+
+        Version current = latest;
+        if (current == null) {
+            refresh(true);
+            current = latest;
+        }
+
+        Subscriber subscriber = new Subscriber(emitter);
+        if (lastEventId != null && lastEventId.trim().equals(Long.toString(current.number()))) {
+            subscriber.sent = current;
+        }
+        fanout.add(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Recompute and push the statistics when something changed during the last window
+     */
+    @Scheduled(fixedDelayString = "${staffi.dashboard.push.window-ms:1000}")
+    public void publishChanges() {
+        if (!fanout.isEmpty()) {
+            refresh(false);
+        }
+    }
+
+    /**
+     * Keep idle connections from being closed by proxies
+     */
+    @Scheduled(fixedDelayString = "${staffi.dashboard.push.heartbeat-ms:15000}")
+    public void heartbeat() {
+        fanout.heartbeat();
+    }
+
+    private synchronized void refresh(boolean force) {
+        long generation = dashboardService.getGeneration();
+        boolean expired = System.currentTimeMillis() - latestComputedAt >= refreshIntervalMs;
+        if (!force && latest != null && generation == latestGeneration && !expired) {
+            return;
+        }
+
+        Map<String, Object> fields = objectMapper.convertValue(dashboardService.getDashboardStats(), FIELDS);
+        latestGeneration = generation;
+        latestComputedAt = System.currentTimeMillis();
+        if (latest != null && latest.fields().equals(fields)) {
+            return;
+        }
+
+        // Numbering starts from the clock so event ids from before a restart never look current
+        latest = new Version(latest != null ? latest.number() + 1 : System.currentTimeMillis(), fields);
+        fanout.publish();
+    }
+
+    /**
+     * Bring the subscriber up to the latest version
+     */
+    private void drain(Subscriber subscriber) throws IOException {
+        Version current;
+        while ((current = latest) != subscriber.sent) {
+            Version sent = subscriber.sent;
+            SseEmitter.SseEventBuilder event = SseEmitter.event()
+                    .id(Long.toString(current.number()))
+                    .reconnectTime(reconnectMs);
+            if (sent == null) {
+                event.name(STATS_EVENT).data(current.fields(), MediaType.APPLICATION_JSON);
+            } else {
+                event.name(DELTA_EVENT).data(changedFields(sent.fields(), current.fields()), MediaType.APPLICATION_JSON);
+            }
+            subscriber.emitter().send(event);
+            subscriber.sent = current;
+        }
+    }
+
+    static Map<String, Object> changedFields(Map<String, Object> previous, Map<String, Object> current) {
+        Map<String, Object> changed = new LinkedHashMap<>();
+        current.forEach((field, value) -> {
+            if (!Objects.equals(previous.get(field), value)) {
+                changed.put(field, value);
+            }
+        });
+        return changed;
+    }
+
+    /**
+     * One published state of the statistics, as a field map of DashboardStatsDto
+     */
+    private record Version(long number, Map<String, Object> fields) {
+    }
+
+    static final class Subscriber extends SseFanout.Subscriber {
+
+        /** Last version sent, only written by the thread currently draining this subscriber */
+        private volatile Version sent;
+
+        private Subscriber(SseEmitter emitter) {
+            super(emitter);
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.dto.employee.CreateEmployeeDto;
+import hu.sztibor.staffi.backend.dto.employee.EmployeeImportResultDto;
+import hu.sztibor.staffi.backend.dto.employee.EmployeeImportRowDto;
+import hu.sztibor.staffi.backend.entities.User;
+import hu.sztibor.staffi.backend.enums.AuditAction;
+import hu.sztibor.staffi.backend.enums.ImportRowStatus;
+import hu.sztibor.staffi.backend.enums.Role;
+import hu.sztibor.staffi.backend.exceptions.AppException;
+import hu.sztibor.staffi.backend.repositories.EmployeeRepository;
+import hu.sztibor.staffi.backend.repositories.UserRepository;
+import hu.sztibor.staffi.backend.utils.CsvReader;
+import hu.sztibor.staffi.backend.utils.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bulk employee import from CSV
+ * The upload is parsed as a stream and processed in chunks: uniqueness is checked with
+ * one query per column and chunk, passwords are hashed in parallel and rows are written
+ * with JDBC batch inserts, one transaction and one audit record per chunk.
+ * Imported users always get the EMPLOYEE role.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmployeeImportService {
+
+    static final int CHUNK_SIZE = 500;
+
+    static final List<String> REQUIRED_COLUMNS = List.of("firstName", "lastName", "email", "password");
+
+    /** Column lengths of the users and employees tables, checked per row so one long value cannot fail the chunk */
+    private static final List<ColumnLimit> COLUMN_LIMITS = List.of(
+            new ColumnLimit("firstName", 255),
+            new ColumnLimit("lastName", 255),
+            new ColumnLimit("email", 255),
+            new ColumnLimit("taxId", 20),
+            new ColumnLimit("tajNumber", 20),
+            new ColumnLimit("idCardNumber", 20),
+            new ColumnLimit("phoneNumber", 20),
+            new ColumnLimit("nationality", 50),
+            new ColumnLimit("companyName", 200));
+
+    /** BCrypt only uses the first 72 bytes of a password */
+    private static final int MAX_PASSWORD_BYTES = 72;
+
+    private static final String INSERT_USER_SQL = """
+            INSERT INTO users (first_name, last_name, email, password, role, is_active, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String INSERT_EMPLOYEE_SQL = """
+            INSERT INTO employees (user_id, tax_id, taj_number, id_card_number, primary_address, phone_number,
+                                   nationality, birth_date, company_name, start_date)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final UserRepository userRepository;
+    private final EmployeeRepository employeeRepository;
+    private final AuditLogService auditLogService;
+    private final DashboardService dashboardService;
+    private final UserSearchIndex userSearchIndex;
+
+    /**
+     * Import employees from a CSV file with a header row
+     * Columns: firstName, lastName, email, password (required), taxId, tajNumber, idCardNumber,
+     * primaryAddress, phoneNumber, nationality, birthDate, companyName, startDate (dates as yyyy-MM-dd)
+     */
+    public EmployeeImportResultDto importEmployees(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new AppException("CSV file is required", HttpStatus.BAD_REQUEST);
+        }
+
+        String fileName = file.getOriginalFilename() != null ? file.getOriginalFilename() : "upload.csv";
+        List<EmployeeImportRowDto> results = new ArrayList<>();
+        SeenValues seen = new SeenValues();
+
+        try (CsvReader csv = new CsvReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            List<String> header = csv.readRecord();
+            if (header == null) {
+                throw new AppException("CSV file is empty", HttpStatus.BAD_REQUEST);
+            }
+            Map<String, Integer> columns = columnIndex(header);
+
+            List<CsvRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            long lineNumber = csv.getLineNumber();
+            List<String> record;
+            while ((record = csv.readRecord()) != null) {
+                if (!isBlank(record)) {
+                    chunk.add(new CsvRow(lineNumber, record));
+                }
+                lineNumber = csv.getLineNumber();
+
+                if (chunk.size() == CHUNK_SIZE) {
+                    results.addAll(importChunk(chunk, columns, seen, fileName));
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                results.addAll(importChunk(chunk, columns, seen, fileName));
+            }
+        } catch (IOException e) {
+            throw new AppException("Could not read CSV file: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+
+        int imported = (int) results.stream().filter(row -> row.getStatus() == ImportRowStatus.IMPORTED).count();
+        log.info("Imported {} of {} employees from {}", imported, results.size(), fileName);
+
+        return EmployeeImportResultDto.builder()
+                .totalRows(results.size())
+                .imported(imported)
+                .failed(results.size() - imported)
+                .rows(results)
+                .build();
+    }
+
+    private List<EmployeeImportRowDto> importChunk(List<CsvRow> rows, Map<String, Integer> columns,
+                                                   SeenValues seen, String fileName) {
+        EmployeeImportRowDto[] results = new EmployeeImportRowDto[rows.size()];
+        List<PendingRow> pending = new ArrayList<>();
+
+        // Field validation and duplicates within the file
+        for (int i = 0; i < rows.size(); i++) {
+            CsvRow row = rows.get(i);
+            CreateEmployeeDto dto;
+            try {
+                dto = toDto(row.values(), columns);
+            } catch (IllegalArgumentException e) {
+                results[i] = failed(row.lineNumber(), value(row.values(), columns, "email"), e.getMessage());
+                continue;
+            }
+
+            String duplicate = seen.add(dto);
+            if (duplicate != null) {
+                results[i] = failed(row.lineNumber(), dto.getEmail(), duplicate + " appears more than once in the file");
+                continue;
+            }
+            pending.add(new PendingRow(i, row.lineNumber(), dto));
+        }
+
+        // Uniqueness against the database, one query per column
+        Set<String> existingEmails = existing(pending, CreateEmployeeDto::getEmail, userRepository::findExistingEmails);
+        Set<String> existingTaxIds = existing(pending, CreateEmployeeDto::getTaxId, employeeRepository::findExistingTaxIds);
+        Set<String> existingTajNumbers = existing(pending, CreateEmployeeDto::getTajNumber, employeeRepository::findExistingTajNumbers);
+        Set<String> existingIdCardNumbers = existing(pending, CreateEmployeeDto::getIdCardNumber, employeeRepository::findExistingIdCardNumbers);
+
+        List<PendingRow> accepted = new ArrayList<>();
+        for (PendingRow row : pending) {
+            CreateEmployeeDto dto = row.dto();
+            String conflict = existingEmails.contains(dto.getEmail()) ? "Email already exists"
+                    : existingTaxIds.contains(dto.getTaxId()) ? "Tax ID already exists"
+                    : existingTajNumbers.contains(dto.getTajNumber()) ? "TAJ number already exists"
+                    : existingIdCardNumbers.contains(dto.getIdCardNumber()) ? "ID card number already exists"
+                    : null;
+            if (conflict != null) {
+                results[row.index()] = failed(row.lineNumber(), dto.getEmail(), conflict);
+            } else {
+                accepted.add(row);
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            // BCrypt dominates the cost of an import, spread it over all cores
+            List<String> passwordHashes = accepted.parallelStream()
+                    .map(row -> passwordEncoder.encode(row.dto().getPassword()))
+                    .toList();
+
+            try {
+                List<Long> employeeIds = transactionTemplate.execute(status ->
+                        insertChunk(accepted, passwordHashes, fileName));
+                for (int i = 0; i < accepted.size(); i++) {
+                    PendingRow row = accepted.get(i);
+                    results[row.index()] = EmployeeImportRowDto.builder()
+                            .lineNumber(row.lineNumber())
+                            .email(row.dto().getEmail())
+                            .status(ImportRowStatus.IMPORTED)
+                            .employeeId(employeeIds.get(i))
+                            .build();
+                }
+            } catch (DataAccessException e) {
+                log.warn("Failed to import chunk of {} employees from {}: {}",
+                        accepted.size(), fileName, e.getMostSpecificCause().getMessage());
+                for (PendingRow row : accepted) {
+                    results[row.index()] = failed(row.lineNumber(), row.dto().getEmail(),
+                            "Could not be saved: " + e.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+
+        return List.of(results);
+    }
+
+    private List<Long> insertChunk(List<PendingRow> rows, List<String> passwordHashes, String fileName) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        KeyHolder userKeys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_USER_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        CreateEmployeeDto dto = rows.get(i).dto();
+                        ps.setString(1, dto.getFirstName());
+                        ps.setString(2, dto.getLastName());
+                        ps.setString(3, dto.getEmail());
+                        ps.setString(4, passwordHashes.get(i));
+                        ps.setString(5, Role.EMPLOYEE.name());
+                        ps.setBoolean(6, true);
+                        ps.setTimestamp(7, now);
+                        ps.setTimestamp(8, now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                userKeys);
+        List<Long> userIds = generatedIds(userKeys);
+
+        KeyHolder employeeKeys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_EMPLOYEE_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        CreateEmployeeDto dto = rows.get(i).dto();
+                        ps.setLong(1, userIds.get(i));
+                        ps.setString(2, dto.getTaxId());
+                        ps.setString(3, dto.getTajNumber());
+                        ps.setString(4, dto.getIdCardNumber());
+                        ps.setString(5, dto.getPrimaryAddress());
+                        ps.setString(6, dto.getPhoneNumber());
+                        ps.setString(7, dto.getNationality());
+                        setDate(ps, 8, dto.getBirthDate());
+                        ps.setString(9, dto.getCompanyName());
+                        setDate(ps, 10, dto.getStartDate());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                employeeKeys);
+        List<Long> employeeIds = generatedIds(employeeKeys);
+
+        // The search index only learns about the new users once the chunk has committed
+        List<User> created = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            CreateEmployeeDto dto = rows.get(i).dto();
+            created.add(User.builder()
+                    .id(userIds.get(i))
+                    .firstName(dto.getFirstName())
+                    .lastName(dto.getLastName())
+                    .email(dto.getEmail())
+                    .role(Role.EMPLOYEE)
+                    .isActive(true)
+                    .build());
+        }
+        TransactionUtils.afterCommit(() -> created.forEach(userSearchIndex::index));
+
+        Map<String, Object> newValueMap = new HashMap<>();
+        newValueMap.put("fileName", fileName);
+        newValueMap.put("firstLine", rows.get(0).lineNumber());
+        newValueMap.put("lastLine", rows.get(rows.size() - 1).lineNumber());
+        newValueMap.put("employeeIds", employeeIds);
+
+        dashboardService.invalidateStats();
+
+        auditLogService.logAction(
+            "Employee",
+            null,
+            AuditAction.CREATE,
+            String.format("Imported %d employees from %s (lines %d-%d)",
+                rows.size(), fileName, rows.get(0).lineNumber(), rows.get(rows.size() - 1).lineNumber()),
+            null,
+            newValueMap
+        );
+
+        return employeeIds;
+    }
+
+    private CreateEmployeeDto toDto(List<String> values, Map<String, Integer> columns) {
+        CreateEmployeeDto dto = CreateEmployeeDto.builder()
+                .firstName(value(values, columns, "firstName"))
+                .lastName(value(values, columns, "lastName"))
+                .email(value(values, columns, "email"))
+                .password(value(values, columns, "password"))
+                .role(Role.EMPLOYEE.name())
+                .taxId(value(values, columns, "taxId"))
+                .tajNumber(value(values, columns, "tajNumber"))
+                .idCardNumber(value(values, columns, "idCardNumber"))
+                .primaryAddress(value(values, columns, "primaryAddress"))
+                .phoneNumber(value(values, columns, "phoneNumber"))
+                .nationality(value(values, columns, "nationality"))
+                .birthDate(date(values, columns, "birthDate"))
+                .companyName(value(values, columns, "companyName"))
+                .startDate(date(values, columns, "startDate"))
+                .build();
+
+        for (String column : REQUIRED_COLUMNS) {
+            if (value(values, columns, column) == null) {
+                throw new IllegalArgumentException(column + " is required");
+            }
+        }
+        if (!dto.getEmail().contains("@")) {
+            throw new IllegalArgumentException("Invalid email: " + dto.getEmail());
+        }
+        for (ColumnLimit limit : COLUMN_LIMITS) {
+            String value = value(values, columns, limit.column());
+            if (value != null && value.length() > limit.maxLength()) {
+                throw new IllegalArgumentException(limit.column() + " is longer than " + limit.maxLength() + " characters");
+            }
+        }
+        if (dto.getPassword().getBytes(StandardCharsets.UTF_8).length > MAX_PASSWORD_BYTES) {
+            throw new IllegalArgumentException("password is longer than " + MAX_PASSWORD_BYTES + " bytes");
+        }
+        return dto;
+    }
+
+    private static Map<String, Integer> columnIndex(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column.toLowerCase(Locale.ROOT))) {
+                throw new AppException("Missing required column: " + column, HttpStatus.BAD_REQUEST);
+            }
+        }
+        return columns;
+    }
+
+    private static String value(List<String> values, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column.toLowerCase(Locale.ROOT));
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static LocalDate date(List<String> values, Map<String, Integer> columns, String column) {
+        String value = value(values, columns, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid " + column + " (expected yyyy-MM-dd): " + value);
+        }
+    }
+
+    private static boolean isBlank(List<String> record) {
+        return record.stream().allMatch(String::isBlank);
+    }
+
+    private static Set<String> existing(List<PendingRow> rows, Function<CreateEmployeeDto, String> getter,
+                                        Function<Collection<String>, List<String>> query) {
+        List<String> values = rows.stream()
+                .map(row -> getter.apply(row.dto()))
+                .filter(Objects::nonNull)
+                .toList();
+        return values.isEmpty() ? new HashSet<>() : new HashSet<>(query.apply(values));
+    }
+
+    private static List<Long> generatedIds(KeyHolder keyHolder) {
+        // Only the id column is requested, its key name differs between databases
+        return keyHolder.getKeyList().stream()
+                .map(keys -> ((Number) keys.values().iterator().next()).longValue())
+                .toList();
+    }
+
+    private static void setDate(PreparedStatement ps, int index, LocalDate value) throws SQLException {
+        if (value != null) {
+            ps.setDate(index, Date.valueOf(value));
+        } else {
+            ps.setNull(index, Types.DATE);
+        }
+    }
+
+    private static EmployeeImportRowDto failed(long lineNumber, String email, String message) {
+        return EmployeeImportRowDto.builder()
+                .lineNumber(lineNumber)
+                .email(email)
+                .status(ImportRowStatus.FAILED)
+                .message(message)
+                .build();
+    }
+
+    private record CsvRow(long lineNumber, List<String> values) {
+    }
+
+    private record PendingRow(int index, long lineNumber, CreateEmployeeDto dto) {
+    }
+
+    private record ColumnLimit(String column, int maxLength) {
+    }
+
+    /**
+     * Unique values already used by earlier rows of the same file
+     */
+    private static class SeenValues {
+        private final Set<String> emails = new HashSet<>();
+        private final Set<String> taxIds = new HashSet<>();
+        private final Set<String> tajNumbers = new HashSet<>();
+        private final Set<String> idCardNumbers = new HashSet<>();
+
+        /**
+         * Register the row's values, returns the name of the first duplicate field or null
+         */
+        String add(CreateEmployeeDto dto) {
+            if (emails.contains(dto.getEmail())) {
+                return "Email";
+            }
+            if (dto.getTaxId() != null && taxIds.contains(dto.getTaxId())) {
+                return "Tax ID";
+            }
+            if (dto.getTajNumber() != null && tajNumbers.contains(dto.getTajNumber())) {
+                return "TAJ number";
+            }
+            if (dto.getIdCardNumber() != null && idCardNumbers.contains(dto.getIdCardNumber())) {
+                return "ID card number";
+            }
+            emails.add(dto.getEmail());
+            if (dto.getTaxId() != null) {
+                taxIds.add(dto.getTaxId());
+            }
+            if (dto.getTajNumber() != null) {
+                tajNumbers.add(dto.getTajNumber());
+            }
+            if (dto.getIdCardNumber() != null) {
+                idCardNumbers.add(dto.getIdCardNumber());
+            }
+            return null;
+        }
+    }
+}
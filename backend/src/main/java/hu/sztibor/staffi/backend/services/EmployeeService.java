@@ -1,5 +1,8 @@
 package hu.sztibor.staffi.backend.services;
 
+import hu.sztibor.staffi.backend.config.UserAuthProvider;
+import hu.sztibor.staffi.backend.dto.CursorPageDto;
+import hu.sztibor.staffi.backend.dto.SearchSuggestionDto;
 import hu.sztibor.staffi.backend.dto.employee.CreateEmployeeDto;
 import hu.sztibor.staffi.backend.dto.employee.EmployeeDto;
 import hu.sztibor.staffi.backend.dto.employee.UpdateEmployeeDto;
@@ -15,14 +18,19 @@ import hu.sztibor.staffi.backend.enums.AllocationStatus;
 import hu.sztibor.staffi.backend.enums.AuditAction;
 import hu.sztibor.staffi.backend.enums.Role;
 import hu.sztibor.staffi.backend.exceptions.AppException;
+import hu.sztibor.staffi.backend.exceptions.RoomFullException;
 import hu.sztibor.staffi.backend.mappers.EmployeeMapper;
 import hu.sztibor.staffi.backend.repositories.EmployeeRepository;
 import hu.sztibor.staffi.backend.repositories.RoomAllocationRepository;
 import hu.sztibor.staffi.backend.repositories.RoomRepository;
 import hu.sztibor.staffi.backend.repositories.UserRepository;
+import hu.sztibor.staffi.backend.utils.KeysetCursor;
+import hu.sztibor.staffi.backend.utils.TransactionUtils;
+import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
@@ -32,7 +40,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -40,6 +51,11 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class EmployeeService {
 
+    /** Maximum number of ids bound into a single IN clause */
+    private static final int ROOM_LOOKUP_BATCH_SIZE = 1000;
+
+    private static final Sort EMPLOYEE_KEYSET_SORT = Sort.by("user.lastName", "user.firstName", "id");
+
     private final EmployeeRepository employeeRepository;
     private final UserRepository userRepository;
     private final EmployeeMapper employeeMapper;
@@ -47,6 +63,10 @@ public class EmployeeService {
     private final RoomAllocationRepository roomAllocationRepository;
     private final RoomRepository roomRepository;
     private final AuditLogService auditLogService;
+    private final DashboardService dashboardService;
+    private final UserAuthProvider userAuthProvider;
+    private final UserSearchIndex userSearchIndex;
+    private final RoomOccupancyRegistry occupancyRegistry;
 
     /**
      * Get all employees with optional filters
@@ -54,16 +74,93 @@ public class EmployeeService {
      * Sorted alphabetically by last name, then first name
      */
     public List<EmployeeDto> getAllEmployees(Boolean isActive, String search) {
-        Specification<Employee> spec = (root, query, criteriaBuilder) -> {
+        List<Employee> employees = employeeRepository.findAll(employeeFilter(isActive, search));
+        return mapToEmployeeDtosWithRoom(employees);
+    }
+
+    /**
+     * Get one page of employees using keyset pagination
+     * Same filters and ordering as getAllEmployees, with id as the final tie-breaker
+     */
+    public CursorPageDto<EmployeeDto> getEmployeesPage(Boolean isActive, String search, String cursor, Integer limit) {
+        int pageSize = KeysetCursor.resolveLimit(limit);
+        Specification<Employee> spec = employeeFilter(isActive, search)
+                .and(KeysetCursor.seekAfter(KeysetCursor.decode(cursor),
+                        root -> root.get("user").get("lastName"),
+                        root -> root.get("user").get("firstName"),
+                        root -> root.get("id")));
+
+        List<Employee> employees = employeeRepository.findBy(spec,
+                query -> query.sortBy(EMPLOYEE_KEYSET_SORT).limit(pageSize + 1).all());
+
+        return KeysetCursor.toPage(employees, pageSize,
+                employee -> new KeysetCursor(employee.getUser().getLastName(),
+                        employee.getUser().getFirstName(), employee.getId()),
+                this::mapToEmployeeDtosWithRoom);
+    }
+
+    /**
+     * Suggest employees for a search-as-you-type box
+     * Served from UserSearchIndex, only the employee ids are read from the database
+     */
+    public List<SearchSuggestionDto> autocompleteEmployees(String term, Boolean isActive, Integer limit) {
+        if (term == null || term.isBlank()) {
+            return List.of();
+        }
+        int size = UserSearchIndex.resolveLimit(limit);
+
+        List<UserSearchIndex.SearchEntry> matches = userSearchIndex.autocomplete(term,
+                entry -> entry.role() == Role.EMPLOYEE && (isActive == null || entry.active() == isActive),
+                size);
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Long> employeeIds = new HashMap<>();
+        employeeRepository.findEmployeeIdsByUserIds(matches.stream().map(UserSearchIndex.SearchEntry::id).toList())
+                .forEach(row -> employeeIds.put(row.getUserId(), row.getEmployeeId()));
+
+        return matches.stream()
+                .filter(entry -> employeeIds.containsKey(entry.id()))
+                .map(entry -> SearchSuggestionDto.builder()
+                        .userId(entry.id())
+                        .employeeId(employeeIds.get(entry.id()))
+                        .firstName(entry.firstName())
+                        .lastName(entry.lastName())
+                        .email(entry.email())
+                        .role(entry.role())
+                        .isActive(entry.active())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Filters shared by the full and the paginated employee list
+     */
+    private Specification<Employee> employeeFilter(Boolean isActive, String search) {
+        boolean hasSearch = search != null && !search.trim().isEmpty();
+        Set<Long> matchingUserIds = hasSearch ? userSearchIndex.findUserIds(search).orElse(null) : null;
+
+        return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
 
+            // Load the user in the same query instead of one select per employee
+            if (query.getResultType() == Employee.class) {
+                root.fetch("user", JoinType.INNER);
+            }
+
             predicates.add(criteriaBuilder.equal(root.get("user").get("role"), Role.EMPLOYEE));
 
             if (isActive != null) {
                 predicates.add(criteriaBuilder.equal(root.get("user").get("isActive"), isActive));
             }
 
-            if (search != null && !search.trim().isEmpty()) {
+            if (matchingUserIds != null) {
+                predicates.add(matchingUserIds.isEmpty()
+                        ? criteriaBuilder.disjunction()
+                        : root.get("user").get("id").in(matchingUserIds));
+            } else if (hasSearch) {
+                // Index not loaded yet or term too unselective, search the database instead
                 String searchPattern = "%" + search.toLowerCase() + "%";
                 Predicate firstNameMatch = criteriaBuilder.like(
                     criteriaBuilder.lower(root.get("user").get("firstName")),
@@ -87,11 +184,6 @@ public class EmployeeService {
 
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
-
-        List<Employee> employees = employeeRepository.findAll(spec);
-        return employees.stream()
-                .map(this::mapToEmployeeDtoWithRoom)
-                .collect(Collectors.toList());
     }
 
     /**
@@ -237,6 +329,30 @@ public class EmployeeService {
         return dto;
     }
 
+    /**
+     * Map a list of employees to DTOs, resolving their current rooms with batched queries
+     */
+    private List<EmployeeDto> mapToEmployeeDtosWithRoom(List<Employee> employees) {
+        List<Long> employeeIds = employees.stream()
+                .map(Employee::getId)
+                .collect(Collectors.toList());
+
+        Map<Long, String> roomNumbers = new HashMap<>();
+        for (int from = 0; from < employeeIds.size(); from += ROOM_LOOKUP_BATCH_SIZE) {
+            List<Long> batch = employeeIds.subList(from, Math.min(from + ROOM_LOOKUP_BATCH_SIZE, employeeIds.size()));
+            roomAllocationRepository.findRoomNumbersByEmployeeIds(batch, AllocationStatus.ACTIVE)
+                    .forEach(row -> roomNumbers.putIfAbsent(row.getEmployeeId(), row.getRoomNumber()));
+        }
+
+        return employees.stream()
+                .map(employee -> {
+                    EmployeeDto dto = employeeMapper.toEmployeeDto(employee);
+                    dto.setRoomNumber(roomNumbers.get(employee.getId()));
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
     /**
      * Create new user (employee, HR, or admin)
      * - ADMIN users can create any role
@@ -312,6 +428,7 @@ public class EmployeeService {
                 .build();
 
         Employee saved = employeeRepository.save(employee);
+        TransactionUtils.afterCommit(() -> userSearchIndex.index(saved.getUser()));
 
         java.util.Map<String, Object> newValueMap = new java.util.HashMap<>();
         newValueMap.put("id", saved.getId());
@@ -325,6 +442,8 @@ public class EmployeeService {
         newValueMap.put("phoneNumber", saved.getPhoneNumber());
         newValueMap.put("isActive", saved.getUser().isActive());
 
+        dashboardService.invalidateStats();
+
         auditLogService.logAction(
             "Employee",
             saved.getId(),
@@ -423,6 +542,11 @@ public class EmployeeService {
         }
 
         Employee updated = employeeRepository.save(employee);
+        TransactionUtils.afterCommit(() -> userSearchIndex.index(updated.getUser()));
+
+        if (oldEmployee.getUser().isActive() && !updated.getUser().isActive()) {
+            userAuthProvider.invalidateUser(updated.getUser().getId());
+        }
 
         java.util.Map<String, Object> oldValueMap = new java.util.HashMap<>();
         oldValueMap.put("firstName", oldEmployee.getUser().getFirstName());
@@ -450,6 +574,8 @@ public class EmployeeService {
         newValueMap.put("primaryAddress", updated.getPrimaryAddress());
         newValueMap.put("isActive", updated.getUser().isActive());
 
+        dashboardService.invalidateStats();
+
         auditLogService.logAction(
             "Employee",
             updated.getId(),
@@ -470,6 +596,7 @@ public class EmployeeService {
         List<RoomAllocation> currentAllocations = roomAllocationRepository
                 .findByEmployeeIdAndStatus(employee.getId(), AllocationStatus.ACTIVE);
 
+        Long currentRoomId = null;
         if (!currentAllocations.isEmpty()) {
             String currentRoomNumber = currentAllocations.get(0).getRoom().getRoomNumber();
             if (currentRoomNumber.equals(newRoomNumber)) {
@@ -479,21 +606,24 @@ public class EmployeeService {
             currentAllocation.setCheckOutDate(java.time.LocalDate.now());
             currentAllocation.setStatus(AllocationStatus.CHECKED_OUT);
             roomAllocationRepository.save(currentAllocation);
+            currentRoomId = currentAllocation.getRoom().getId();
         }
 
         if (newRoomNumber.trim().isEmpty() || newRoomNumber.equalsIgnoreCase("null")) {
+            if (currentRoomId != null) {
+                occupancyRegistry.release(currentRoomId);
+            }
             return;
         }
 
-        Room newRoom = roomRepository.findAll().stream()
-                .filter(room -> room.getRoomNumber().equals(newRoomNumber))
-                .findFirst()
+        Room newRoom = roomRepository.findFirstByRoomNumberOrderByIdAsc(newRoomNumber)
                 .orElseThrow(() -> new AppException("Room " + newRoomNumber + " not found", HttpStatus.NOT_FOUND));
 
-        List<RoomAllocation> newRoomOccupants = roomAllocationRepository
-                .findByRoomIdAndStatus(newRoom.getId(), AllocationStatus.ACTIVE);
-        if (newRoomOccupants.size() >= newRoom.getCapacity()) {
-            throw new AppException("Room " + newRoomNumber + " is at full capacity", HttpStatus.BAD_REQUEST);
+        // Reserve against the net change, the bed being left counts as free for a move into the same room
+        try {
+            occupancyRegistry.move(currentRoomId, newRoom.getId(), employee.getCompanyName());
+        } catch (RoomFullException e) {
+            throw new RoomFullException("Room " + newRoomNumber + " is at full capacity");
         }
 
         RoomAllocation newAllocation = RoomAllocation.builder()
@@ -515,6 +645,10 @@ public class EmployeeService {
 
         employee.getUser().setActive(false);
         employeeRepository.save(employee);
+        TransactionUtils.afterCommit(() -> userSearchIndex.index(employee.getUser()));
+        userAuthProvider.invalidateUser(employee.getUser().getId());
+
+        dashboardService.invalidateStats();
 
         auditLogService.logAction(
             "Employee",
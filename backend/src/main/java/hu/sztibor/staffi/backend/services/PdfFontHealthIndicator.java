@@ -0,0 +1,28 @@
+package hu.sztibor.staffi.backend.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports which fonts contract PDFs are rendered with
+ * DEGRADED when the Helvetica fallback is in use, as Hungarian characters will not render correctly.
+ */
+@Component("pdfFonts")
+@RequiredArgsConstructor
+public class PdfFontHealthIndicator implements HealthIndicator {
+
+    public static final Status DEGRADED = new Status("DEGRADED", "Helvetica fallback in use, Hungarian characters may not render");
+
+    private final PdfFontRegistry pdfFontRegistry;
+
+    @Override
+    public Health health() {
+        return Health.status(pdfFontRegistry.isFallback() ? DEGRADED : Status.UP)
+                .withDetail("regular", pdfFontRegistry.getRegular().source())
+                .withDetail("bold", pdfFontRegistry.getBold().source())
+                .build();
+    }
+}
@@ -0,0 +1,102 @@
+package hu.sztibor.staffi.backend.services;
+
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Process-wide cache of the font programs used for contract PDFs
+ * Fonts are resolved and parsed once at startup; each document only wraps the shared
+ * program in its own PdfFont. Falls back to Helvetica when no Unicode TrueType font is installed.
+ */
+@Slf4j
+@Component
+public class PdfFontRegistry {
+
+    // Arial on Windows, DejaVu or Liberation on Linux/Mac - all support Hungarian characters
+    private static final List<String> REGULAR_FONT_PATHS = List.of(
+            "C:/Windows/Fonts/arial.ttf",
+            "/usr/share/fonts/truetype/dejavu/DejaVuSans.ttf",
+            "/usr/share/fonts/truetype/liberation/LiberationSans-Regular.ttf");
+
+    private static final List<String> BOLD_FONT_PATHS = List.of(
+            "C:/Windows/Fonts/arialbd.ttf",
+            "/usr/share/fonts/truetype/dejavu/DejaVuSans-Bold.ttf",
+            "/usr/share/fonts/truetype/liberation/LiberationSans-Bold.ttf");
+
+    private ResolvedFont regular;
+    private ResolvedFont bold;
+
+    @PostConstruct
+    protected void load() throws IOException {
+        regular = resolve(REGULAR_FONT_PATHS, StandardFonts.HELVETICA);
+        bold = resolve(BOLD_FONT_PATHS, StandardFonts.HELVETICA_BOLD);
+
+        if (isFallback()) {
+            log.warn("No Unicode-compatible TrueType fonts found on system. Using standard Helvetica font. " +
+                    "Hungarian special characters (ő, ű, ő, á, é, etc.) may not display correctly. " +
+                    "To fix: Ensure Arial (Windows), DejaVu or Liberation fonts are installed on the server.");
+        } else {
+            log.info("Contract PDF fonts loaded: regular={}, bold={}", regular.source(), bold.source());
+        }
+    }
+
+    /**
+     * Create a font for one document from the cached font program
+     * A PdfFont belongs to a single PdfDocument and must not be shared between documents.
+     */
+    public PdfFont createFont(boolean boldFont) {
+        ResolvedFont font = boldFont ? bold : regular;
+        return PdfFontFactory.createFont(font.program(), font.encoding());
+    }
+
+    public ResolvedFont getRegular() {
+        return regular;
+    }
+
+    public ResolvedFont getBold() {
+        return bold;
+    }
+
+    /**
+     * Whether any style fell back to a standard font without Hungarian glyphs
+     */
+    public boolean isFallback() {
+        return regular.fallback() || bold.fallback();
+    }
+
+    private ResolvedFont resolve(List<String> candidates, String fallbackFont) throws IOException {
+        for (String fontPath : candidates) {
+            if (!Files.isReadable(Paths.get(fontPath))) {
+                continue;
+            }
+            try {
+                // IDENTITY_H gives full Unicode support; TrueType fonts are embedded as subsets
+                return new ResolvedFont(FontProgramFactory.createFont(fontPath), PdfEncodings.IDENTITY_H,
+                        fontPath, false);
+            } catch (Exception e) {
+                log.debug("Could not load font {}, trying alternatives: {}", fontPath, e.getMessage());
+            }
+        }
+
+        return new ResolvedFont(FontProgramFactory.createFont(fallbackFont), PdfEncodings.WINANSI,
+                fallbackFont, true);
+    }
+
+    /**
+     * A parsed font program together with where it came from
+     */
+    public record ResolvedFont(FontProgram program, String encoding, String source, boolean fallback) {
+    }
+}
@@ -3,7 +3,6 @@ package hu.sztibor.staffi.backend.services;
 import com.itextpdf.kernel.colors.ColorConstants;
 import com.itextpdf.kernel.colors.DeviceRgb;
 import com.itextpdf.kernel.font.PdfFont;
-import com.itextpdf.kernel.font.PdfFontFactory;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.Document;
@@ -16,6 +15,7 @@ import com.itextpdf.layout.properties.UnitValue;
 import hu.sztibor.staffi.backend.entities.Contract;
 import hu.sztibor.staffi.backend.entities.Employee;
 import hu.sztibor.staffi.backend.entities.User;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -33,8 +33,11 @@ import java.time.format.DateTimeFormatter;
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class PdfGeneratorService {
 
+    private final PdfFontRegistry pdfFontRegistry;
+
     private static final String PDF_STORAGE_PATH = "contracts/pdfs/";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy. MM. dd.");
 
@@ -65,8 +68,8 @@ public class PdfGeneratorService {
 
             document.setMargins(50, 50, 50, 50);
 
-            PdfFont boldFont = createUnicodeFont(true);
-            PdfFont regularFont = createUnicodeFont(false);
+            PdfFont boldFont = pdfFontRegistry.createFont(true);
+            PdfFont regularFont = pdfFontRegistry.createFont(false);
 
             Employee employee = contract.getEmployee();
             User user = employee.getUser();
@@ -300,57 +303,4 @@ public class PdfGeneratorService {
             default -> status;
         };
     }
-
-    /**
-     * Create a Unicode-compatible font for Hungarian characters (ő, á, é, ű, etc.)
-     * Uses IDENTITY_H encoding which supports full Unicode character set
-     *
-     * @param bold Whether to create bold font
-     * @return PdfFont with Unicode support
-     * @throws IOException If font creation fails
-     */
-    private PdfFont createUnicodeFont(boolean bold) throws IOException {
-        try {
-            // Method 1: Try to load Windows system font (Arial supports Hungarian characters)
-            String fontPath = bold ?
-                    "C:/Windows/Fonts/arialbd.ttf" :  // Arial Bold
-                    "C:/Windows/Fonts/arial.ttf";      // Arial Regular
-
-            java.io.File fontFile = new java.io.File(fontPath);
-            if (fontFile.exists()) {
-                // Create font with IDENTITY_H encoding for full Unicode support
-                // TrueType fonts (.ttf) are automatically embedded
-                return PdfFontFactory.createFont(fontPath, com.itextpdf.io.font.PdfEncodings.IDENTITY_H);
-            }
-        } catch (Exception e) {
-            log.debug("Could not load Windows font, trying alternatives: {}", e.getMessage());
-        }
-
-        try {
-            // Method 2: Try Linux/Mac font paths (DejaVu and Liberation support Hungarian)
-            String[] fontPaths = bold ?
-                    new String[]{"/usr/share/fonts/truetype/dejavu/DejaVuSans-Bold.ttf",
-                                 "/usr/share/fonts/truetype/liberation/LiberationSans-Bold.ttf"} :
-                    new String[]{"/usr/share/fonts/truetype/dejavu/DejaVuSans.ttf",
-                                 "/usr/share/fonts/truetype/liberation/LiberationSans-Regular.ttf"};
-
-            for (String fontPath : fontPaths) {
-                java.io.File fontFile = new java.io.File(fontPath);
-                if (fontFile.exists()) {
-                    return PdfFontFactory.createFont(fontPath, com.itextpdf.io.font.PdfEncodings.IDENTITY_H);
-                }
-            }
-        } catch (Exception e) {
-            log.debug("Could not load Unix font, using fallback: {}", e.getMessage());
-        }
-
-        // Method 3: Fallback to standard fonts (LIMITED - may not support Hungarian special characters)
-        log.warn("No Unicode-compatible TrueType fonts found on system. Using standard Helvetica font. " +
-                "Hungarian special characters (ő, ű, ő, á, é, etc.) may not display correctly. " +
-                "To fix: Ensure Arial (Windows), DejaVu or Liberation fonts are installed on the server.");
-        return PdfFontFactory.createFont(
-                bold ? com.itextpdf.io.font.constants.StandardFonts.HELVETICA_BOLD :
-                       com.itextpdf.io.font.constants.StandardFonts.HELVETICA);
-    }
 }
-
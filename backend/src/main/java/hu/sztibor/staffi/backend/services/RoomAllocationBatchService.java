@@ -0,0 +1,415 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.dto.room.AllocationOperationDto;
+import hu.sztibor.staffi.backend.dto.room.AllocationOperationResultDto;
+import hu.sztibor.staffi.backend.dto.room.BulkAllocationDto;
+import hu.sztibor.staffi.backend.dto.room.BulkAllocationResultDto;
+import hu.sztibor.staffi.backend.entities.Room;
+import hu.sztibor.staffi.backend.enums.AllocationOperationStatus;
+import hu.sztibor.staffi.backend.enums.AllocationOperationType;
+import hu.sztibor.staffi.backend.enums.AllocationStatus;
+import hu.sztibor.staffi.backend.enums.AuditAction;
+import hu.sztibor.staffi.backend.exceptions.AppException;
+import hu.sztibor.staffi.backend.exceptions.RoomFullException;
+import hu.sztibor.staffi.backend.repositories.EmployeeRepository;
+import hu.sztibor.staffi.backend.repositories.RoomAllocationRepository;
+import hu.sztibor.staffi.backend.repositories.RoomAllocationRepository.EmployeeAllocation;
+import hu.sztibor.staffi.backend.repositories.RoomRepository;
+import hu.sztibor.staffi.backend.services.RoomOccupancyRegistry.BedChanges;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Check-ins, check-outs and room moves for a whole arrival or departure wave
+ * Every line is validated against one bulk read of employees, rooms and active allocations.
+ * Capacity is checked per room on the net effect of the batch, so employees can swap rooms
+ * that are full. Accepted lines are written in one transaction with batched statements.
+ * When a concurrent check-in takes the beds between the check and the reservation, the rooms
+ * are checked again and the lines that no longer fit fail on their own.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RoomAllocationBatchService {
+
+    static final int MAX_OPERATIONS = 500;
+
+    /** Reservations tried before the remaining lines are failed, each after a fresh capacity check */
+    static final int MAX_RESERVE_ATTEMPTS = 3;
+
+    private static final String CHECK_OUT_SQL = """
+            UPDATE room_allocations SET status = 'CHECKED_OUT', check_out_date = ?
+            WHERE id = ? AND status = 'ACTIVE'
+            """;
+
+    private static final String CHECK_IN_SQL = """
+            INSERT INTO room_allocations (room_id, employee_id, check_in_date, status, created_at)
+            VALUES (?, ?, ?, 'ACTIVE', ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EmployeeRepository employeeRepository;
+    private final RoomRepository roomRepository;
+    private final RoomAllocationRepository allocationRepository;
+    private final RoomOccupancyRegistry occupancyRegistry;
+    private final AuditLogService auditLogService;
+    private final DashboardService dashboardService;
+
+    /**
+     * Validate and apply a batch of allocation operations
+     * Valid lines are applied even when others fail, unless allOrNothing is set.
+     */
+    public BulkAllocationResultDto applyBatch(BulkAllocationDto dto) {
+        List<AllocationOperationDto> operations = dto.getOperations();
+        if (operations == null || operations.isEmpty()) {
+            throw new AppException("At least one operation is required", HttpStatus.BAD_REQUEST);
+        }
+        if (operations.size() > MAX_OPERATIONS) {
+            throw new AppException("A batch can contain at most " + MAX_OPERATIONS + " operations", HttpStatus.BAD_REQUEST);
+        }
+
+        LocalDate batchDate = dto.getDate() != null ? dto.getDate() : LocalDate.now();
+        AllocationOperationResultDto[] results = new AllocationOperationResultDto[operations.size()];
+
+        Set<Long> employeeIds = operations.stream()
+                .map(operation -> operation != null ? operation.getEmployeeId() : null)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> roomIds = operations.stream()
+                .map(operation -> operation != null ? operation.getRoomId() : null)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<Long, String> companies = new HashMap<>();
+        Map<Long, EmployeeAllocation> activeAllocations = new HashMap<>();
+        if (!employeeIds.isEmpty()) {
+            employeeRepository.findCompanyNamesByIds(employeeIds)
+                    .forEach(employee -> companies.put(employee.getEmployeeId(), employee.getCompanyName()));
+            allocationRepository.findAllocationsByEmployeeIds(employeeIds, AllocationStatus.ACTIVE)
+                    .forEach(allocation -> activeAllocations.putIfAbsent(allocation.getEmployeeId(), allocation));
+        }
+        Map<Long, Room> rooms = roomRepository.findAllById(roomIds).stream()
+                .collect(Collectors.toMap(Room::getId, Function.identity()));
+
+        List<PlannedOperation> planned = new ArrayList<>();
+        Set<Long> seenEmployees = new HashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            AllocationOperationDto operation = operations.get(i);
+            String error = validate(operation, seenEmployees, companies, rooms, activeAllocations);
+            if (error != null) {
+                results[i] = result(i, operation, AllocationOperationStatus.FAILED, null, error);
+                continue;
+            }
+
+            EmployeeAllocation current = activeAllocations.get(operation.getEmployeeId());
+            boolean leaves = operation.getType() != AllocationOperationType.CHECK_IN;
+            boolean arrives = operation.getType() != AllocationOperationType.CHECK_OUT;
+            planned.add(new PlannedOperation(
+                    i,
+                    operation,
+                    leaves ? current.getAllocationId() : null,
+                    leaves ? current.getRoomId() : null,
+                    leaves ? current.getRoomNumber() : null,
+                    arrives ? operation.getRoomId() : null,
+                    arrives ? rooms.get(operation.getRoomId()).getRoomNumber() : null,
+                    companies.get(operation.getEmployeeId()),
+                    operation.getDate() != null ? operation.getDate() : batchDate));
+        }
+
+        rejectOverbooked(planned, rooms, results);
+
+        for (int attempt = 1; !planned.isEmpty(); attempt++) {
+            if (dto.isAllOrNothing() && planned.size() < operations.size()) {
+                for (PlannedOperation operation : planned) {
+                    results[operation.index()] = result(operation.index(), operation.request(),
+                            AllocationOperationStatus.NOT_APPLIED, null, "Not applied because other operations failed");
+                }
+                break;
+            }
+
+            List<Long> allocationIds;
+            try {
+                allocationIds = transactionTemplate.execute(status -> write(planned));
+            } catch (RoomFullException e) {
+                // Beds were taken by a concurrent check-in after the capacity check
+                if (attempt == MAX_RESERVE_ATTEMPTS) {
+                    for (PlannedOperation operation : planned) {
+                        results[operation.index()] = result(operation.index(), operation.request(),
+                                AllocationOperationStatus.FAILED, null, "Room occupancy kept changing, please retry");
+                    }
+                    break;
+                }
+                rejectOverbooked(planned, rooms, results);
+                continue;
+            }
+
+            for (int i = 0; i < planned.size(); i++) {
+                PlannedOperation operation = planned.get(i);
+                results[operation.index()] = result(operation.index(), operation.request(),
+                        AllocationOperationStatus.APPLIED, allocationIds.get(i), null);
+            }
+            break;
+        }
+
+        int applied = (int) Arrays.stream(results)
+                .filter(result -> result.getStatus() == AllocationOperationStatus.APPLIED)
+                .count();
+        int failed = (int) Arrays.stream(results)
+                .filter(result -> result.getStatus() == AllocationOperationStatus.FAILED)
+                .count();
+        log.info("Bulk allocation applied {} of {} operations", applied, operations.size());
+
+        return BulkAllocationResultDto.builder()
+                .totalOperations(operations.size())
+                .applied(applied)
+                .failed(failed)
+                .results(List.of(results))
+                .build();
+    }
+
+    private static String validate(AllocationOperationDto operation, Set<Long> seenEmployees, Map<Long, String> companies,
+                                   Map<Long, Room> rooms, Map<Long, EmployeeAllocation> activeAllocations) {
+        if (operation == null || operation.getType() == null) {
+            return "Operation type is required";
+        }
+        if (operation.getEmployeeId() == null) {
+            return "Employee ID is required";
+        }
+        if (!companies.containsKey(operation.getEmployeeId())) {
+            return "Employee not found";
+        }
+        if (!seenEmployees.add(operation.getEmployeeId())) {
+            return "Employee appears more than once in the batch";
+        }
+
+        EmployeeAllocation current = activeAllocations.get(operation.getEmployeeId());
+        if (operation.getType() != AllocationOperationType.CHECK_OUT) {
+            if (operation.getRoomId() == null) {
+                return "Room ID is required";
+            }
+            if (!rooms.containsKey(operation.getRoomId())) {
+                return "Room not found";
+            }
+        }
+
+        return switch (operation.getType()) {
+            case CHECK_IN -> current != null
+                    ? "Employee already has an active room allocation in room " + current.getRoomNumber()
+                    : null;
+            case CHECK_OUT -> current == null ? "Employee has no active room allocation" : null;
+            case MOVE -> current == null
+                    ? "Employee has no active room allocation"
+                    : current.getRoomId().equals(operation.getRoomId())
+                    ? "Employee already lives in room " + current.getRoomNumber()
+                    : null;
+        };
+    }
+
+    /**
+     * Fail the last arrivals into every room that cannot hold the batch's net arrivals
+     * Dropping a move keeps its employee in the old room, so this repeats until every room fits.
+     */
+    private void rejectOverbooked(List<PlannedOperation> planned, Map<Long, Room> rooms,
+                                  AllocationOperationResultDto[] results) {
+        Map<Long, Integer> freeBeds = new HashMap<>();
+        while (true) {
+            Map<Long, Integer> net = netArrivals(planned);
+            boolean dropped = false;
+
+            for (Map.Entry<Long, Integer> entry : net.entrySet()) {
+                Long roomId = entry.getKey();
+                int excess = entry.getValue() - freeBeds.computeIfAbsent(roomId, occupancyRegistry::freeBeds);
+                for (int i = planned.size() - 1; i >= 0 && excess > 0; i--) {
+                    PlannedOperation operation = planned.get(i);
+                    if (roomId.equals(operation.toRoomId())) {
+                        results[operation.index()] = result(operation.index(), operation.request(),
+                                AllocationOperationStatus.FAILED, null,
+                                "Room " + rooms.get(roomId).getRoomNumber() + " is at full capacity");
+                        planned.remove(i);
+                        excess--;
+                        dropped = true;
+                    }
+                }
+            }
+
+            if (!dropped) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Arrivals minus departures per room, only rooms that gain occupants
+     */
+    private static Map<Long, Integer> netArrivals(List<PlannedOperation> planned) {
+        Map<Long, Integer> net = new LinkedHashMap<>();
+        for (PlannedOperation operation : planned) {
+            if (operation.toRoomId() != null) {
+                net.merge(operation.toRoomId(), 1, Integer::sum);
+            }
+            if (operation.fromRoomId() != null) {
+                net.merge(operation.fromRoomId(), -1, Integer::sum);
+            }
+        }
+        net.values().removeIf(value -> value <= 0);
+        return net;
+    }
+
+    /**
+     * Write the accepted operations, returns the resulting allocation id of each
+     */
+    private List<Long> write(List<PlannedOperation> planned) {
+        Map<Long, BedChanges> changes = new HashMap<>();
+        for (PlannedOperation operation : planned) {
+            if (operation.toRoomId() != null) {
+                changes.computeIfAbsent(operation.toRoomId(), id -> new BedChanges()).arrive(operation.companyName());
+            }
+            if (operation.fromRoomId() != null) {
+                changes.computeIfAbsent(operation.fromRoomId(), id -> new BedChanges()).depart();
+            }
+        }
+        occupancyRegistry.reserveBatch(changes);
+
+        List<PlannedOperation> departures = planned.stream().filter(operation -> operation.allocationId() != null).toList();
+        int[][] updated = jdbcTemplate.batchUpdate(CHECK_OUT_SQL, departures, departures.size(), (ps, operation) -> {
+            ps.setDate(1, Date.valueOf(operation.date()));
+            ps.setLong(2, operation.allocationId());
+        });
+        for (int[] chunk : updated) {
+            for (int count : chunk) {
+                if (count == 0) {
+                    throw new AppException("Allocations were changed by someone else, please retry", HttpStatus.CONFLICT);
+                }
+            }
+        }
+
+        List<PlannedOperation> arrivals = planned.stream().filter(operation -> operation.toRoomId() != null).toList();
+        Map<PlannedOperation, Long> newAllocationIds = new HashMap<>();
+        if (!arrivals.isEmpty()) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(
+                    connection -> connection.prepareStatement(CHECK_IN_SQL, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            PlannedOperation operation = arrivals.get(i);
+                            ps.setLong(1, operation.toRoomId());
+                            ps.setLong(2, operation.request().getEmployeeId());
+                            ps.setDate(3, Date.valueOf(operation.date()));
+                            ps.setTimestamp(4, now);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return arrivals.size();
+                        }
+                    },
+                    keys);
+            // Only the id column is requested, its key name differs between databases
+            List<Map<String, Object>> keyList = keys.getKeyList();
+            for (int i = 0; i < arrivals.size(); i++) {
+                newAllocationIds.put(arrivals.get(i), ((Number) keyList.get(i).values().iterator().next()).longValue());
+            }
+        }
+
+        List<Long> allocationIds = planned.stream()
+                .map(operation -> operation.toRoomId() != null ? newAllocationIds.get(operation) : operation.allocationId())
+                .toList();
+
+        dashboardService.invalidateStats();
+
+        // One entry per allocation, as for single check-ins and check-outs; a move closes one and opens another
+        for (int i = 0; i < planned.size(); i++) {
+            PlannedOperation operation = planned.get(i);
+            Long employeeId = operation.request().getEmployeeId();
+            if (operation.allocationId() != null) {
+                Map<String, Object> oldValueMap = new HashMap<>();
+                oldValueMap.put("status", "ACTIVE");
+                oldValueMap.put("checkOutDate", null);
+
+                Map<String, Object> newValueMap = new HashMap<>();
+                newValueMap.put("status", AllocationStatus.CHECKED_OUT.name());
+                newValueMap.put("checkOutDate", operation.date());
+
+                auditLogService.logAction(
+                    "RoomAllocation",
+                    operation.allocationId(),
+                    AuditAction.UPDATE,
+                    String.format("Employee %d checked out from room %s (bulk allocation)",
+                        employeeId, operation.fromRoomNumber()),
+                    oldValueMap,
+                    newValueMap
+                );
+            }
+            if (operation.toRoomId() != null) {
+                Map<String, Object> newValueMap = new HashMap<>();
+                newValueMap.put("id", allocationIds.get(i));
+                newValueMap.put("roomId", operation.toRoomId());
+                newValueMap.put("roomNumber", operation.toRoomNumber());
+                newValueMap.put("employeeId", employeeId);
+                newValueMap.put("checkInDate", operation.date());
+                newValueMap.put("status", AllocationStatus.ACTIVE.name());
+
+                auditLogService.logAction(
+                    "RoomAllocation",
+                    allocationIds.get(i),
+                    AuditAction.CREATE,
+                    String.format("Employee %d checked into room %s (bulk allocation)",
+                        employeeId, operation.toRoomNumber()),
+                    null,
+                    newValueMap
+                );
+            }
+        }
+
+        return allocationIds;
+    }
+
+    private static AllocationOperationResultDto result(int index, AllocationOperationDto operation,
+                                                       AllocationOperationStatus status, Long allocationId, String message) {
+        return AllocationOperationResultDto.builder()
+                .index(index)
+                .type(operation != null ? operation.getType() : null)
+                .employeeId(operation != null ? operation.getEmployeeId() : null)
+                .roomId(operation != null ? operation.getRoomId() : null)
+                .status(status)
+                .allocationId(allocationId)
+                .message(message)
+                .build();
+    }
+
+    /**
+     * A validated operation; fromRoomId and allocationId refer to the allocation being closed
+     */
+    private record PlannedOperation(int index, AllocationOperationDto request, Long allocationId, Long fromRoomId,
+                                    String fromRoomNumber, Long toRoomId, String toRoomNumber, String companyName,
+                                    LocalDate date) {
+    }
+}
@@ -0,0 +1,298 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.dto.room.ProposedAssignmentDto;
+import hu.sztibor.staffi.backend.dto.room.RoomAssignmentProposalDto;
+import hu.sztibor.staffi.backend.dto.room.RoomAssignmentRequestDto;
+import hu.sztibor.staffi.backend.dto.room.UnassignedEmployeeDto;
+import hu.sztibor.staffi.backend.entities.Room;
+import hu.sztibor.staffi.backend.enums.AllocationStatus;
+import hu.sztibor.staffi.backend.exceptions.AppException;
+import hu.sztibor.staffi.backend.repositories.EmployeeRepository;
+import hu.sztibor.staffi.backend.repositories.EmployeeRepository.EmployeeProfile;
+import hu.sztibor.staffi.backend.repositories.RoomAllocationRepository;
+import hu.sztibor.staffi.backend.repositories.RoomAllocationRepository.EmployeeAllocation;
+import hu.sztibor.staffi.backend.repositories.RoomRepository;
+import hu.sztibor.staffi.backend.services.RoomOccupancyRegistry.RoomVacancy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Proposes rooms for a batch of arriving employees
+ * Works on the occupancy registry's free beds and the company / nationality mix of those rooms,
+ * both read once. Nothing is saved; the proposal is applied through the bulk allocation endpoint.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RoomAssignmentService {
+
+    static final int MAX_EMPLOYEES = 2000;
+
+    private final EmployeeRepository employeeRepository;
+    private final RoomRepository roomRepository;
+    private final RoomAllocationRepository allocationRepository;
+    private final RoomOccupancyRegistry occupancyRegistry;
+
+    public RoomAssignmentProposalDto proposeAssignments(RoomAssignmentRequestDto dto) {
+        if (dto.getEmployeeIds() == null || dto.getEmployeeIds().isEmpty()) {
+            throw new AppException("At least one employee is required", HttpStatus.BAD_REQUEST);
+        }
+        Set<Long> employeeIds = dto.getEmployeeIds().stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (employeeIds.size() > MAX_EMPLOYEES) {
+            throw new AppException("At most " + MAX_EMPLOYEES + " employees can be assigned at once", HttpStatus.BAD_REQUEST);
+        }
+        Set<Long> accommodationIds = dto.getAccommodationIds() == null ? Set.of() : dto.getAccommodationIds().stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<Long, EmployeeProfile> profiles = employeeRepository.findProfilesByIds(employeeIds).stream()
+                .collect(Collectors.toMap(EmployeeProfile::getEmployeeId, Function.identity()));
+        Map<Long, EmployeeAllocation> activeAllocations = new HashMap<>();
+        allocationRepository.findAllocationsByEmployeeIds(employeeIds, AllocationStatus.ACTIVE)
+                .forEach(allocation -> activeAllocations.putIfAbsent(allocation.getEmployeeId(), allocation));
+
+        List<UnassignedEmployeeDto> unassigned = new ArrayList<>();
+        List<Arrival> arrivals = new ArrayList<>();
+        for (Long employeeId : employeeIds) {
+            EmployeeProfile profile = profiles.get(employeeId);
+            EmployeeAllocation current = activeAllocations.get(employeeId);
+            if (profile == null) {
+                unassigned.add(new UnassignedEmployeeDto(employeeId, "Employee not found"));
+            } else if (current != null) {
+                unassigned.add(new UnassignedEmployeeDto(employeeId,
+                        "Employee already has an active room allocation in room " + current.getRoomNumber()));
+            } else {
+                arrivals.add(new Arrival(employeeId, profile.getCompanyName(), profile.getNationality()));
+            }
+        }
+
+        Long singleAccommodation = accommodationIds.size() == 1 ? accommodationIds.iterator().next() : null;
+        List<RoomState> rooms = new ArrayList<>();
+        for (RoomVacancy vacancy : occupancyRegistry.findVacancies(1, singleAccommodation, null)) {
+            if (accommodationIds.isEmpty() || accommodationIds.contains(vacancy.accommodationId())) {
+                rooms.add(new RoomState(vacancy.roomId(), vacancy.capacity() - vacancy.freeBeds(), vacancy.freeBeds()));
+            }
+        }
+        if (!rooms.isEmpty() && !arrivals.isEmpty()) {
+            Map<Long, RoomState> byId = rooms.stream().collect(Collectors.toMap(RoomState::roomId, Function.identity()));
+            allocationRepository.findOccupantGroupsByRoomIds(byId.keySet(), AllocationStatus.ACTIVE)
+                    .forEach(group -> byId.get(group.getRoomId())
+                            .addOccupants(group.getCompanyName(), group.getNationality(), group.getOccupants().intValue()));
+        }
+
+        long started = System.nanoTime();
+        Map<Long, RoomState> placements = plan(arrivals, rooms);
+        log.debug("Planned {} arrivals over {} rooms in {} ms",
+                arrivals.size(), rooms.size(), (System.nanoTime() - started) / 1_000_000);
+
+        Map<Long, Room> assignedRooms = roomRepository.findAllById(placements.values().stream()
+                        .map(RoomState::roomId)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Room::getId, Function.identity()));
+
+        List<ProposedAssignmentDto> assignments = new ArrayList<>();
+        for (Arrival arrival : arrivals) {
+            RoomState state = placements.get(arrival.employeeId());
+            Room room = state != null ? assignedRooms.get(state.roomId()) : null;
+            if (room == null) {
+                unassigned.add(new UnassignedEmployeeDto(arrival.employeeId(), "No free bed in the selected accommodations"));
+                continue;
+            }
+            EmployeeProfile profile = profiles.get(arrival.employeeId());
+            assignments.add(ProposedAssignmentDto.builder()
+                    .employeeId(arrival.employeeId())
+                    .employeeName(fullName(profile))
+                    .companyName(profile.getCompanyName())
+                    .nationality(profile.getNationality())
+                    .roomId(room.getId())
+                    .roomNumber(room.getRoomNumber())
+                    .accommodationId(room.getAccommodation().getId())
+                    .accommodationName(room.getAccommodation().getName())
+                    .openedRoom(state.initialOccupants() == 0)
+                    .build());
+        }
+
+        Set<RoomState> used = new HashSet<>(placements.values());
+        return RoomAssignmentProposalDto.builder()
+                .totalEmployees(employeeIds.size())
+                .assigned(assignments.size())
+                .roomsUsed(used.size())
+                .roomsOpened((int) used.stream().filter(state -> state.initialOccupants() == 0).count())
+                .assignments(assignments)
+                .unassigned(unassigned)
+                .build();
+    }
+
+    /**
+     * Greedy placement of arrivals, largest company / nationality group first
+     * Each group goes to the room that already hosts its company and nationality, then to partially
+     * occupied rooms, then to empty ones. Among those the smallest room that holds the rest of the group
+     * is taken, or the one with the most free beds when none does, so groups stay together and few
+     * rooms are opened. Every placement scans the rooms once, which keeps thousands of beds in the
+     * millisecond range.
+     *
+     * @return The room of every placed arrival by employee id; arrivals that did not fit are missing
+     */
+    static Map<Long, RoomState> plan(List<Arrival> arrivals, List<RoomState> rooms) {
+        Map<GroupKey, List<Arrival>> groups = arrivals.stream()
+                .collect(Collectors.groupingBy(
+                        arrival -> new GroupKey(normalize(arrival.companyName()), normalize(arrival.nationality())),
+                        LinkedHashMap::new,
+                        Collectors.toList()));
+        List<Map.Entry<GroupKey, List<Arrival>>> ordered = new ArrayList<>(groups.entrySet());
+        ordered.sort(Comparator.comparingInt(entry -> -entry.getValue().size()));
+
+        Map<Long, RoomState> placements = new LinkedHashMap<>();
+        for (Map.Entry<GroupKey, List<Arrival>> entry : ordered) {
+            GroupKey key = entry.getKey();
+            List<Arrival> members = entry.getValue();
+            int next = 0;
+            while (next < members.size()) {
+                RoomState room = bestRoom(rooms, key, members.size() - next);
+                if (room == null) {
+                    return placements;
+                }
+                int take = Math.min(room.freeBeds(), members.size() - next);
+                for (int i = 0; i < take; i++) {
+                    placements.put(members.get(next++).employeeId(), room);
+                }
+                room.place(key, take);
+            }
+        }
+        return placements;
+    }
+
+    private static RoomState bestRoom(List<RoomState> rooms, GroupKey key, int remaining) {
+        RoomState best = null;
+        for (RoomState room : rooms) {
+            if (room.freeBeds() > 0 && (best == null || compare(room, best, key, remaining) < 0)) {
+                best = room;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Negative when room a is the better choice for the rest of the group
+     */
+    private static int compare(RoomState a, RoomState b, GroupKey key, int remaining) {
+        int byAffinity = Integer.compare(b.affinity(key), a.affinity(key));
+        if (byAffinity != 0) {
+            return byAffinity;
+        }
+        int byOccupied = Boolean.compare(b.occupants() > 0, a.occupants() > 0);
+        if (byOccupied != 0) {
+            return byOccupied;
+        }
+        boolean aFits = a.freeBeds() >= remaining;
+        boolean bFits = b.freeBeds() >= remaining;
+        if (aFits != bFits) {
+            return aFits ? -1 : 1;
+        }
+        int byFreeBeds = aFits
+                ? Integer.compare(a.freeBeds(), b.freeBeds())
+                : Integer.compare(b.freeBeds(), a.freeBeds());
+        return byFreeBeds != 0 ? byFreeBeds : Long.compare(a.roomId(), b.roomId());
+    }
+
+    private static String normalize(String value) {
+        return value == null || value.isBlank() ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String fullName(EmployeeProfile profile) {
+        if (profile.getFirstName() == null && profile.getLastName() == null) {
+            return null;
+        }
+        return (Objects.toString(profile.getFirstName(), "") + " " + Objects.toString(profile.getLastName(), "")).trim();
+    }
+
+    record Arrival(Long employeeId, String companyName, String nationality) {
+    }
+
+    private record GroupKey(String companyName, String nationality) {
+    }
+
+    /**
+     * Free beds and occupant mix of one room while the plan is built
+     */
+    static final class RoomState {
+        private final long roomId;
+        private final int initialOccupants;
+        private int occupants;
+        private int freeBeds;
+        private final Map<String, Integer> companies = new HashMap<>();
+        private final Map<String, Integer> nationalities = new HashMap<>();
+
+        RoomState(long roomId, int occupants, int freeBeds) {
+            this.roomId = roomId;
+            this.initialOccupants = occupants;
+            this.occupants = occupants;
+            this.freeBeds = freeBeds;
+        }
+
+        long roomId() {
+            return roomId;
+        }
+
+        int initialOccupants() {
+            return initialOccupants;
+        }
+
+        int occupants() {
+            return occupants;
+        }
+
+        int freeBeds() {
+            return freeBeds;
+        }
+
+        /**
+         * Record the company and nationality of occupants already living in the room
+         */
+        void addOccupants(String companyName, String nationality, int count) {
+            String company = normalize(companyName);
+            String country = normalize(nationality);
+            if (company != null) {
+                companies.merge(company, count, Integer::sum);
+            }
+            if (country != null) {
+                nationalities.merge(country, count, Integer::sum);
+            }
+        }
+
+        private void place(GroupKey key, int count) {
+            addOccupants(key.companyName(), key.nationality(), count);
+            occupants += count;
+            freeBeds -= count;
+        }
+
+        private int affinity(GroupKey key) {
+            int score = 0;
+            if (key.companyName() != null && companies.containsKey(key.companyName())) {
+                score += 2;
+            }
+            if (key.nationality() != null && nationalities.containsKey(key.nationality())) {
+                score += 1;
+            }
+            return score;
+        }
+    }
+}
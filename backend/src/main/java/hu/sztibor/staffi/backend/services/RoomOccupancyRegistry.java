@@ -0,0 +1,642 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.exceptions.AppException;
+import hu.sztibor.staffi.backend.exceptions.RoomFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory bed counters for every room
+ * Check-ins reserve a bed under the room's lock before the allocation is inserted, so two
+ * concurrent check-ins can never overbook a room. A reservation stays pending until the
+ * transaction completes: it becomes an occupied bed on commit and is released on rollback.
+ * Check-outs and capacity increases only free beds once committed. Until then the room is
+ * marked in flight, so reconciliation cannot copy a count the callback is about to apply again.
+ * Counters are loaded at startup and verified against the database by a scheduled job.
+ * They are per JVM, so the guarantee holds for a single application instance.
+ * Rooms are also kept in a free-beds index together with the companies of their occupants,
+ * so vacancy searches never touch room_allocations. A check-out reloads the companies of its
+ * room once committed, as the employee may have changed company since checking in; the query
+ * runs outside the room's lock and its result is dropped when the room changed meanwhile.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RoomOccupancyRegistry {
+
+    private static final String LOAD_ALL_SQL = """
+            SELECT r.id, r.accommodation_id, r.capacity, COUNT(ra.id) AS occupied
+            FROM rooms r
+            LEFT JOIN room_allocations ra ON ra.room_id = r.id AND ra.status = 'ACTIVE'
+            GROUP BY r.id, r.accommodation_id, r.capacity
+            """;
+
+    private static final String LOAD_ROOM_SQL = """
+            SELECT r.id, r.accommodation_id, r.capacity, COUNT(ra.id) AS occupied
+            FROM rooms r
+            LEFT JOIN room_allocations ra ON ra.room_id = r.id AND ra.status = 'ACTIVE'
+            WHERE r.id = ?
+            GROUP BY r.id, r.accommodation_id, r.capacity
+            """;
+
+    private static final String LOAD_ALL_COMPANIES_SQL = """
+            SELECT ra.room_id AS id, e.company_name, COUNT(*) AS occupied
+            FROM room_allocations ra
+            JOIN employees e ON e.id = ra.employee_id
+            WHERE ra.status = 'ACTIVE'
+            GROUP BY ra.room_id, e.company_name
+            """;
+
+    private static final String LOAD_ROOM_COMPANIES_SQL = """
+            SELECT ra.room_id AS id, e.company_name, COUNT(*) AS occupied
+            FROM room_allocations ra
+            JOIN employees e ON e.id = ra.employee_id
+            WHERE ra.status = 'ACTIVE' AND ra.room_id = ?
+            GROUP BY ra.room_id, e.company_name
+            """;
+
+    private static final Comparator<Vacancy> VACANCY_ORDER = Comparator
+            .comparingInt(Vacancy::freeBeds)
+            .thenComparingLong(Vacancy::roomId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Long, RoomSlot> slots = new ConcurrentHashMap<>();
+
+    /** Every tracked room by free beds, ascending; each entry is replaced under its slot's lock */
+    private final NavigableSet<Vacancy> vacancies = new ConcurrentSkipListSet<>(VACANCY_ORDER);
+
+    private Counter driftCounter;
+
+    @PostConstruct
+    protected void registerMetrics() {
+        driftCounter = Counter.builder("staffi.occupancy.drift")
+                .description("Rooms whose in-memory occupancy was corrected by reconciliation")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Load the counters of all rooms with one query
+     * Rooms already loaded on demand in the meantime are kept.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<RoomCounts> counts = queryAll();
+        Map<Long, Map<String, Integer>> companies = queryAllCompanies();
+        counts.forEach(room -> track(room, companies.getOrDefault(room.roomId(), Map.of())));
+        log.info("Occupancy registry loaded with {} rooms", counts.size());
+    }
+
+    /**
+     * Start tracking a newly created room, once the transaction commits
+     */
+    public void register(Long roomId, Long accommodationId, int capacity) {
+        onCompletion(committed -> {
+            if (committed) {
+                track(new RoomCounts(roomId, accommodationId, capacity, 0), Map.of());
+            }
+        });
+    }
+
+    /**
+     * Reserve a bed for a check-in into the room
+     *
+     * @throws RoomFullException when the room is at full capacity
+     */
+    public void reserve(Long roomId) {
+        reserve(roomId, null);
+    }
+
+    /**
+     * Reserve a bed for a check-in of an employee of the given company
+     *
+     * @throws RoomFullException when the room is at full capacity
+     */
+    public void reserve(Long roomId, String companyName) {
+        RoomSlot slot = slot(roomId);
+        synchronized (slot) {
+            if (slot.committed + slot.pending >= slot.capacity) {
+                throw new RoomFullException("Room is at full capacity");
+            }
+            slot.pending++;
+            slot.inFlight++;
+            slot.version++;
+            reindex(slot);
+        }
+
+        onCompletion(committed -> {
+            synchronized (slot) {
+                slot.pending--;
+                slot.inFlight--;
+                if (committed) {
+                    slot.committed++;
+                    if (companyName != null) {
+                        slot.companies.merge(companyName, 1, Integer::sum);
+                    }
+                }
+                slot.version++;
+                reindex(slot);
+            }
+        });
+    }
+
+    /**
+     * Free a bed after a check-out, once the transaction commits
+     */
+    public void release(Long roomId) {
+        RoomSlot slot = slot(roomId);
+        synchronized (slot) {
+            slot.inFlight++;
+            slot.version++;
+        }
+
+        onCompletion(committed -> {
+            long version;
+            synchronized (slot) {
+                slot.inFlight--;
+                if (committed) {
+                    slot.committed = Math.max(0, slot.committed - 1);
+                }
+                slot.version++;
+                reindex(slot);
+                version = slot.version;
+            }
+            if (committed) {
+                reloadCompanies(slot, version);
+            }
+        });
+    }
+
+    /**
+     * Move an employee of the given company between rooms
+     * The target only has to hold the net arrival, so a move within one room always succeeds.
+     *
+     * @param fromRoomId Room being left, none when null
+     * @throws RoomFullException when the target room is at full capacity
+     */
+    public void move(Long fromRoomId, Long toRoomId, String companyName) {
+        Map<Long, BedChanges> changes = new HashMap<>();
+        if (fromRoomId != null) {
+            changes.computeIfAbsent(fromRoomId, id -> new BedChanges()).depart();
+        }
+        changes.computeIfAbsent(toRoomId, id -> new BedChanges()).arrive(companyName);
+        reserveBatch(changes);
+    }
+
+    /**
+     * Reserve the beds for a batch of check-ins and check-outs
+     * Each room only has to hold its net arrivals, so beds freed by the batch can be taken by
+     * arrivals of the same batch. Freed beds become available to others once committed.
+     *
+     * @throws RoomFullException when a room cannot hold its net arrivals; nothing stays reserved then
+     */
+    public void reserveBatch(Map<Long, BedChanges> changes) {
+        Map<RoomSlot, BedChanges> reserved = new HashMap<>();
+        try {
+            // Ascending room order keeps concurrent batches from interleaving their failures
+            for (Map.Entry<Long, BedChanges> entry : new TreeMap<>(changes).entrySet()) {
+                RoomSlot slot = slot(entry.getKey());
+                int arriving = Math.max(entry.getValue().net(), 0);
+                synchronized (slot) {
+                    if (slot.committed + slot.pending + arriving > slot.capacity) {
+                        throw new RoomFullException("Room " + entry.getKey() + " is at full capacity");
+                    }
+                    slot.pending += arriving;
+                    slot.inFlight++;
+                    slot.version++;
+                    reindex(slot);
+                }
+                reserved.put(slot, entry.getValue());
+            }
+        } catch (RuntimeException e) {
+            reserved.forEach((slot, change) -> {
+                synchronized (slot) {
+                    slot.pending -= Math.max(change.net(), 0);
+                    slot.inFlight--;
+                    slot.version++;
+                    reindex(slot);
+                }
+            });
+            throw e;
+        }
+
+        onCompletion(committed -> {
+            Map<RoomSlot, Long> reload = new HashMap<>();
+            reserved.forEach((slot, change) -> {
+                synchronized (slot) {
+                    slot.pending -= Math.max(change.net(), 0);
+                    slot.inFlight--;
+                    if (committed) {
+                        slot.committed = Math.max(0, slot.committed + change.net());
+                        if (change.departures() == 0) {
+                            change.arrivals().stream()
+                                    .filter(Objects::nonNull)
+                                    .forEach(company -> slot.companies.merge(company, 1, Integer::sum));
+                        }
+                    }
+                    slot.version++;
+                    reindex(slot);
+                    if (committed && change.departures() > 0) {
+                        reload.put(slot, slot.version);
+                    }
+                }
+            });
+            reload.forEach(this::reloadCompanies);
+        });
+    }
+
+    /**
+     * Change the capacity of a room
+     * A reduction takes effect immediately so no check-in can take a bed that is
+     * being removed; an increase only once the transaction commits.
+     *
+     * @throws AppException when the room holds more occupants than the new capacity
+     */
+    public void changeCapacity(Long roomId, int newCapacity) {
+        RoomSlot slot = slot(roomId);
+        int oldCapacity;
+        synchronized (slot) {
+            int occupied = slot.committed + slot.pending;
+            if (newCapacity < occupied) {
+                throw new AppException(
+                        "Cannot reduce capacity below current occupancy (" + occupied + " occupants)",
+                        HttpStatus.BAD_REQUEST
+                );
+            }
+            oldCapacity = slot.capacity;
+            slot.capacity = Math.min(oldCapacity, newCapacity);
+            slot.inFlight++;
+            slot.version++;
+            reindex(slot);
+        }
+
+        onCompletion(committed -> {
+            synchronized (slot) {
+                slot.inFlight--;
+                slot.capacity = committed ? newCapacity : oldCapacity;
+                slot.version++;
+                reindex(slot);
+            }
+        });
+    }
+
+    /**
+     * Forget a deleted room, once the transaction commits
+     */
+    public void remove(Long roomId) {
+        onCompletion(committed -> {
+            if (committed) {
+                untrack(roomId);
+            }
+        });
+    }
+
+    /**
+     * Number of occupied and reserved beds in the room
+     */
+    public int occupancy(Long roomId) {
+        RoomSlot slot = slot(roomId);
+        synchronized (slot) {
+            return slot.committed + slot.pending;
+        }
+    }
+
+    /**
+     * Number of beds in the room that are neither occupied nor reserved
+     */
+    public int freeBeds(Long roomId) {
+        RoomSlot slot = slot(roomId);
+        synchronized (slot) {
+            return slot.capacity - slot.committed - slot.pending;
+        }
+    }
+
+    /**
+     * Rooms with at least the given number of free beds, fewest free beds first
+     *
+     * @param accommodationId Only rooms of this accommodation, any when null
+     * @param companyName     Only rooms that are empty or hold employees of this company only, any when blank
+     */
+    public List<RoomVacancy> findVacancies(int minFreeBeds, Long accommodationId, String companyName) {
+        boolean anyCompany = companyName == null || companyName.isBlank();
+        List<RoomVacancy> result = new ArrayList<>();
+
+        for (Vacancy vacancy : vacancies.tailSet(new Vacancy(minFreeBeds, Long.MIN_VALUE), true)) {
+            RoomSlot slot = slots.get(vacancy.roomId());
+            if (slot == null || (accommodationId != null && !accommodationId.equals(slot.accommodationId))) {
+                continue;
+            }
+            synchronized (slot) {
+                // Entry replaced while iterating, the current one is visited at its new position
+                if (!vacancy.equals(slot.indexed)) {
+                    continue;
+                }
+                if (!anyCompany && !slot.companies.keySet().stream().allMatch(companyName.trim()::equalsIgnoreCase)) {
+                    continue;
+                }
+                result.add(new RoomVacancy(vacancy.roomId(), slot.accommodationId, slot.capacity, vacancy.freeBeds()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Verify the counters against the database and correct any drift
+     * Rooms changed while the query ran, or with a transaction still to complete, are skipped
+     * and checked on the next run.
+     */
+    @Scheduled(fixedDelayString = "${staffi.occupancy.reconcile-interval-ms:300000}",
+               initialDelayString = "${staffi.occupancy.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        Map<Long, Long> versions = new HashMap<>();
+        slots.forEach((roomId, slot) -> {
+            synchronized (slot) {
+                versions.put(roomId, slot.version);
+            }
+        });
+
+        List<RoomCounts> counts = queryAll();
+        Map<Long, Map<String, Integer>> companies = queryAllCompanies();
+        Set<Long> existing = new HashSet<>();
+        int corrected = 0;
+
+        for (RoomCounts room : counts) {
+            existing.add(room.roomId());
+            Map<String, Integer> roomCompanies = companies.getOrDefault(room.roomId(), Map.of());
+            RoomSlot slot = slots.get(room.roomId());
+            if (slot == null) {
+                track(room, roomCompanies);
+                continue;
+            }
+            synchronized (slot) {
+                Long seenVersion = versions.get(room.roomId());
+                if (seenVersion == null || slot.version != seenVersion || slot.inFlight > 0) {
+                    continue;
+                }
+                if (slot.committed != room.occupied() || slot.capacity != room.capacity()) {
+                    log.warn("Occupancy drift in room {}: memory {}/{}, database {}/{}", room.roomId(),
+                            slot.committed, slot.capacity, room.occupied(), room.capacity());
+                    slot.committed = room.occupied();
+                    slot.capacity = room.capacity();
+                    slot.version++;
+                    corrected++;
+                }
+                slot.accommodationId = room.accommodationId();
+                slot.companies.clear();
+                slot.companies.putAll(roomCompanies);
+                reindex(slot);
+            }
+        }
+
+        // Rooms deleted without going through remove()
+        versions.keySet().stream()
+                .filter(roomId -> !existing.contains(roomId))
+                .forEach(this::untrack);
+
+        if (corrected > 0) {
+            driftCounter.increment(corrected);
+        }
+        log.debug("Occupancy reconciliation checked {} rooms, corrected {}", counts.size(), corrected);
+    }
+
+    /**
+     * Slot of the room, loaded from the database on first use
+     * The queries run outside the map, so loading one room never blocks others sharing its bin;
+     * when two threads load the same room, the first one to publish its slot wins.
+     */
+    private RoomSlot slot(Long roomId) {
+        RoomSlot slot = slots.get(roomId);
+        if (slot != null) {
+            return slot;
+        }
+
+        List<RoomCounts> counts = jdbcTemplate.query(LOAD_ROOM_SQL, this::mapCounts, roomId);
+        if (counts.isEmpty()) {
+            throw new AppException("Room not found", HttpStatus.NOT_FOUND);
+        }
+        Map<String, Integer> companies = new HashMap<>();
+        jdbcTemplate.query(LOAD_ROOM_COMPANIES_SQL, this::mapCompanyCount, roomId)
+                .forEach(count -> addCompany(companies, count));
+
+        return track(counts.get(0), companies);
+    }
+
+    /**
+     * Replace the companies of the room with the committed ones, caller does not hold the slot's lock
+     * The result is only applied while the room is still at the given version with no transaction in
+     * flight, as the query may have seen commits whose callbacks are yet to merge their companies.
+     * Otherwise, or when the query fails, the companies are left to the next reconciliation.
+     */
+    private void reloadCompanies(RoomSlot slot, long version) {
+        Map<String, Integer> companies = new HashMap<>();
+        try {
+            jdbcTemplate.query(LOAD_ROOM_COMPANIES_SQL, this::mapCompanyCount, slot.roomId)
+                    .forEach(count -> addCompany(companies, count));
+        } catch (DataAccessException e) {
+            log.warn("Could not reload the companies of room {}", slot.roomId, e);
+            return;
+        }
+        synchronized (slot) {
+            if (slot.version == version && slot.inFlight == 0) {
+                slot.companies.clear();
+                slot.companies.putAll(companies);
+            }
+        }
+    }
+
+    /**
+     * Start tracking the room unless it is tracked already
+     *
+     * @return The slot now tracking the room
+     */
+    private RoomSlot track(RoomCounts room, Map<String, Integer> companies) {
+        RoomSlot slot = new RoomSlot(room, companies);
+        synchronized (slot) {
+            RoomSlot existing = slots.putIfAbsent(room.roomId(), slot);
+            if (existing != null) {
+                return existing;
+            }
+            reindex(slot);
+            return slot;
+        }
+    }
+
+    private void untrack(Long roomId) {
+        RoomSlot slot = slots.remove(roomId);
+        if (slot != null) {
+            synchronized (slot) {
+                slot.removed = true;
+                if (slot.indexed != null) {
+                    vacancies.remove(slot.indexed);
+                    slot.indexed = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Move the room to its current position in the free-beds index, caller holds the slot's lock
+     */
+    private void reindex(RoomSlot slot) {
+        if (slot.removed) {
+            return;
+        }
+        Vacancy current = new Vacancy(slot.capacity - slot.committed - slot.pending, slot.roomId);
+        if (current.equals(slot.indexed)) {
+            return;
+        }
+        if (slot.indexed != null) {
+            vacancies.remove(slot.indexed);
+        }
+        vacancies.add(current);
+        slot.indexed = current;
+    }
+
+    private List<RoomCounts> queryAll() {
+        return jdbcTemplate.query(LOAD_ALL_SQL, this::mapCounts);
+    }
+
+    private Map<Long, Map<String, Integer>> queryAllCompanies() {
+        Map<Long, Map<String, Integer>> companies = new HashMap<>();
+        jdbcTemplate.query(LOAD_ALL_COMPANIES_SQL, this::mapCompanyCount)
+                .forEach(count -> addCompany(companies.computeIfAbsent(count.roomId(), id -> new HashMap<>()), count));
+        return companies;
+    }
+
+    private static void addCompany(Map<String, Integer> companies, CompanyCount count) {
+        if (count.companyName() != null && count.occupants() > 0) {
+            companies.merge(count.companyName(), count.occupants(), Integer::sum);
+        }
+    }
+
+    private RoomCounts mapCounts(ResultSet rs, int rowNum) throws SQLException {
+        return new RoomCounts(rs.getLong("id"), rs.getObject("accommodation_id", Long.class),
+                rs.getInt("capacity"), rs.getInt("occupied"));
+    }
+
+    private CompanyCount mapCompanyCount(ResultSet rs, int rowNum) throws SQLException {
+        return new CompanyCount(rs.getLong("id"), rs.getString("company_name"), rs.getInt("occupied"));
+    }
+
+    /**
+     * Run the callback when the current transaction completes, immediately (as committed) without one
+     */
+    private static void onCompletion(CompletionCallback callback) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    callback.completed(status == STATUS_COMMITTED);
+                }
+            });
+        } else {
+            callback.completed(true);
+        }
+    }
+
+    @FunctionalInterface
+    private interface CompletionCallback {
+        void completed(boolean committed);
+    }
+
+    private record RoomCounts(long roomId, Long accommodationId, int capacity, int occupied) {
+    }
+
+    private record CompanyCount(long roomId, String companyName, int occupants) {
+    }
+
+    /**
+     * Free beds of a room as a key of the vacancy index
+     */
+    private record Vacancy(int freeBeds, long roomId) {
+    }
+
+    /**
+     * Companies of the employees checking into one room in a batch, and the number checking out
+     */
+    public static final class BedChanges {
+        private final List<String> arrivals = new ArrayList<>();
+        private int departures;
+
+        public void arrive(String companyName) {
+            arrivals.add(companyName);
+        }
+
+        public void depart() {
+            departures++;
+        }
+
+        public List<String> arrivals() {
+            return arrivals;
+        }
+
+        public int departures() {
+            return departures;
+        }
+
+        public int net() {
+            return arrivals.size() - departures;
+        }
+    }
+
+    /**
+     * A room with free beds, as returned by findVacancies
+     */
+    public record RoomVacancy(long roomId, Long accommodationId, int capacity, int freeBeds) {
+    }
+
+    /**
+     * Counters of one room, guarded by the slot's own monitor
+     */
+    private static final class RoomSlot {
+        private final long roomId;
+        private Long accommodationId;
+        private int capacity;
+        private int committed;
+        private int pending;
+        /** Transactions that changed the room and have not completed yet */
+        private int inFlight;
+        private long version;
+        /** Committed occupants per company */
+        private final Map<String, Integer> companies;
+        /** Entry of this room currently in the vacancy index */
+        private Vacancy indexed;
+        private boolean removed;
+
+        private RoomSlot(RoomCounts counts, Map<String, Integer> companies) {
+            this.roomId = counts.roomId();
+            this.accommodationId = counts.accommodationId();
+            this.capacity = counts.capacity();
+            this.committed = counts.occupied();
+            this.companies = new HashMap<>(companies);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.exceptions.AppException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Server-Sent Events fan-out shared by the live audit tail and the dashboard push
+ * Subscribers are drained on a small sender pool, by at most one thread each at a time, so a
+ * slow client never holds up the others or the publishing code. The owner decides what a
+ * subscriber is sent through the drain callback; this class handles the subscriber set,
+ * heartbeats and disconnects.
+ */
+@Slf4j
+public class SseFanout<S extends SseFanout.Subscriber> {
+
+    private final String description;
+    private final int maxSubscribers;
+    private final Drain<S> drainer;
+    private final Predicate<S> hasPending;
+
+    private final Set<S> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService sender;
+
+    /**
+     * @param description Shown in errors and logs, e.g. "live audit log"
+     * @param hasPending  Whether the subscriber has something unsent, checked after each drain
+     */
+    public SseFanout(String description, String threadPrefix, int senderThreads, int maxSubscribers,
+                     Drain<S> drain, Predicate<S> hasPending) {
+        this.description = description;
+        this.maxSubscribers = maxSubscribers;
+        this.drainer = drain;
+        this.hasPending = hasPending;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, threadPrefix + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void registerGauge(MeterRegistry meterRegistry, String name, String gaugeDescription) {
+        Gauge.builder(name, subscribers, Set::size)
+                .description(gaugeDescription)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Fail fast before a subscriber is prepared
+     *
+     * @throws AppException when the subscriber limit is reached
+     */
+    public void checkCapacity() {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new AppException("Too many " + description + " subscribers", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    /**
+     * Start serving the subscriber and send it what is pending
+     */
+    public void add(S subscriber) {
+        checkCapacity();
+        SseEmitter emitter = subscriber.emitter();
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> subscribers.remove(subscriber));
+
+        subscribers.add(subscriber);
+        schedule(subscriber);
+    }
+
+    public boolean isEmpty() {
+        return subscribers.isEmpty();
+    }
+
+    /**
+     * Wake up every subscriber after something was published
+     */
+    public void publish() {
+        subscribers.forEach(this::schedule);
+    }
+
+    /**
+     * Keep idle connections from being closed by proxies
+     */
+    public void heartbeat() {
+        for (S subscriber : subscribers) {
+            sender.execute(() -> {
+                try {
+                    subscriber.emitter().send(SseEmitter.event().comment("keepalive"));
+                } catch (IOException | IllegalStateException e) {
+                    drop(subscriber, e);
+                }
+            });
+        }
+    }
+
+    public void close() {
+        subscribers.forEach(subscriber -> subscriber.emitter().complete());
+        sender.shutdownNow();
+    }
+
+    private void schedule(S subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(S subscriber) {
+        try {
+            drainer.drain(subscriber);
+        } catch (IOException | IllegalStateException e) {
+            drop(subscriber, e);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+
+        // Published after the last pass but before draining was cleared
+        if (hasPending.test(subscriber)) {
+            schedule(subscriber);
+        }
+    }
+
+    private void drop(S subscriber, Exception cause) {
+        if (subscribers.remove(subscriber)) {
+            log.debug("Subscriber of the {} feed disconnected: {}", description, cause.getMessage());
+            subscriber.emitter().completeWithError(cause);
+        }
+    }
+
+    /**
+     * Send the subscriber everything it has not been sent yet
+     */
+    @FunctionalInterface
+    public interface Drain<S> {
+        void drain(S subscriber) throws IOException;
+    }
+
+    public static class Subscriber {
+
+        private final SseEmitter emitter;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        protected Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        public SseEmitter emitter() {
+            return emitter;
+        }
+    }
+}
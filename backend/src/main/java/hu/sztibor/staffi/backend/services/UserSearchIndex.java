@@ -0,0 +1,379 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.entities.User;
+import hu.sztibor.staffi.backend.enums.Role;
+import hu.sztibor.staffi.backend.exceptions.AppException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory trigram index over user first name, last name and email
+ * Matching is case- and accent-insensitive (e.g. "ozd" finds "Őzdi").
+ * Loaded once at startup; the services that change users index them once their transaction
+ * has committed, so the index never holds uncommitted data. Until loading has finished,
+ * suggestions are read from the database instead.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserSearchIndex {
+
+    public static final int DEFAULT_SUGGESTIONS = 10;
+    public static final int MAX_SUGGESTIONS = 50;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final int GRAM_SIZE = 3;
+
+    private static final String LOAD_SQL =
+            "SELECT id, first_name, last_name, email, role, is_active FROM users";
+
+    private static final String SEARCH_SQL = """
+            SELECT id, first_name, last_name, email, role, is_active FROM users
+            WHERE LOWER(first_name) LIKE ? OR LOWER(last_name) LIKE ? OR LOWER(email) LIKE ?
+            ORDER BY last_name, first_name, id
+            LIMIT ?
+            """;
+
+    private static final Comparator<Ranked> BEST_FIRST = Comparator
+            .comparingInt(Ranked::score)
+            .thenComparing(ranked -> ranked.entry().lastName(), String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(ranked -> ranked.entry().firstName(), String.CASE_INSENSITIVE_ORDER)
+            .thenComparingLong(ranked -> ranked.entry().id());
+
+    @Value("${staffi.search.max-id-filter:5000}")
+    private int maxIdFilter;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Long, SearchEntry> entries = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean ready;
+
+    @PostConstruct
+    protected void registerMetrics() {
+        Gauge.builder("staffi.search.index.size", this, UserSearchIndex::size)
+                .description("Number of users in the search index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Load all users once the application has started
+     * Entries indexed after a commit in the meantime are newer and are kept.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.currentTimeMillis();
+        List<SearchEntry> loaded = jdbcTemplate.query(LOAD_SQL, UserSearchIndex::mapEntry);
+
+        lock.writeLock().lock();
+        try {
+            for (SearchEntry entry : loaded) {
+                if (!entries.containsKey(entry.id())) {
+                    put(entry);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        ready = true;
+        log.info("Search index loaded with {} users in {} ms", loaded.size(), System.currentTimeMillis() - started);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add or replace the entry of a user, call once the change is committed
+     */
+    public void index(User user) {
+        SearchEntry entry = SearchEntry.of(user.getId(), user.getFirstName(), user.getLastName(),
+                user.getEmail(), user.getRole(), user.isActive());
+
+        lock.writeLock().lock();
+        try {
+            put(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the entry of a user, call once the deletion is committed
+     */
+    public void remove(long userId) {
+        lock.writeLock().lock();
+        try {
+            delete(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of all users whose first name, last name or email contains the term
+     * Empty when the index cannot answer (not loaded yet, or too many matches to
+     * filter by id), in which case callers fall back to a database search.
+     */
+    public Optional<Set<Long>> findUserIds(String term) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        String folded = fold(term.trim());
+
+        lock.readLock().lock();
+        try {
+            Set<Long> result = new HashSet<>();
+            for (SearchEntry entry : candidates(folded)) {
+                if (entry.contains(folded)) {
+                    result.add(entry.id());
+                    if (result.size() > maxIdFilter) {
+                        return Optional.empty();
+                    }
+                }
+            }
+            return Optional.of(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Best matches for the term, exact and prefix matches first
+     * Before the index is loaded the candidates come from a database query, which matches
+     * case-insensitively but not accent-insensitively and reads at most max-id-filter users.
+     */
+    public List<SearchEntry> autocomplete(String term, Predicate<SearchEntry> filter, int limit) {
+        String folded = fold(term.trim());
+        if (folded.isEmpty()) {
+            return List.of();
+        }
+
+        if (!ready) {
+            String pattern = "%" + escapeLike(term.trim().toLowerCase(Locale.ROOT)) + "%";
+            List<SearchEntry> found = jdbcTemplate.query(SEARCH_SQL, UserSearchIndex::mapEntry,
+                    pattern, pattern, pattern, maxIdFilter);
+            return best(found, folded, filter, limit);
+        }
+
+        lock.readLock().lock();
+        try {
+            return best(candidates(folded), folded, filter, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Validate the requested number of suggestions, capping it at MAX_SUGGESTIONS
+     */
+    public static int resolveLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_SUGGESTIONS;
+        }
+        if (limit < 1) {
+            throw new AppException("Limit must be at least 1", HttpStatus.BAD_REQUEST);
+        }
+        return Math.min(limit, MAX_SUGGESTIONS);
+    }
+
+    /**
+     * Lower-case the text and strip diacritics
+     */
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private Iterable<SearchEntry> candidates(String folded) {
+        if (folded.length() < GRAM_SIZE) {
+            return entries.values();
+        }
+
+        // Intersect posting lists, smallest first
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : grams(folded)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return List.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        List<SearchEntry> result = new ArrayList<>();
+        for (Long id : lists.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < lists.size() && inAll; i++) {
+                inAll = lists.get(i).contains(id);
+            }
+            if (inAll) {
+                result.add(entries.get(id));
+            }
+        }
+        return result;
+    }
+
+    private void put(SearchEntry entry) {
+        delete(entry.id());
+        entries.put(entry.id(), entry);
+        for (String gram : entry.grams()) {
+            postings.computeIfAbsent(gram, key -> new HashSet<>()).add(entry.id());
+        }
+    }
+
+    private void delete(long id) {
+        SearchEntry previous = entries.remove(id);
+        if (previous != null) {
+            for (String gram : previous.grams()) {
+                Set<Long> ids = postings.get(gram);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<SearchEntry> best(Iterable<SearchEntry> candidates, String folded,
+                                          Predicate<SearchEntry> filter, int limit) {
+        // Max-heap of the best "limit" matches seen so far
+        PriorityQueue<Ranked> best = new PriorityQueue<>(limit + 1, BEST_FIRST.reversed());
+        for (SearchEntry entry : candidates) {
+            int score = entry.score(folded);
+            if (score < 0 || !filter.test(entry)) {
+                continue;
+            }
+            best.add(new Ranked(entry, score));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        List<Ranked> ranked = new ArrayList<>(best);
+        ranked.sort(BEST_FIRST);
+        return ranked.stream().map(Ranked::entry).toList();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static SearchEntry mapEntry(ResultSet rs, int rowNum) throws SQLException {
+        return SearchEntry.of(
+                rs.getLong("id"),
+                rs.getString("first_name"),
+                rs.getString("last_name"),
+                rs.getString("email"),
+                Role.valueOf(rs.getString("role")),
+                rs.getBoolean("is_active"));
+    }
+
+    private static Set<String> grams(String folded) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= folded.length(); i++) {
+            grams.add(folded.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    /**
+     * Indexed view of one user
+     */
+    public record SearchEntry(long id, String firstName, String lastName, String email, Role role, boolean active,
+                              String foldedFirstName, String foldedLastName, String foldedEmail) {
+
+        static SearchEntry of(long id, String firstName, String lastName, String email, Role role, boolean active) {
+            return new SearchEntry(id, firstName, lastName, email, role, active,
+                    fold(firstName), fold(lastName), fold(email));
+        }
+
+        boolean contains(String term) {
+            return foldedFirstName.contains(term) || foldedLastName.contains(term) || foldedEmail.contains(term);
+        }
+
+        /**
+         * Rank of the match: 0 exact, 1 name prefix, 2 word or email prefix, 3 substring, -1 no match
+         */
+        int score(String term) {
+            if (foldedFirstName.equals(term) || foldedLastName.equals(term) || foldedEmail.equals(term)) {
+                return 0;
+            }
+            if (foldedFirstName.startsWith(term) || foldedLastName.startsWith(term)) {
+                return 1;
+            }
+            if (foldedEmail.startsWith(term) || hasWordStartingWith(foldedFirstName, term)
+                    || hasWordStartingWith(foldedLastName, term)) {
+                return 2;
+            }
+            return contains(term) ? 3 : -1;
+        }
+
+        Set<String> grams() {
+            Set<String> grams = UserSearchIndex.grams(foldedFirstName);
+            grams.addAll(UserSearchIndex.grams(foldedLastName));
+            grams.addAll(UserSearchIndex.grams(foldedEmail));
+            return grams;
+        }
+
+        private static boolean hasWordStartingWith(String text, String term) {
+            int index = text.indexOf(term);
+            while (index > 0) {
+                char before = text.charAt(index - 1);
+                if (before == ' ' || before == '-') {
+                    return true;
+                }
+                index = text.indexOf(term, index + 1);
+            }
+            return false;
+        }
+    }
+
+    private record Ranked(SearchEntry entry, int score) {
+    }
+}
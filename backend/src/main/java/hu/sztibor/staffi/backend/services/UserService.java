@@ -1,5 +1,8 @@
 package hu.sztibor.staffi.backend.services;
 
+import hu.sztibor.staffi.backend.config.UserAuthProvider;
+import hu.sztibor.staffi.backend.dto.CursorPageDto;
+import hu.sztibor.staffi.backend.dto.SearchSuggestionDto;
 import hu.sztibor.staffi.backend.dto.auth.ChangePasswordDto;
 import hu.sztibor.staffi.backend.dto.auth.CredentialsDto;
 import hu.sztibor.staffi.backend.dto.auth.UserDto;
@@ -9,8 +12,11 @@ import hu.sztibor.staffi.backend.enums.Role;
 import hu.sztibor.staffi.backend.exceptions.AppException;
 import hu.sztibor.staffi.backend.mappers.UserMapper;
 import hu.sztibor.staffi.backend.repositories.UserRepository;
+import hu.sztibor.staffi.backend.utils.KeysetCursor;
+import hu.sztibor.staffi.backend.utils.TransactionUtils;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
@@ -22,16 +28,22 @@ import org.springframework.transaction.annotation.Transactional;
 import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
+    private static final Sort USER_KEYSET_SORT = Sort.by("lastName", "firstName", "id");
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final UserMapper userMapper;
     private final AuditLogService auditLogService;
+    private final DashboardService dashboardService;
+    private final UserAuthProvider userAuthProvider;
+    private final UserSearchIndex userSearchIndex;
 
     public UserDto login(CredentialsDto credentialsDto) {
         User user = userRepository.findUserByEmail(credentialsDto.email())
@@ -105,7 +117,65 @@ public class UserService {
      * Returns all users including ADMIN, HR, and EMPLOYEE roles
      */
     public List<UserDto> getAllUsers(String roleFilter, Boolean isActive, String search) {
-        Specification<User> spec = (root, query, criteriaBuilder) -> {
+        List<User> users = userRepository.findAll(userFilter(roleFilter, isActive, search));
+        return users.stream()
+                .map(userMapper::toUserDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get one page of users using keyset pagination (ADMIN only)
+     * Sorted by last name, first name and id
+     */
+    public CursorPageDto<UserDto> getUsersPage(String roleFilter, Boolean isActive, String search,
+                                               String cursor, Integer limit) {
+        int pageSize = KeysetCursor.resolveLimit(limit);
+        Specification<User> spec = userFilter(roleFilter, isActive, search)
+                .and(KeysetCursor.seekAfter(KeysetCursor.decode(cursor),
+                        root -> root.get("lastName"),
+                        root -> root.get("firstName"),
+                        root -> root.get("id")));
+
+        List<User> users = userRepository.findBy(spec,
+                query -> query.sortBy(USER_KEYSET_SORT).limit(pageSize + 1).all());
+
+        return KeysetCursor.toPage(users, pageSize,
+                user -> new KeysetCursor(user.getLastName(), user.getFirstName(), user.getId()),
+                page -> page.stream()
+                        .map(userMapper::toUserDto)
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Suggest users of any role for a search-as-you-type box (ADMIN only)
+     * Served entirely from UserSearchIndex
+     */
+    public List<SearchSuggestionDto> autocompleteUsers(String term, Integer limit) {
+        if (term == null || term.isBlank()) {
+            return List.of();
+        }
+        int size = UserSearchIndex.resolveLimit(limit);
+
+        return userSearchIndex.autocomplete(term, entry -> true, size).stream()
+                .map(entry -> SearchSuggestionDto.builder()
+                        .userId(entry.id())
+                        .firstName(entry.firstName())
+                        .lastName(entry.lastName())
+                        .email(entry.email())
+                        .role(entry.role())
+                        .isActive(entry.active())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Filters shared by the full and the paginated user list
+     */
+    private Specification<User> userFilter(String roleFilter, Boolean isActive, String search) {
+        boolean hasSearch = search != null && !search.trim().isEmpty();
+        Set<Long> matchingUserIds = hasSearch ? userSearchIndex.findUserIds(search).orElse(null) : null;
+
+        return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
 
             // Filter by role if provided
@@ -124,7 +194,12 @@ public class UserService {
             }
 
             // Search by name or email
-            if (search != null && !search.trim().isEmpty()) {
+            if (matchingUserIds != null) {
+                predicates.add(matchingUserIds.isEmpty()
+                        ? criteriaBuilder.disjunction()
+                        : root.get("id").in(matchingUserIds));
+            } else if (hasSearch) {
+                // Index not loaded yet or term too unselective, search the database instead
                 String searchPattern = "%" + search.toLowerCase() + "%";
                 Predicate firstNameMatch = criteriaBuilder.like(
                     criteriaBuilder.lower(root.get("firstName")),
@@ -143,11 +218,6 @@ public class UserService {
 
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
-
-        List<User> users = userRepository.findAll(spec);
-        return users.stream()
-                .map(userMapper::toUserDto)
-                .collect(Collectors.toList());
     }
 
     /**
@@ -183,6 +253,13 @@ public class UserService {
         boolean oldStatus = user.isActive();
         user.setActive(!oldStatus);
         User savedUser = userRepository.save(user);
+        TransactionUtils.afterCommit(() -> userSearchIndex.index(savedUser));
+
+        if (oldStatus) {
+            userAuthProvider.invalidateUser(savedUser.getId());
+        }
+
+        dashboardService.invalidateStats();
 
         auditLogService.logAction(
             "User",
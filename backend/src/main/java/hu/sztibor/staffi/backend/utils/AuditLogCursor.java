@@ -0,0 +1,78 @@
+package hu.sztibor.staffi.backend.utils;
+
+import hu.sztibor.staffi.backend.entities.AuditLog;
+import hu.sztibor.staffi.backend.exceptions.AppException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque position in the audit log sorted newest first by (timestamp, id)
+ * The next slice starts strictly before the last entry of the previous one,
+ * so reading deep into the log costs the same as reading the first slice.
+ */
+public record AuditLogCursor(LocalDateTime timestamp, Long id) {
+
+    public static final Sort SORT = Sort.by(Sort.Order.desc("timestamp"), Sort.Order.desc("id"));
+
+    private static final String SEPARATOR = "\u0000";
+
+    /**
+     * Cursor pointing at the given entry
+     */
+    public static AuditLogCursor of(AuditLog auditLog) {
+        return new AuditLogCursor(auditLog.getTimestamp(), auditLog.getId());
+    }
+
+    /**
+     * Encode the cursor as a URL-safe token
+     */
+    public String encode() {
+        String raw = timestamp + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token produced by encode(), null for the first slice
+     */
+    public static AuditLogCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, -1);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Unexpected cursor format");
+            }
+            return new AuditLogCursor(LocalDateTime.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new AppException("Invalid cursor", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Restrict the query to entries older than the cursor
+     * Matches everything when cursor is null, so it composes with the audit filters.
+     */
+    public static Specification<AuditLog> seekBefore(AuditLogCursor cursor) {
+        return (root, query, criteriaBuilder) -> {
+            if (cursor == null) {
+                return criteriaBuilder.conjunction();
+            }
+            // The plain upper bound lets PostgreSQL prune partitions newer than the cursor
+            return criteriaBuilder.and(
+                    criteriaBuilder.lessThanOrEqualTo(root.get("timestamp"), cursor.timestamp()),
+                    criteriaBuilder.or(
+                            criteriaBuilder.lessThan(root.get("timestamp"), cursor.timestamp()),
+                            criteriaBuilder.lessThan(root.get("id"), cursor.id())
+                    )
+            );
+        };
+    }
+}
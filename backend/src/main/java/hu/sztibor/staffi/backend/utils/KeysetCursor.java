@@ -0,0 +1,117 @@
+package hu.sztibor.staffi.backend.utils;
+
+import hu.sztibor.staffi.backend.dto.CursorPageDto;
+import hu.sztibor.staffi.backend.exceptions.AppException;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Opaque position in a list sorted by (lastName, firstName, id)
+ * Used for keyset (seek) pagination: the next page starts strictly after the
+ * last row of the previous one, so every page costs the same as the first.
+ */
+public record KeysetCursor(String lastName, String firstName, Long id) {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private static final String SEPARATOR = "\u0000";
+
+    /**
+     * Encode the cursor as a URL-safe token
+     */
+    public String encode() {
+        String raw = lastName + SEPARATOR + firstName + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token produced by encode(), null for the first page
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Unexpected cursor format");
+            }
+            return new KeysetCursor(parts[0], parts[1], Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new AppException("Invalid cursor", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Validate the requested page size, capping it at MAX_LIMIT
+     */
+    public static int resolveLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit < 1) {
+            throw new AppException("Limit must be at least 1", HttpStatus.BAD_REQUEST);
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    /**
+     * Restrict a query to rows sorted after the given cursor
+     * Matches only when cursor is null, so it composes with any filter specification.
+     */
+    public static <T> Specification<T> seekAfter(KeysetCursor cursor,
+                                                 Function<Root<T>, Path<String>> lastName,
+                                                 Function<Root<T>, Path<String>> firstName,
+                                                 Function<Root<T>, Path<Long>> id) {
+        return (root, query, criteriaBuilder) -> {
+            if (cursor == null) {
+                return criteriaBuilder.conjunction();
+            }
+            return after(criteriaBuilder, lastName.apply(root), firstName.apply(root), id.apply(root), cursor);
+        };
+    }
+
+    /**
+     * Build a page from rows fetched with limit + 1, the extra row only signals that more data exists
+     */
+    public static <E, D> CursorPageDto<D> toPage(List<E> rows, int limit,
+                                                 Function<E, KeysetCursor> keyOf,
+                                                 Function<List<E>, List<D>> mapper) {
+        boolean hasMore = rows.size() > limit;
+        List<E> pageRows = hasMore ? rows.subList(0, limit) : rows;
+
+        return CursorPageDto.<D>builder()
+                .items(mapper.apply(pageRows))
+                .nextCursor(hasMore ? keyOf.apply(pageRows.get(pageRows.size() - 1)).encode() : null)
+                .limit(limit)
+                .build();
+    }
+
+    private static Predicate after(CriteriaBuilder cb, Path<String> lastName, Path<String> firstName,
+                                   Path<Long> id, KeysetCursor cursor) {
+        return cb.or(
+                cb.greaterThan(lastName, cursor.lastName()),
+                cb.and(
+                        cb.equal(lastName, cursor.lastName()),
+                        cb.or(
+                                cb.greaterThan(firstName, cursor.firstName()),
+                                cb.and(
+                                        cb.equal(firstName, cursor.firstName()),
+                                        cb.greaterThan(id, cursor.id())
+                                )
+                        )
+                )
+        );
+    }
+}
@@ -0,0 +1,14 @@
+-- Creates the audit_log_counters table read by the audit log statistics.
+-- Run once before deploying the version that maintains the counters: ddl-auto is "validate",
+-- so the application does not start without the table.
+--
+-- The table is left empty here. On its first start AuditLogService.rebuildStatisticsIfEmpty
+-- fills it from audit_logs, afterwards AuditLogWriter keeps it up to date with every entry.
+
+CREATE TABLE IF NOT EXISTS audit_log_counters (
+    bucket_date DATE         NOT NULL,
+    entity_type VARCHAR(100) NOT NULL,
+    action      VARCHAR(20)  NOT NULL,
+    entry_count BIGINT       NOT NULL,
+    PRIMARY KEY (bucket_date, entity_type, action)
+);
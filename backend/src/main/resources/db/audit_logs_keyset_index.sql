@@ -0,0 +1,10 @@
+-- Creates the (timestamp, id) index the keyset slices of the audit log seek on (PostgreSQL).
+-- ddl-auto is "validate" and does not create indexes, so without it every slice sorts the table.
+-- Built concurrently, so it can run while the application is up, but not inside a transaction.
+--
+-- The plain timestamp index is a prefix of the new one and only costs writes afterwards.
+-- db/audit_logs_partitioning.sql reuses this index for the legacy partition, run this one first.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_audit_logs_timestamp_id ON audit_logs (timestamp, id);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_timestamp;
@@ -0,0 +1,75 @@
+-- Converts audit_logs into a table range-partitioned by month on "timestamp" (PostgreSQL 13+).
+-- Run once during a maintenance window with the application stopped, then set
+-- staffi.audit.partitioning.enabled=true so AuditLogPartitionManager creates the monthly
+-- partitions ahead of time and detaches the ones older than the retention period.
+--
+-- Existing rows before the current month stay in audit_logs_legacy, attached as the partition for
+-- everything before the current month. Rows of the current month are moved into its own partition,
+-- so the manager finds the current month already in place. The retention job retires the legacy
+-- partition once its last month is older than the retention period.
+--
+-- The partition key has to be part of the primary key, so the key becomes (id, timestamp).
+-- The AuditLog entity keeps id as its @Id: ids still come from one sequence and stay unique,
+-- only the database no longer enforces it on its own.
+
+BEGIN;
+
+ALTER TABLE audit_logs RENAME TO audit_logs_legacy;
+ALTER TABLE audit_logs_legacy ALTER COLUMN id DROP IDENTITY IF EXISTS;
+-- Index names are unique per schema, the legacy index from db/audit_logs_keyset_index.sql makes way
+-- for the partitioned one and is attached to it together with the legacy partition
+ALTER INDEX IF EXISTS idx_audit_logs_timestamp_id RENAME TO audit_logs_legacy_timestamp_id;
+
+CREATE SEQUENCE audit_logs_id_seq;
+SELECT setval('audit_logs_id_seq', COALESCE((SELECT MAX(id) FROM audit_logs_legacy), 0) + 1, false);
+
+CREATE TABLE audit_logs (
+    id          BIGINT       NOT NULL DEFAULT nextval('audit_logs_id_seq'),
+    entity_type VARCHAR(100) NOT NULL,
+    entity_id   BIGINT,
+    action      VARCHAR(20)  NOT NULL,
+    user_id     BIGINT,
+    user_email  VARCHAR(255),
+    user_role   VARCHAR(50),
+    description TEXT,
+    old_value   TEXT,
+    new_value   TEXT,
+    ip_address  VARCHAR(45),
+    timestamp   TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+ALTER SEQUENCE audit_logs_id_seq OWNED BY audit_logs.id;
+
+-- Created on every partition, each one only indexes its own month
+CREATE INDEX idx_audit_logs_timestamp_id ON audit_logs (timestamp, id);
+CREATE INDEX idx_audit_logs_entity ON audit_logs (entity_type, entity_id);
+CREATE INDEX idx_audit_logs_action ON audit_logs (action);
+CREATE INDEX idx_audit_logs_user_id ON audit_logs (user_id);
+
+-- Safety net for rows outside every monthly partition; stays empty while the manager is running
+CREATE TABLE audit_logs_default PARTITION OF audit_logs DEFAULT;
+
+DO $$
+DECLARE
+    month_start DATE := date_trunc('month', now())::date;
+    month_end   DATE := (date_trunc('month', now()) + INTERVAL '1 month')::date;
+BEGIN
+    -- Same name as AuditLogPartitionManager.partitionName
+    EXECUTE format('CREATE TABLE %I PARTITION OF audit_logs FOR VALUES FROM (%L) TO (%L)',
+                   'audit_logs_' || to_char(month_start, '"y"YYYY"m"MM'), month_start, month_end);
+
+    -- Rows of the current month and later move out of the legacy table, later ones land in the default partition
+    INSERT INTO audit_logs (id, entity_type, entity_id, action, user_id, user_email, user_role,
+                            description, old_value, new_value, ip_address, timestamp)
+    SELECT id, entity_type, entity_id, action, user_id, user_email, user_role,
+           description, old_value, new_value, ip_address, timestamp
+    FROM audit_logs_legacy
+    WHERE timestamp >= month_start;
+    DELETE FROM audit_logs_legacy WHERE timestamp >= month_start;
+
+    EXECUTE format('ALTER TABLE audit_logs ATTACH PARTITION audit_logs_legacy FOR VALUES FROM (MINVALUE) TO (%L)',
+                   month_start);
+END $$;
+
+COMMIT;
@@ -0,0 +1,22 @@
+-- Creates the dashboard_snapshots table behind the dashboard trends.
+-- Run once before deploying the version that writes the snapshots: ddl-auto is "validate",
+-- so the application does not start without the table.
+--
+-- DashboardSnapshotService adds one row per day from then on, earlier days have no snapshot.
+
+CREATE TABLE IF NOT EXISTS dashboard_snapshots (
+    snapshot_date             DATE         NOT NULL PRIMARY KEY,
+    total_employees           BIGINT       NOT NULL,
+    active_employees          BIGINT       NOT NULL,
+    total_rooms               BIGINT       NOT NULL,
+    occupied_rooms            BIGINT       NOT NULL,
+    total_capacity            BIGINT       NOT NULL,
+    current_occupancy         BIGINT       NOT NULL,
+    total_advance_requests    BIGINT       NOT NULL,
+    pending_advance_requests  BIGINT       NOT NULL,
+    approved_advance_requests BIGINT       NOT NULL,
+    rejected_advance_requests BIGINT       NOT NULL,
+    new_employees             BIGINT       NOT NULL,
+    check_ins                 BIGINT       NOT NULL,
+    created_at                TIMESTAMP(6) NOT NULL
+);
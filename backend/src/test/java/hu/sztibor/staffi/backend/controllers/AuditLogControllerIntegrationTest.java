@@ -0,0 +1,84 @@
+package hu.sztibor.staffi.backend.controllers;
+
+import hu.sztibor.staffi.backend.config.UserAuthProvider;
+import hu.sztibor.staffi.backend.dto.auth.UserDto;
+import hu.sztibor.staffi.backend.entities.User;
+import hu.sztibor.staffi.backend.enums.Role;
+import hu.sztibor.staffi.backend.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the streamed audit log export
+ * Covers the async dispatch that completes the response after the body was written
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class AuditLogControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserAuthProvider userAuthProvider;
+
+    private String adminToken;
+
+    @BeforeEach
+    void setUp() {
+        User admin = userRepository.save(User.builder()
+                .email("admin@example.com")
+                .password("password")
+                .firstName("Test")
+                .lastName("Admin")
+                .role(Role.ADMIN)
+                .isActive(true)
+                .build());
+        adminToken = userAuthProvider.createToken(UserDto.builder()
+                .id(admin.getId())
+                .email(admin.getEmail())
+                .firstName(admin.getFirstName())
+                .lastName(admin.getLastName())
+                .role(admin.getRole())
+                .build());
+    }
+
+    @Test
+    void exportAuditLogs_ShouldCompleteAsyncDispatch_WhenAuthenticatedWithBearerToken() throws Exception {
+        // Given
+        MvcResult started = mockMvc.perform(get("/audit-logs/export")
+                        .param("format", "CSV")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // When / Then
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"audit-logs.csv\""))
+                .andExpect(content().string(startsWith("id,entityType")));
+    }
+
+    @Test
+    void exportAuditLogs_ShouldReturn401_WhenTokenIsMissing() throws Exception {
+        mockMvc.perform(get("/audit-logs/export"))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -0,0 +1,120 @@
+package hu.sztibor.staffi.backend.controllers;
+
+import hu.sztibor.staffi.backend.config.UserAuthProvider;
+import hu.sztibor.staffi.backend.dto.auth.UserDto;
+import hu.sztibor.staffi.backend.entities.Contract;
+import hu.sztibor.staffi.backend.entities.Employee;
+import hu.sztibor.staffi.backend.entities.User;
+import hu.sztibor.staffi.backend.enums.Role;
+import hu.sztibor.staffi.backend.repositories.ContractRepository;
+import hu.sztibor.staffi.backend.repositories.EmployeeRepository;
+import hu.sztibor.staffi.backend.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the contract PDF status endpoint
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class ContractControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    @Autowired
+    private UserAuthProvider userAuthProvider;
+
+    private String hrToken;
+    private String employeeToken;
+    private Contract draft;
+
+    @BeforeEach
+    void setUp() {
+        hrToken = token(createUser("hr@example.com", Role.HR));
+        User employeeUser = createUser("employee@example.com", Role.EMPLOYEE);
+        employeeToken = token(employeeUser);
+
+        Employee employee = employeeRepository.save(Employee.builder()
+                .user(employeeUser)
+                .taxId("1234567890")
+                .startDate(LocalDate.now())
+                .build());
+        draft = contractRepository.save(Contract.builder()
+                .employee(employee)
+                .contractNumber("C-TEST-1")
+                .startDate(LocalDate.now())
+                .hourlyRate(new BigDecimal("2500.00"))
+                .build());
+    }
+
+    @Test
+    void getContractPdfStatus_ShouldReportNotQueued_WhenDraftHasNoJob() throws Exception {
+        mockMvc.perform(get("/contracts/" + draft.getId() + "/pdf/status")
+                        .header("Authorization", "Bearer " + hrToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.contractId").value(draft.getId()))
+                .andExpect(jsonPath("$.contractStatus").value("DRAFT"))
+                .andExpect(jsonPath("$.jobStatus").value("NOT_QUEUED"))
+                .andExpect(jsonPath("$.attempts").value(0))
+                .andExpect(jsonPath("$.pdfAvailable").value(false));
+    }
+
+    @Test
+    void getContractPdfStatus_ShouldReturn404_WhenContractNotFound() throws Exception {
+        mockMvc.perform(get("/contracts/999999/pdf/status")
+                        .header("Authorization", "Bearer " + hrToken))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getContractPdfStatus_ShouldReturn403_WhenAuthenticatedAsEmployee() throws Exception {
+        mockMvc.perform(get("/contracts/" + draft.getId() + "/pdf/status")
+                        .header("Authorization", "Bearer " + employeeToken))
+                .andExpect(status().isForbidden());
+    }
+
+    private User createUser(String email, Role role) {
+        return userRepository.save(User.builder()
+                .email(email)
+                .password("password")
+                .firstName("Test")
+                .lastName(role.name())
+                .role(role)
+                .isActive(true)
+                .build());
+    }
+
+    private String token(User user) {
+        return userAuthProvider.createToken(UserDto.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .role(user.getRole())
+                .build());
+    }
+}
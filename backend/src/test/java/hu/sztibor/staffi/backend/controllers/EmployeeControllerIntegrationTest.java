@@ -211,5 +211,43 @@ class EmployeeControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(0)));
     }
-}
 
+    @Test
+    void getEmployeesPage_ShouldFollowCursorToNextPage() throws Exception {
+        User secondUser = createUser("second@example.com", "Anna", "Zeller", Role.EMPLOYEE);
+        employeeRepository.save(Employee.builder()
+                .user(secondUser)
+                .taxId("2234567890")
+                .startDate(LocalDate.now())
+                .build());
+
+        String firstPage = mockMvc.perform(get("/employees")
+                        .param("limit", "1")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].lastName").value("Doe"))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+
+        String cursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        mockMvc.perform(get("/employees")
+                        .param("limit", "1")
+                        .param("cursor", cursor)
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].lastName").value("Zeller"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void getEmployeesPage_ShouldReturn400_WhenCursorIsInvalid() throws Exception {
+        mockMvc.perform(get("/employees")
+                        .param("limit", "10")
+                        .param("cursor", "not-a-cursor")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isBadRequest());
+    }
+}
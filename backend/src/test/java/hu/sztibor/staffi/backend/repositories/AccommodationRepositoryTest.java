@@ -0,0 +1,94 @@
+package hu.sztibor.staffi.backend.repositories;
+
+import hu.sztibor.staffi.backend.entities.Accommodation;
+import hu.sztibor.staffi.backend.entities.Room;
+import hu.sztibor.staffi.backend.enums.AllocationStatus;
+import hu.sztibor.staffi.backend.repositories.AccommodationRepository.AccommodationSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Repository layer tests for AccommodationRepository
+ * Covers the aggregate accommodation summaries
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+class AccommodationRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AccommodationRepository accommodationRepository;
+
+    private Accommodation hostel;
+    private Accommodation empty;
+
+    @BeforeEach
+    void setUp() {
+        RepositoryTestFixtures fixtures = new RepositoryTestFixtures(entityManager);
+        hostel = entityManager.persist(Accommodation.builder().name("Hostel").address("Main street 1").build());
+        empty = entityManager.persist(Accommodation.builder().name("Empty").address("Side street 2").build());
+
+        Room room101 = entityManager.persist(Room.builder().accommodation(hostel).roomNumber("101").capacity(4).build());
+        Room room102 = entityManager.persist(Room.builder().accommodation(hostel).roomNumber("102").capacity(2).build());
+
+        LocalDate checkIn = LocalDate.of(2025, 1, 1);
+        fixtures.allocate(room101, fixtures.employee("anna", "Acme"), checkIn, AllocationStatus.ACTIVE);
+        fixtures.allocate(room101, fixtures.employee("bela", "Acme"), checkIn, AllocationStatus.ACTIVE);
+        fixtures.allocate(room102, fixtures.employee("csaba", "Acme"), checkIn, AllocationStatus.ACTIVE);
+        fixtures.allocate(room102, fixtures.employee("dora", "Acme"), checkIn, AllocationStatus.CHECKED_OUT);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void findAllSummaries_ShouldAggregateRoomsAndActiveAllocations_WhenAccommodationsExist() {
+        // When
+        List<AccommodationSummary> summaries = accommodationRepository.findAllSummaries(AllocationStatus.ACTIVE);
+
+        // Then
+        assertThat(summaries).hasSize(2);
+        AccommodationSummary first = summaries.get(0);
+        assertThat(first.getId()).isEqualTo(hostel.getId());
+        assertThat(first.getRoomCount()).isEqualTo(2L);
+        assertThat(first.getTotalCapacity()).isEqualTo(6L);
+        assertThat(first.getCurrentOccupancy()).isEqualTo(3L);
+
+        AccommodationSummary second = summaries.get(1);
+        assertThat(second.getRoomCount()).isZero();
+        assertThat(second.getTotalCapacity()).isZero();
+        assertThat(second.getCurrentOccupancy()).isZero();
+    }
+
+    @Test
+    void findSummaryById_ShouldReturnEmpty_WhenAccommodationDoesNotExist() {
+        // When
+        Optional<AccommodationSummary> found = accommodationRepository.findSummaryById(-1L, AllocationStatus.ACTIVE);
+
+        // Then
+        assertThat(found).isEmpty();
+    }
+
+    @Test
+    void findSummaryById_ShouldReturnSummary_WhenAccommodationHasNoRooms() {
+        // When
+        Optional<AccommodationSummary> found = accommodationRepository.findSummaryById(empty.getId(), AllocationStatus.ACTIVE);
+
+        // Then
+        assertThat(found).isPresent();
+        assertThat(found.get().getName()).isEqualTo("Empty");
+        assertThat(found.get().getTotalCapacity()).isZero();
+    }
+}
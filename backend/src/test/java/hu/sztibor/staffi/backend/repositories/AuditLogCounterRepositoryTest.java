@@ -0,0 +1,89 @@
+package hu.sztibor.staffi.backend.repositories;
+
+import hu.sztibor.staffi.backend.entities.AuditLog;
+import hu.sztibor.staffi.backend.enums.AuditAction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Repository layer tests for AuditLogCounterRepository
+ * Covers the rebuild queries that recompute the counters from audit_logs
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+class AuditLogCounterRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AuditLogCounterRepository auditLogCounterRepository;
+
+    @BeforeEach
+    void setUp() {
+        persistLog("Employee", AuditAction.CREATE);
+        persistLog("Employee", AuditAction.CREATE);
+        persistLog("Employee", AuditAction.UPDATE);
+        persistLog("Contract", AuditAction.CREATE);
+        entityManager.flush();
+    }
+
+    @Test
+    void insertCountsFromAuditLogs_ShouldGroupByEntityTypeAndAction() {
+        int rows = auditLogCounterRepository.insertCountsFromAuditLogs();
+
+        assertThat(rows).isEqualTo(3);
+        assertThat(auditLogCounterRepository.sumByEntityTypeAndAction())
+                .extracting(AuditLogCounterRepository.CounterTotal::getEntityType,
+                        AuditLogCounterRepository.CounterTotal::getAction,
+                        AuditLogCounterRepository.CounterTotal::getTotal)
+                .containsExactlyInAnyOrder(
+                        tuple("Employee", AuditAction.CREATE, 2L),
+                        tuple("Employee", AuditAction.UPDATE, 1L),
+                        tuple("Contract", AuditAction.CREATE, 1L));
+    }
+
+    @Test
+    void sumByDaySince_ShouldReturnDailyTotals() {
+        auditLogCounterRepository.insertCountsFromAuditLogs();
+
+        List<AuditLogCounterRepository.DailyTotal> days =
+                auditLogCounterRepository.sumByDaySince(LocalDate.now().minusDays(6));
+
+        assertThat(days).hasSize(1);
+        assertThat(days.get(0).getBucketDate()).isEqualTo(LocalDate.now());
+        assertThat(days.get(0).getTotal()).isEqualTo(4L);
+    }
+
+    @Test
+    void deleteAllCounters_ShouldAllowRebuildingFromScratch() {
+        auditLogCounterRepository.insertCountsFromAuditLogs();
+
+        auditLogCounterRepository.deleteAllCounters();
+        int rows = auditLogCounterRepository.insertCountsFromAuditLogs();
+
+        assertThat(rows).isEqualTo(3);
+        assertThat(auditLogCounterRepository.count()).isEqualTo(3);
+    }
+
+    private void persistLog(String entityType, AuditAction action) {
+        entityManager.persist(AuditLog.builder()
+                .entityType(entityType)
+                .entityId(1L)
+                .action(action)
+                .userEmail("System")
+                .userRole("SYSTEM")
+                .description("test")
+                .build());
+    }
+}
@@ -0,0 +1,139 @@
+package hu.sztibor.staffi.backend.repositories;
+
+import hu.sztibor.staffi.backend.dto.DashboardStatsDto;
+import hu.sztibor.staffi.backend.entities.Accommodation;
+import hu.sztibor.staffi.backend.entities.AdvanceRequest;
+import hu.sztibor.staffi.backend.entities.Employee;
+import hu.sztibor.staffi.backend.entities.Room;
+import hu.sztibor.staffi.backend.enums.AdvanceStatus;
+import hu.sztibor.staffi.backend.enums.AllocationStatus;
+import hu.sztibor.staffi.backend.repositories.DashboardStatsRepository.DashboardCounts;
+import hu.sztibor.staffi.backend.services.DashboardService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Repository layer tests for DashboardStatsRepository
+ * Runs the aggregate query through DashboardService and pins the number of SQL statements it issues
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import({DashboardService.class, DashboardStatsRepository.class})
+class DashboardStatsRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private DashboardStatsRepository dashboardStatsRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        RepositoryTestFixtures fixtures = new RepositoryTestFixtures(entityManager);
+        Employee active = fixtures.employee("active", "Acme", true);
+        Employee inactive = fixtures.employee("inactive", "Acme", false);
+
+        Accommodation accommodation = entityManager.persist(Accommodation.builder()
+                .name("Test Accommodation")
+                .address("Test Address 1")
+                .build());
+        Room roomA = entityManager.persist(Room.builder()
+                .accommodation(accommodation)
+                .roomNumber("101")
+                .capacity(2)
+                .build());
+        entityManager.persist(Room.builder()
+                .accommodation(accommodation)
+                .roomNumber("102")
+                .capacity(3)
+                .build());
+
+        fixtures.allocate(roomA, active, LocalDate.now(), AllocationStatus.ACTIVE);
+        fixtures.allocate(roomA, inactive, LocalDate.now().minusYears(1), AllocationStatus.CHECKED_OUT)
+                .setCheckOutDate(LocalDate.now().minusMonths(6));
+
+        persistAdvance(active, AdvanceStatus.PENDING);
+        persistAdvance(active, AdvanceStatus.APPROVED);
+        persistAdvance(inactive, AdvanceStatus.REJECTED);
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getDashboardStats_ShouldIssueSingleQuery() {
+        // When
+        dashboardService.getDashboardStats();
+
+        // Then
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void getDashboardStats_ShouldReturnCorrectCounts() {
+        // When
+        DashboardStatsDto stats = dashboardService.getDashboardStats();
+
+        // Then
+        assertThat(stats.getTotalEmployees()).isEqualTo(2);
+        assertThat(stats.getActiveEmployees()).isEqualTo(1);
+        assertThat(stats.getInactiveEmployees()).isEqualTo(1);
+        assertThat(stats.getNewEmployeesThisMonth()).isEqualTo(2);
+        assertThat(stats.getTotalRooms()).isEqualTo(2);
+        assertThat(stats.getOccupiedRooms()).isEqualTo(1);
+        assertThat(stats.getAvailableRooms()).isEqualTo(1);
+        assertThat(stats.getTotalCapacity()).isEqualTo(5);
+        assertThat(stats.getCurrentOccupancy()).isEqualTo(1);
+        assertThat(stats.getCheckInsThisMonth()).isEqualTo(1);
+        assertThat(stats.getTotalAdvanceRequests()).isEqualTo(3);
+        assertThat(stats.getPendingAdvanceRequests()).isEqualTo(1);
+        assertThat(stats.getApprovedAdvanceRequests()).isEqualTo(1);
+        assertThat(stats.getRejectedAdvanceRequests()).isEqualTo(1);
+    }
+
+    @Test
+    void fetchCounts_ShouldOnlyCountFlowsInsidePeriod_WhenPeriodIsGiven() {
+        // Given
+        LocalDate lastYear = LocalDate.now().minusYears(1).withDayOfMonth(1);
+
+        // When
+        DashboardCounts counts = dashboardStatsRepository.fetchCounts(lastYear, lastYear.plusMonths(1));
+
+        // Then
+        assertThat(counts.newEmployeesThisMonth()).isZero();
+        assertThat(counts.checkInsThisMonth()).isEqualTo(1);
+        assertThat(counts.totalEmployees()).isEqualTo(2);
+        assertThat(counts.currentOccupancy()).isEqualTo(1);
+    }
+
+    private void persistAdvance(Employee employee, AdvanceStatus status) {
+        entityManager.persist(AdvanceRequest.builder()
+                .employee(employee)
+                .amount(new BigDecimal("50000.00"))
+                .status(status)
+                .build());
+    }
+}
@@ -0,0 +1,61 @@
+package hu.sztibor.staffi.backend.repositories;
+
+import hu.sztibor.staffi.backend.entities.Employee;
+import hu.sztibor.staffi.backend.entities.Room;
+import hu.sztibor.staffi.backend.entities.RoomAllocation;
+import hu.sztibor.staffi.backend.entities.User;
+import hu.sztibor.staffi.backend.enums.AllocationStatus;
+import hu.sztibor.staffi.backend.enums.Role;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDate;
+
+/**
+ * Persists the employees and allocations shared by the repository tests
+ * Unique fields of an employee are derived from its first name.
+ */
+final class RepositoryTestFixtures {
+
+    private final TestEntityManager entityManager;
+
+    RepositoryTestFixtures(TestEntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    Employee employee(String firstName, String companyName) {
+        return employee(firstName, companyName, true);
+    }
+
+    Employee employee(String firstName, String companyName, boolean isActive) {
+        User user = entityManager.persist(User.builder()
+                .email(firstName + "@example.com")
+                .password("hashedPassword123")
+                .firstName(firstName)
+                .lastName("Tester")
+                .role(Role.EMPLOYEE)
+                .isActive(isActive)
+                .build());
+
+        return entityManager.persist(Employee.builder()
+                .user(user)
+                .taxId(firstName + "-tax")
+                .tajNumber(firstName + "-taj")
+                .idCardNumber(firstName + "-id")
+                .primaryAddress("Test Address 123")
+                .phoneNumber("+36301234567")
+                .nationality("Hungarian")
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .companyName(companyName)
+                .startDate(LocalDate.now())
+                .build());
+    }
+
+    RoomAllocation allocate(Room room, Employee employee, LocalDate checkInDate, AllocationStatus status) {
+        return entityManager.persist(RoomAllocation.builder()
+                .room(room)
+                .employee(employee)
+                .checkInDate(checkInDate)
+                .status(status)
+                .build());
+    }
+}
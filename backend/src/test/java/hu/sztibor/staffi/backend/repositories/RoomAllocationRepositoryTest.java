@@ -0,0 +1,83 @@
+package hu.sztibor.staffi.backend.repositories;
+
+import hu.sztibor.staffi.backend.entities.Accommodation;
+import hu.sztibor.staffi.backend.entities.Room;
+import hu.sztibor.staffi.backend.enums.AllocationStatus;
+import hu.sztibor.staffi.backend.repositories.RoomAllocationRepository.RoomOccupant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Repository layer tests for RoomAllocationRepository
+ * Covers the occupant projections used by the rooms view
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+class RoomAllocationRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private RoomAllocationRepository roomAllocationRepository;
+
+    private Accommodation hostel;
+    private Room room101;
+    private Room room102;
+
+    @BeforeEach
+    void setUp() {
+        RepositoryTestFixtures fixtures = new RepositoryTestFixtures(entityManager);
+        hostel = entityManager.persist(Accommodation.builder().name("Hostel").address("Main street 1").build());
+        Accommodation other = entityManager.persist(Accommodation.builder().name("Other").address("Side street 2").build());
+
+        room101 = entityManager.persist(Room.builder().accommodation(hostel).roomNumber("101").capacity(4).build());
+        room102 = entityManager.persist(Room.builder().accommodation(hostel).roomNumber("102").capacity(2).build());
+        Room otherRoom = entityManager.persist(Room.builder().accommodation(other).roomNumber("1").capacity(2).build());
+
+        fixtures.allocate(room101, fixtures.employee("anna", "Acme"), LocalDate.of(2025, 2, 1), AllocationStatus.ACTIVE);
+        fixtures.allocate(room101, fixtures.employee("bela", "Acme"), LocalDate.of(2025, 1, 1), AllocationStatus.ACTIVE);
+        fixtures.allocate(room102, fixtures.employee("csaba", "Globex"), LocalDate.of(2025, 1, 5), AllocationStatus.ACTIVE);
+        fixtures.allocate(room102, fixtures.employee("dora", "Globex"), LocalDate.of(2024, 6, 1), AllocationStatus.CHECKED_OUT);
+        fixtures.allocate(otherRoom, fixtures.employee("erik", "Acme"), LocalDate.of(2025, 1, 1), AllocationStatus.ACTIVE);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void findOccupantsByAccommodationId_ShouldReturnActiveOccupantsOfAllRooms_WhenAccommodationHasAllocations() {
+        // When
+        List<RoomOccupant> occupants = roomAllocationRepository
+                .findOccupantsByAccommodationId(hostel.getId(), AllocationStatus.ACTIVE);
+
+        // Then
+        assertThat(occupants).extracting(RoomOccupant::getFirstName)
+                .containsExactly("bela", "csaba", "anna");
+        assertThat(occupants).extracting(RoomOccupant::getRoomId)
+                .containsExactly(room101.getId(), room102.getId(), room101.getId());
+        assertThat(occupants.get(1).getCompanyName()).isEqualTo("Globex");
+        assertThat(occupants.get(1).getLastName()).isEqualTo("Tester");
+    }
+
+    @Test
+    void findOccupantsByRoomId_ShouldSkipCheckedOutAllocations_WhenRoomHasHistory() {
+        // When
+        List<RoomOccupant> occupants = roomAllocationRepository
+                .findOccupantsByRoomId(room102.getId(), AllocationStatus.ACTIVE);
+
+        // Then
+        assertThat(occupants).hasSize(1);
+        assertThat(occupants.get(0).getFirstName()).isEqualTo("csaba");
+        assertThat(occupants.get(0).getCheckInDate()).isEqualTo(LocalDate.of(2025, 1, 5));
+    }
+}
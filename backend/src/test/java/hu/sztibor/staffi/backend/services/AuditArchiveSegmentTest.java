@@ -0,0 +1,128 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.entities.AuditLog;
+import hu.sztibor.staffi.backend.enums.AuditAction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the audit archive segment format
+ */
+class AuditArchiveSegmentTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void findEntity_ShouldReturnAllRowsOfTheEntityAcrossBlocks() throws IOException {
+        List<AuditLog> rows = new ArrayList<>();
+        // 3000 rows spread over 10 employees, so every employee spans several blocks
+        for (long id = 1; id <= 3000; id++) {
+            rows.add(row(id, "Employee", id % 10, START.plusMinutes(id)));
+        }
+        rows.add(row(3001, "Contract", 3L, START));
+
+        try (AuditArchiveSegment segment = AuditArchiveSegment.write(tempDir, "segment-test", rows)) {
+            List<AuditLog> history = segment.findEntity("Employee", 3L);
+
+            assertThat(history).hasSize(300);
+            assertThat(history).allMatch(row -> row.getEntityType().equals("Employee") && row.getEntityId() == 3L);
+            assertThat(segment.findEntity("Contract", 3L)).extracting(AuditLog::getId).containsExactly(3001L);
+            assertThat(segment.findEntity("User", 3L)).isEmpty();
+        }
+    }
+
+    @Test
+    void open_ShouldReadBackWhatWasWritten() throws IOException {
+        AuditLog original = row(7, "Contract", null, START.plusNanos(123_000));
+        original.setOldValue("{\"status\":\"DRAFT\"}");
+        original.setDescription("Szerződés módosítva");
+
+        AuditArchiveSegment.write(tempDir, "segment-roundtrip", List.of(original)).close();
+
+        try (AuditArchiveSegment segment = AuditArchiveSegment.open(tempDir.resolve("segment-roundtrip.idx"))) {
+            assertThat(segment.getRowCount()).isEqualTo(1);
+            assertThat(segment.getMinTimestamp()).isEqualTo(original.getTimestamp());
+            assertThat(segment.findEntity("Contract", null)).singleElement()
+                    .usingRecursiveComparison().isEqualTo(original);
+        }
+    }
+
+    @Test
+    void scan_ShouldFilterByTimeRangeAndEntityType() throws IOException {
+        List<AuditLog> rows = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            rows.add(row(id, id % 2 == 0 ? "Employee" : "Room", id, START.plusHours(id)));
+        }
+
+        try (AuditArchiveSegment segment = AuditArchiveSegment.write(tempDir, "segment-scan", rows)) {
+            List<AuditLog> matches = new ArrayList<>();
+            segment.scan(START.plusHours(101), START.plusHours(200), "Employee", matches::add);
+
+            assertThat(matches).hasSize(50);
+            assertThat(matches).allMatch(row -> row.getEntityType().equals("Employee")
+                    && row.getId() >= 101 && row.getId() <= 200);
+
+            List<AuditLog> outside = new ArrayList<>();
+            segment.scan(START.plusYears(1), null, null, outside::add);
+            assertThat(outside).isEmpty();
+        }
+    }
+
+    @Test
+    void scan_ShouldSkipOlderSections_WhenFloorIsAboveThem() throws IOException {
+        List<AuditLog> rows = new ArrayList<>();
+        // Three sections of up to 8192 rows, cut by time
+        for (long id = 1; id <= 20000; id++) {
+            rows.add(row(id, "Employee", id % 10, START.plusMinutes(id)));
+        }
+
+        try (AuditArchiveSegment segment = AuditArchiveSegment.write(tempDir, "segment-floor", rows)) {
+            List<AuditLog> matches = new ArrayList<>();
+            segment.scan(null, null, null, () -> START.plusMinutes(17000), matches::add);
+
+            // Only the newest section is read, whole blocks of it are passed on
+            assertThat(matches).isNotEmpty();
+            assertThat(matches).allMatch(row -> row.getId() > 16384);
+            assertThat(segment.findEntity("Employee", 3L)).hasSize(2000);
+        }
+    }
+
+    @Test
+    void writer_ShouldLeaveNoFiles_WhenClosedWithoutFinishing() throws IOException {
+        try (AuditArchiveSegment.Writer writer = new AuditArchiveSegment.Writer(tempDir)) {
+            writer.add(row(1, "Employee", 1L, START));
+        }
+
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    private static AuditLog row(long id, String entityType, Long entityId, LocalDateTime timestamp) {
+        return AuditLog.builder()
+                .id(id)
+                .entityType(entityType)
+                .entityId(entityId)
+                .action(AuditAction.UPDATE)
+                .userId(1L)
+                .userEmail("admin@staffi.hu")
+                .userRole("ADMIN")
+                .description("Updated " + entityType + " " + entityId)
+                .ipAddress("127.0.0.1")
+                .timestamp(timestamp)
+                .build();
+    }
+}
@@ -0,0 +1,149 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.entities.AuditLog;
+import hu.sztibor.staffi.backend.enums.AuditAction;
+import hu.sztibor.staffi.backend.enums.ExportFormat;
+import hu.sztibor.staffi.backend.repositories.AuditLogCounterRepository;
+import hu.sztibor.staffi.backend.utils.AuditLogCursor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for AuditArchiveService against the test database
+ * Covers moving old rows into segments, adjusting the statistics counters and reading through to the archive,
+ * including from the audit log export
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+class AuditArchiveServiceTest {
+
+    private static final LocalDateTime OLD = LocalDateTime.now().minusDays(400).truncatedTo(ChronoUnit.SECONDS);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AuditLogCounterRepository auditLogCounterRepository;
+
+    @TempDir
+    Path tempDir;
+
+    private AuditArchiveService archiveService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        archiveService = new AuditArchiveService(jdbcTemplate, new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(archiveService, "enabled", true);
+        ReflectionTestUtils.setField(archiveService, "directory", tempDir.toString());
+        ReflectionTestUtils.setField(archiveService, "maxAgeDays", 365);
+        ReflectionTestUtils.setField(archiveService, "segmentRows", 2);
+        archiveService.openSegments();
+
+        insertLog("Employee", 1L, AuditAction.CREATE, OLD);
+        insertLog("Employee", 1L, AuditAction.UPDATE, OLD.plusHours(1));
+        insertLog("Contract", 2L, AuditAction.CREATE, OLD.plusHours(2));
+        insertLog("Employee", 1L, AuditAction.UPDATE, LocalDateTime.now());
+        auditLogCounterRepository.insertCountsFromAuditLogs();
+    }
+
+    @AfterEach
+    void tearDown() {
+        archiveService.closeSegments();
+    }
+
+    @Test
+    void archive_ShouldMoveOldRowsAndSubtractThemFromCounters() {
+        // When
+        archiveService.archive();
+
+        // Then
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_logs", Long.class)).isEqualTo(1L);
+        assertThat(archiveService.archivedUntil()).isEqualTo(OLD.plusHours(2));
+        assertThat(auditLogCounterRepository.sumByEntityTypeAndAction())
+                .singleElement()
+                .satisfies(counter -> {
+                    assertThat(counter.getEntityType()).isEqualTo("Employee");
+                    assertThat(counter.getAction()).isEqualTo(AuditAction.UPDATE);
+                    assertThat(counter.getTotal()).isEqualTo(1L);
+                });
+    }
+
+    @Test
+    void findEntityHistory_ShouldReadArchivedRowsNewestFirst() {
+        // Given
+        archiveService.archive();
+
+        // When
+        List<AuditLog> history = archiveService.findEntityHistory("Employee", 1L);
+
+        // Then
+        assertThat(history).extracting(AuditLog::getAction).containsExactly(AuditAction.UPDATE, AuditAction.CREATE);
+        assertThat(history).extracting(AuditLog::getTimestamp).containsExactly(OLD.plusHours(1), OLD);
+    }
+
+    @Test
+    void findSlice_ShouldPageAcrossSegments_WhenFollowingTheCursor() {
+        // Given: two segments, the first holding two rows and the second one
+        archiveService.archive();
+
+        // When
+        List<AuditLog> first = archiveService.findSlice(null, null, null, null, null, null, 2);
+        List<AuditLog> second = archiveService.findSlice(null, null, null, null, null,
+                AuditLogCursor.of(first.get(first.size() - 1)), 2);
+
+        // Then
+        assertThat(first).extracting(AuditLog::getTimestamp).containsExactly(OLD.plusHours(2), OLD.plusHours(1));
+        assertThat(second).extracting(AuditLog::getTimestamp).containsExactly(OLD);
+        assertThat(archiveService.findSlice("Contract", null, null, null, null, null, 10))
+                .extracting(AuditLog::getEntityId).containsExactly(2L);
+    }
+
+    @Test
+    void export_ShouldIncludeArchivedRowsBeforeHotOnes() throws IOException {
+        // Given
+        archiveService.archive();
+        AuditLogExportService exportService = new AuditLogExportService(
+                jdbcTemplate, new TransactionTemplate(transactionManager), archiveService);
+        ReflectionTestUtils.setField(exportService, "fetchSize", 100);
+        exportService.init();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        exportService.export(ExportFormat.CSV, false, "Employee", null, null, null, null, out);
+
+        // Then
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(4);
+        assertThat(lines.subList(1, 4)).extracting(line -> line.split(",")[3])
+                .containsExactly("CREATE", "UPDATE", "UPDATE");
+    }
+
+    private void insertLog(String entityType, Long entityId, AuditAction action, LocalDateTime timestamp) {
+        jdbcTemplate.update("INSERT INTO audit_logs (entity_type, entity_id, action, user_email, user_role, description, timestamp) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?)",
+                entityType, entityId, action.name(), "System", "SYSTEM", "test", Timestamp.valueOf(timestamp));
+    }
+}
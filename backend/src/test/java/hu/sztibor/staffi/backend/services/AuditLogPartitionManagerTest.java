@@ -0,0 +1,172 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.repositories.AuditLogCounterRepository;
+import hu.sztibor.staffi.backend.repositories.DatabasePlatform;
+import hu.sztibor.staffi.backend.services.AuditLogPartitionManager.Partition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AuditLogPartitionManager
+ * Covers partition naming, creating upcoming months and retiring expired partitions
+ */
+@ExtendWith(MockitoExtension.class)
+class AuditLogPartitionManagerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private DatabasePlatform databasePlatform;
+
+    @Mock
+    private AuditLogCounterRepository auditLogCounterRepository;
+
+    @InjectMocks
+    private AuditLogPartitionManager partitionManager;
+
+    private final YearMonth current = YearMonth.now();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(partitionManager, "enabled", true);
+        ReflectionTestUtils.setField(partitionManager, "monthsAhead", 0);
+        ReflectionTestUtils.setField(partitionManager, "retentionMonths", 0);
+    }
+
+    @Test
+    void partitionName_ShouldRoundTripThroughParseMonth() {
+        String name = AuditLogPartitionManager.partitionName(YearMonth.of(2026, 3));
+
+        assertThat(name).isEqualTo("audit_logs_y2026m03");
+        assertThat(AuditLogPartitionManager.parseMonth(name)).isEqualTo(YearMonth.of(2026, 3));
+    }
+
+    @Test
+    void parseMonth_ShouldIgnorePartitionsNotManagedByTheJob() {
+        assertThat(AuditLogPartitionManager.parseMonth("audit_logs_legacy")).isNull();
+        assertThat(AuditLogPartitionManager.parseMonth("audit_logs_default")).isNull();
+        assertThat(AuditLogPartitionManager.parseMonth("rooms")).isNull();
+    }
+
+    @Test
+    void upperBound_ShouldReadDateOfRangePartition() {
+        assertThat(AuditLogPartitionManager.upperBound("FOR VALUES FROM (MINVALUE) TO ('2026-10-01 00:00:00')"))
+                .isEqualTo(LocalDate.of(2026, 10, 1));
+        assertThat(AuditLogPartitionManager.upperBound("DEFAULT")).isNull();
+    }
+
+    @Test
+    void maintain_ShouldOnlyCreateMissingMonths_WhenCurrentMonthExists() {
+        // Given
+        ReflectionTestUtils.setField(partitionManager, "monthsAhead", 2);
+        givenPartitions(legacy(current.atDay(1)), monthly(current), new Partition("audit_logs_default", "DEFAULT"));
+
+        // When
+        partitionManager.maintain();
+
+        // Then
+        verify(jdbcTemplate, never()).execute(contains(AuditLogPartitionManager.partitionName(current) + " PARTITION OF"));
+        verify(jdbcTemplate).execute(contains(AuditLogPartitionManager.partitionName(current.plusMonths(1)) + " PARTITION OF"));
+        verify(jdbcTemplate).execute(contains(AuditLogPartitionManager.partitionName(current.plusMonths(2)) + " PARTITION OF"));
+    }
+
+    @Test
+    void maintain_ShouldRetireLegacyAndExpiredMonths_WhenOlderThanRetention() {
+        // Given
+        ReflectionTestUtils.setField(partitionManager, "retentionMonths", 3);
+        LocalDate legacyEnd = current.minusMonths(4).atDay(1);
+        givenPartitions(legacy(legacyEnd), monthly(current.minusMonths(4)), monthly(current.minusMonths(3)), monthly(current));
+        givenTransactions();
+
+        // When
+        partitionManager.maintain();
+
+        // Then
+        verify(jdbcTemplate).execute("ALTER TABLE audit_logs DETACH PARTITION audit_logs_legacy");
+        verify(auditLogCounterRepository).deleteCountersBetween(LocalDate.of(1970, 1, 1), legacyEnd);
+        verify(jdbcTemplate).execute("ALTER TABLE audit_logs DETACH PARTITION "
+                + AuditLogPartitionManager.partitionName(current.minusMonths(4)));
+        verify(jdbcTemplate, never()).execute("ALTER TABLE audit_logs DETACH PARTITION "
+                + AuditLogPartitionManager.partitionName(current.minusMonths(3)));
+    }
+
+    @Test
+    void maintain_ShouldKeepLegacyPartition_WhenItsLastMonthIsRetained() {
+        // Given
+        ReflectionTestUtils.setField(partitionManager, "retentionMonths", 3);
+        givenPartitions(legacy(current.minusMonths(2).atDay(1)), monthly(current));
+
+        // When
+        partitionManager.maintain();
+
+        // Then
+        verify(jdbcTemplate, never()).execute(contains("DETACH PARTITION"));
+        verifyNoInteractions(auditLogCounterRepository);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void checkRetention_ShouldFail_WhenRetentionIsShorterThanArchiveAge() {
+        // Given
+        ReflectionTestUtils.setField(partitionManager, "retentionMonths", 12);
+        ReflectionTestUtils.setField(partitionManager, "archiveEnabled", true);
+        ReflectionTestUtils.setField(partitionManager, "archiveMaxAgeDays", 365);
+
+        // When / Then
+        assertThatThrownBy(() -> partitionManager.checkRetention())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("keep more than 13 months");
+
+        ReflectionTestUtils.setField(partitionManager, "retentionMonths", 14);
+        partitionManager.checkRetention();
+    }
+
+    private void givenPartitions(Partition... partitions) {
+        when(databasePlatform.isPostgres()).thenReturn(true);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(1L);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class))).thenReturn(List.of(partitions));
+    }
+
+    private void givenTransactions() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private static Partition legacy(LocalDate end) {
+        return new Partition(AuditLogPartitionManager.LEGACY_PARTITION,
+                "FOR VALUES FROM (MINVALUE) TO ('" + end + " 00:00:00')");
+    }
+
+    private static Partition monthly(YearMonth month) {
+        return new Partition(AuditLogPartitionManager.partitionName(month),
+                "FOR VALUES FROM ('" + month.atDay(1) + " 00:00:00') TO ('" + month.plusMonths(1).atDay(1) + " 00:00:00')");
+    }
+}
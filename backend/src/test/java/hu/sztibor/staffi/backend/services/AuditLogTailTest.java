@@ -0,0 +1,186 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.dto.audit.AuditLogDto;
+import hu.sztibor.staffi.backend.entities.AuditLog;
+import hu.sztibor.staffi.backend.enums.AuditAction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for AuditLogTail
+ * Covers resuming after Last-Event-ID, ring buffer overflow, restarts and filtering
+ */
+class AuditLogTailTest {
+
+    private AuditLogTail tail;
+
+    @BeforeEach
+    void setUp() {
+        tail = new AuditLogTail(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(tail, "capacity", 2);
+        ReflectionTestUtils.setField(tail, "maxSubscribers", 10);
+        ReflectionTestUtils.setField(tail, "timeoutMs", 60_000L);
+        ReflectionTestUtils.setField(tail, "senderThreads", 1);
+        tail.start();
+        // Number from 1 instead of the clock so the ids below stay readable
+        startSequenceAt(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tail.stop();
+    }
+
+    @Test
+    void subscribe_ShouldReplayEntriesAfterLastEventId_WhenStillBuffered() throws Exception {
+        // Given
+        tail.append(List.of(entry(1L, "Employee"), entry(2L, "Employee")));
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        // When
+        tail.subscribe(emitter, null, null, "1");
+
+        // Then
+        emitter.await(1);
+        assertThat(emitter.ids()).containsExactly("2");
+        assertThat(emitter.events.get(0).payload()).isInstanceOfSatisfying(AuditLogDto.class,
+                dto -> assertThat(dto.getId()).isEqualTo(2L));
+    }
+
+    @Test
+    void subscribe_ShouldSendOverflow_WhenClientFellOutOfBuffer() throws Exception {
+        // Given: the ring holds two entries, the client last saw none of these four
+        tail.append(List.of(entry(1L, "Employee"), entry(2L, "Employee"), entry(3L, "Employee"), entry(4L, "Employee")));
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        // When
+        tail.subscribe(emitter, null, null, "0");
+
+        // Then
+        emitter.await(3);
+        assertThat(emitter.events.get(0).text()).contains("event:overflow");
+        assertThat(emitter.events.get(0).payload()).isEqualTo(Map.of("skipped", 2L));
+        assertThat(emitter.ids()).containsExactly("3", "4");
+    }
+
+    @Test
+    void append_ShouldOnlySendMatchingEntries_WhenSubscriberFilters() throws Exception {
+        // Given
+        RecordingEmitter emitter = new RecordingEmitter();
+        tail.subscribe(emitter, "Employee", AuditAction.UPDATE, null);
+
+        // When
+        tail.append(List.of(entry(1L, "Employee"), entry(2L, "Contract")));
+        tail.append(List.of(entry(3L, "Employee")));
+
+        // Then
+        emitter.await(2);
+        assertThat(emitter.ids()).containsExactly("1", "3");
+    }
+
+    @Test
+    void start_ShouldSeedSequenceFromClock() {
+        // Given
+        long before = System.currentTimeMillis() * 1000;
+        AuditLogTail restarted = new AuditLogTail(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(restarted, "capacity", 2);
+        ReflectionTestUtils.setField(restarted, "senderThreads", 1);
+
+        // When
+        restarted.start();
+
+        // Then
+        try {
+            assertThat((long) ReflectionTestUtils.getField(restarted, "nextSequence")).isGreaterThanOrEqualTo(before);
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    @Test
+    void subscribe_ShouldSendOverflow_WhenLastEventIdIsFromBeforeRestart() throws Exception {
+        // Given: this run started at 1001, the client last saw an entry of the previous run
+        startSequenceAt(1001);
+        tail.append(List.of(entry(1L, "Employee")));
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        // When
+        tail.subscribe(emitter, null, null, "500");
+
+        // Then
+        emitter.await(2);
+        assertThat(emitter.events.get(0).text()).contains("event:overflow");
+        assertThat(emitter.events.get(0).payload()).isEqualTo(Map.of("skipped", 0L, "restarted", true));
+        assertThat(emitter.ids()).containsExactly("1001");
+    }
+
+    private void startSequenceAt(long sequence) {
+        ReflectionTestUtils.setField(tail, "firstSequence", sequence);
+        ReflectionTestUtils.setField(tail, "nextSequence", sequence);
+    }
+
+    private static AuditLog entry(Long id, String entityType) {
+        return AuditLog.builder()
+                .id(id)
+                .entityType(entityType)
+                .action(AuditAction.UPDATE)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Keeps every event instead of writing it to a response
+     */
+    static final class RecordingEmitter extends SseEmitter {
+
+        final List<Event> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            Set<DataWithMediaType> parts = builder.build();
+            String text = parts.stream()
+                    .filter(part -> part.getData() instanceof String)
+                    .map(part -> (String) part.getData())
+                    .collect(Collectors.joining());
+            Object payload = parts.stream()
+                    .map(DataWithMediaType::getData)
+                    .filter(data -> !(data instanceof String))
+                    .findFirst()
+                    .orElse(null);
+            events.add(new Event(text, payload));
+        }
+
+        void await(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (events.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(events).hasSizeGreaterThanOrEqualTo(count);
+        }
+
+        List<String> ids() {
+            return events.stream()
+                    .map(Event::text)
+                    .filter(text -> text.startsWith("id:"))
+                    .map(text -> text.substring(3, text.indexOf('\n')))
+                    .toList();
+        }
+
+        record Event(String text, Object payload) {
+        }
+    }
+}
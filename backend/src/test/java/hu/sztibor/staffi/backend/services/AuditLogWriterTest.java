@@ -0,0 +1,173 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.entities.AuditLog;
+import hu.sztibor.staffi.backend.enums.AuditAction;
+import hu.sztibor.staffi.backend.repositories.DatabasePlatform;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AuditLogWriter
+ * Covers retrying failed batches, the row by row fallback and publishing written entries
+ */
+@ExtendWith(MockitoExtension.class)
+class AuditLogWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private DatabasePlatform databasePlatform;
+
+    @Mock
+    private AuditLogTail auditLogTail;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AtomicLong nextId = new AtomicLong();
+
+    private AuditLogWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = new AuditLogWriter(jdbcTemplate, transactionTemplate, databasePlatform, meterRegistry, auditLogTail);
+        ReflectionTestUtils.setField(writer, "queueCapacity", 10);
+        ReflectionTestUtils.setField(writer, "flushSize", 10);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 10L);
+        ReflectionTestUtils.setField(writer, "offerTimeoutMs", 10L);
+        ReflectionTestUtils.setField(writer, "retryAttempts", 2);
+        ReflectionTestUtils.setField(writer, "retryBackoffMs", 1L);
+        writer.start();
+
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.stop();
+    }
+
+    @Test
+    void flush_ShouldPublishEntriesWithTheirIds_WhenWritten() {
+        // Given
+        givenInsert(descriptions -> {
+        });
+        List<AuditLog> batch = List.of(entry("first"), entry("second"));
+
+        // When
+        writer.flush(batch);
+
+        // Then
+        assertThat(batch).extracting(AuditLog::getId).containsExactly(1L, 2L);
+        verify(auditLogTail).append(batch);
+    }
+
+    @Test
+    void flush_ShouldWriteBatch_WhenFailureIsTransient() {
+        // Given
+        AtomicInteger calls = new AtomicInteger();
+        givenInsert(descriptions -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new TransientDataAccessResourceException("connection reset");
+            }
+        });
+
+        // When
+        writer.flush(List.of(entry("first"), entry("second")));
+
+        // Then
+        assertThat(calls).hasValue(2);
+        assertThat(meterRegistry.counter("staffi.audit.dropped").count()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldDropOnlyBadEntry_WhenBatchKeepsFailing() {
+        // Given
+        givenInsert(descriptions -> {
+            if (descriptions.contains("bad")) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+        });
+        AuditLog good = entry("good");
+        AuditLog alsoGood = entry("also good");
+
+        // When
+        writer.flush(List.of(good, entry("bad"), alsoGood));
+
+        // Then: two batch attempts, then one insert per entry
+        verify(jdbcTemplate, times(5)).batchUpdate(
+                any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+        assertThat(meterRegistry.counter("staffi.audit.dropped").count()).isEqualTo(1.0);
+        ArgumentCaptor<List<AuditLog>> published = ArgumentCaptor.forClass(List.class);
+        verify(auditLogTail).append(published.capture());
+        assertThat(published.getValue()).containsExactly(good, alsoGood);
+    }
+
+    /**
+     * Stub the batched insert; the check sees the descriptions of the batch and throws to fail it
+     */
+    private void givenInsert(Consumer<List<String>> check) {
+        doAnswer(invocation -> {
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            KeyHolder keyHolder = invocation.getArgument(2);
+            List<String> descriptions = new ArrayList<>();
+            for (int i = 0; i < setter.getBatchSize(); i++) {
+                PreparedStatement ps = mock(PreparedStatement.class);
+                setter.setValues(ps, i);
+                ArgumentCaptor<String> description = ArgumentCaptor.forClass(String.class);
+                verify(ps).setString(eq(7), description.capture());
+                descriptions.add(description.getValue());
+            }
+            check.accept(descriptions);
+            descriptions.forEach(description -> keyHolder.getKeyList().add(Map.of("id", nextId.incrementAndGet())));
+            return new int[descriptions.size()];
+        }).when(jdbcTemplate).batchUpdate(
+                any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+    }
+
+    private static AuditLog entry(String description) {
+        return AuditLog.builder()
+                .entityType("Employee")
+                .entityId(1L)
+                .action(AuditAction.UPDATE)
+                .description(description)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,162 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.entities.Contract;
+import hu.sztibor.staffi.backend.enums.AuditAction;
+import hu.sztibor.staffi.backend.enums.ContractStatus;
+import hu.sztibor.staffi.backend.enums.PdfJobStatus;
+import hu.sztibor.staffi.backend.repositories.ContractRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ContractPdfRenderer
+ * Covers activation after a successful render, exhausted retries and the bounded sweep
+ */
+@ExtendWith(MockitoExtension.class)
+class ContractPdfRendererTest {
+
+    @Mock
+    private ContractRepository contractRepository;
+
+    @Mock
+    private PdfGeneratorService pdfGeneratorService;
+
+    @Mock
+    private AuditLogService auditLogService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private ContractPdfRenderer renderer;
+    private Contract contract;
+
+    @BeforeEach
+    void setUp() {
+        renderer = new ContractPdfRenderer(contractRepository, pdfGeneratorService, auditLogService,
+                transactionTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(renderer, "workers", 1);
+        ReflectionTestUtils.setField(renderer, "queueCapacity", 10);
+        ReflectionTestUtils.setField(renderer, "maxAttempts", 1);
+        ReflectionTestUtils.setField(renderer, "retryDelayMs", 0L);
+        ReflectionTestUtils.setField(renderer, "sweepMinAgeMs", 0L);
+        ReflectionTestUtils.setField(renderer, "maxSweeps", 1);
+        renderer.start();
+
+        contract = Contract.builder()
+                .id(1L)
+                .contractNumber("C-0001")
+                .status(ContractStatus.DRAFT)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        renderer.stop();
+    }
+
+    @Test
+    void submit_ShouldActivateContract_WhenRenderSucceeds() throws Exception {
+        // Given
+        when(contractRepository.findById(1L)).thenReturn(Optional.of(contract));
+        when(pdfGeneratorService.generateContractPdf(contract)).thenReturn("/contracts/C-0001.pdf");
+        when(contractRepository.save(contract)).then(returnsFirstArg());
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        // When
+        renderer.submit(1L);
+
+        // Then
+        awaitStatus(PdfJobStatus.COMPLETED);
+        assertThat(contract.getStatus()).isEqualTo(ContractStatus.ACTIVE);
+        assertThat(contract.getPdfPath()).isEqualTo("/contracts/C-0001.pdf");
+        verify(auditLogService).logAction(eq("Contract"), eq(1L), eq(AuditAction.UPDATE), anyString(), any(), any());
+    }
+
+    @Test
+    void submit_ShouldMarkJobFailed_WhenAttemptsAreExhausted() throws Exception {
+        // Given
+        when(contractRepository.findById(1L)).thenReturn(Optional.of(contract));
+        when(pdfGeneratorService.generateContractPdf(contract)).thenThrow(new IOException("Disk full"));
+
+        // When
+        renderer.submit(1L);
+
+        // Then
+        ContractPdfRenderer.PdfJob job = awaitStatus(PdfJobStatus.FAILED);
+        assertThat(job.attempts()).isEqualTo(1);
+        assertThat(job.lastError()).isEqualTo("Disk full");
+        assertThat(contract.getStatus()).isEqualTo(ContractStatus.DRAFT);
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    void sweep_ShouldStopRequeueing_WhenSweepRetriesAreExhausted() throws Exception {
+        // Given: the render keeps failing
+        when(contractRepository.findById(1L)).thenReturn(Optional.of(contract));
+        when(pdfGeneratorService.generateContractPdf(contract)).thenThrow(new IOException("Disk full"));
+        when(contractRepository.findByStatusAndPdfPathIsNullAndCreatedAtBefore(eq(ContractStatus.DRAFT), any(LocalDateTime.class)))
+                .thenReturn(List.of(contract));
+        renderer.submit(1L);
+        awaitStatus(PdfJobStatus.FAILED);
+
+        // When: the first sweep re-queues it, the second one finds the sweep budget used up
+        Thread.sleep(5);
+        renderer.sweep();
+        ContractPdfRenderer.PdfJob job = awaitSweepFailed();
+        Thread.sleep(5);
+        renderer.sweep();
+        Thread.sleep(50);
+
+        // Then
+        assertThat(job.sweeps()).isEqualTo(1);
+        assertThat(renderer.getJob(1L)).contains(job);
+        verify(pdfGeneratorService, times(2)).generateContractPdf(contract);
+    }
+
+    private ContractPdfRenderer.PdfJob awaitStatus(PdfJobStatus status) throws InterruptedException {
+        return await(job -> job.status() == status);
+    }
+
+    private ContractPdfRenderer.PdfJob awaitSweepFailed() throws InterruptedException {
+        return await(job -> job.status() == PdfJobStatus.FAILED && job.sweeps() == 1);
+    }
+
+    private ContractPdfRenderer.PdfJob await(Predicate<ContractPdfRenderer.PdfJob> condition)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            Optional<ContractPdfRenderer.PdfJob> job = renderer.getJob(1L);
+            if (job.isPresent() && condition.test(job.get())) {
+                return job.get();
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Render job did not reach the expected state: " + renderer.getJob(1L));
+    }
+}
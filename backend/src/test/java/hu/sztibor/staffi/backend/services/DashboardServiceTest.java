@@ -0,0 +1,121 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.dto.DashboardStatsDto;
+import hu.sztibor.staffi.backend.repositories.DashboardStatsRepository;
+import hu.sztibor.staffi.backend.repositories.DashboardStatsRepository.DashboardCounts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for DashboardService
+ * Covers caching, invalidation and coalescing of concurrent misses
+ */
+@ExtendWith(MockitoExtension.class)
+class DashboardServiceTest {
+
+    @Mock
+    private DashboardStatsRepository dashboardStatsRepository;
+
+    @InjectMocks
+    private DashboardService dashboardService;
+
+    private final DashboardCounts counts = new DashboardCounts(10, 8, 2, 5, 12, 7, 4, 3, 6, 1, 4, 1);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dashboardService, "cacheTtlMs", 60_000L);
+    }
+
+    @Test
+    void getDashboardStats_ShouldQueryOnce_WhenCalledRepeatedly() {
+        // Given
+        when(dashboardStatsRepository.fetchCounts(any(LocalDate.class))).thenReturn(counts);
+
+        // When
+        DashboardStatsDto first = dashboardService.getDashboardStats();
+        DashboardStatsDto second = dashboardService.getDashboardStats();
+
+        // Then
+        assertThat(first.getInactiveEmployees()).isEqualTo(2L);
+        assertThat(second).isSameAs(first);
+        verify(dashboardStatsRepository, times(1)).fetchCounts(any(LocalDate.class));
+    }
+
+    @Test
+    void getDashboardStats_ShouldRecompute_WhenInvalidated() {
+        // Given
+        when(dashboardStatsRepository.fetchCounts(any(LocalDate.class))).thenReturn(counts);
+        dashboardService.getDashboardStats();
+
+        // When
+        dashboardService.invalidateStats();
+        dashboardService.getDashboardStats();
+
+        // Then
+        verify(dashboardStatsRepository, times(2)).fetchCounts(any(LocalDate.class));
+    }
+
+    @Test
+    void getDashboardStats_ShouldRecompute_WhenTtlExpired() {
+        // Given
+        ReflectionTestUtils.setField(dashboardService, "cacheTtlMs", 0L);
+        when(dashboardStatsRepository.fetchCounts(any(LocalDate.class))).thenReturn(counts);
+
+        // When
+        dashboardService.getDashboardStats();
+        dashboardService.getDashboardStats();
+
+        // Then
+        verify(dashboardStatsRepository, times(2)).fetchCounts(any(LocalDate.class));
+    }
+
+    @Test
+    void getDashboardStats_ShouldShareOneQuery_WhenMissesAreConcurrent() throws Exception {
+        // Given
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch releaseQuery = new CountDownLatch(1);
+        when(dashboardStatsRepository.fetchCounts(any(LocalDate.class))).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            releaseQuery.await();
+            return counts;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // When
+            List<Future<DashboardStatsDto>> results = new ArrayList<>();
+            results.add(executor.submit(dashboardService::getDashboardStats));
+            queryStarted.await();
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(dashboardService::getDashboardStats));
+            }
+            Thread.sleep(100);
+            releaseQuery.countDown();
+
+            // Then
+            for (Future<DashboardStatsDto> result : results) {
+                assertThat(result.get().getTotalEmployees()).isEqualTo(10L);
+            }
+            verify(dashboardStatsRepository, times(1)).fetchCounts(any(LocalDate.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
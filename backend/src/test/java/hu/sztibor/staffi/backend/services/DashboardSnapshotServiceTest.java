@@ -0,0 +1,133 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.dto.DashboardTrendPointDto;
+import hu.sztibor.staffi.backend.entities.DashboardSnapshot;
+import hu.sztibor.staffi.backend.enums.TrendGranularity;
+import hu.sztibor.staffi.backend.repositories.DashboardSnapshotRepository;
+import hu.sztibor.staffi.backend.repositories.DashboardStatsRepository;
+import hu.sztibor.staffi.backend.repositories.DashboardStatsRepository.DashboardCounts;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for DashboardSnapshotService
+ * Covers folding daily snapshots into trend buckets and catching up a missed snapshot
+ */
+class DashboardSnapshotServiceTest {
+
+    @Test
+    void aggregate_ShouldReturnOnePointPerSnapshot_WhenGranularityIsDay() {
+        List<DashboardSnapshot> snapshots = List.of(
+                snapshot(LocalDate.of(2025, 3, 3), 10, 1),
+                snapshot(LocalDate.of(2025, 3, 4), 11, 2));
+
+        List<DashboardTrendPointDto> points = DashboardSnapshotService.aggregate(snapshots, TrendGranularity.DAY);
+
+        assertThat(points).hasSize(2);
+        assertThat(points.get(1).getPeriodStart()).isEqualTo(LocalDate.of(2025, 3, 4));
+        assertThat(points.get(1).getTotalEmployees()).isEqualTo(11L);
+        assertThat(points.get(1).getNewEmployees()).isEqualTo(2L);
+    }
+
+    @Test
+    void aggregate_ShouldKeepLastStockAndSumFlows_WhenGranularityIsWeek() {
+        // 2025-03-09 is a Sunday, 2025-03-10 starts the next week
+        List<DashboardSnapshot> snapshots = List.of(
+                snapshot(LocalDate.of(2025, 3, 5), 10, 1),
+                snapshot(LocalDate.of(2025, 3, 9), 12, 2),
+                snapshot(LocalDate.of(2025, 3, 10), 13, 1));
+
+        List<DashboardTrendPointDto> points = DashboardSnapshotService.aggregate(snapshots, TrendGranularity.WEEK);
+
+        assertThat(points).hasSize(2);
+        assertThat(points.get(0).getPeriodStart()).isEqualTo(LocalDate.of(2025, 3, 3));
+        assertThat(points.get(0).getSnapshotDate()).isEqualTo(LocalDate.of(2025, 3, 9));
+        assertThat(points.get(0).getTotalEmployees()).isEqualTo(12L);
+        assertThat(points.get(0).getNewEmployees()).isEqualTo(3L);
+        assertThat(points.get(0).getCheckIns()).isEqualTo(6L);
+        assertThat(points.get(1).getPeriodStart()).isEqualTo(LocalDate.of(2025, 3, 10));
+    }
+
+    @Test
+    void aggregate_ShouldGroupByCalendarMonth_WhenGranularityIsMonth() {
+        List<DashboardSnapshot> snapshots = List.of(
+                snapshot(LocalDate.of(2025, 1, 31), 10, 1),
+                snapshot(LocalDate.of(2025, 2, 1), 11, 1),
+                snapshot(LocalDate.of(2025, 2, 28), 14, 3));
+
+        List<DashboardTrendPointDto> points = DashboardSnapshotService.aggregate(snapshots, TrendGranularity.MONTH);
+
+        assertThat(points).extracting(DashboardTrendPointDto::getPeriodStart)
+                .containsExactly(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1));
+        assertThat(points.get(1).getTotalEmployees()).isEqualTo(14L);
+        assertThat(points.get(1).getNewEmployees()).isEqualTo(4L);
+    }
+
+    @Test
+    void aggregate_ShouldReturnEmptyList_WhenThereAreNoSnapshots() {
+        assertThat(DashboardSnapshotService.aggregate(List.of(), TrendGranularity.WEEK)).isEmpty();
+    }
+
+    @Test
+    void catchUp_ShouldInsertYesterday_WhenStartedShortlyAfterMidnight() {
+        // Given
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        DashboardStatsRepository statsRepository = mock(DashboardStatsRepository.class);
+        DashboardSnapshotService service = service(jdbcTemplate, statsRepository);
+        when(statsRepository.fetchCounts(LocalDate.of(2025, 3, 9), LocalDate.of(2025, 3, 10)))
+                .thenReturn(new DashboardCounts(10, 9, 1, 4, 8, 6, 3, 2, 5, 1, 3, 1));
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenThrow(new DuplicateKeyException("exists"));
+
+        // When / Then
+        assertThatCode(() -> service.catchUp(LocalDateTime.of(2025, 3, 10, 1, 30))).doesNotThrowAnyException();
+        verify(jdbcTemplate).update(anyString(), eq(LocalDate.of(2025, 3, 9)), eq(10L), eq(9L), eq(4L), eq(3L),
+                eq(8L), eq(6L), eq(5L), eq(1L), eq(3L), eq(1L), eq(1L), eq(2L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void catchUp_ShouldSkip_WhenStartedLateInTheDay() {
+        // Given
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        DashboardStatsRepository statsRepository = mock(DashboardStatsRepository.class);
+        DashboardSnapshotService service = service(jdbcTemplate, statsRepository);
+
+        // When
+        service.catchUp(LocalDateTime.of(2025, 3, 10, 14, 0));
+
+        // Then
+        verifyNoInteractions(jdbcTemplate, statsRepository);
+    }
+
+    private DashboardSnapshotService service(JdbcTemplate jdbcTemplate, DashboardStatsRepository statsRepository) {
+        DashboardSnapshotService service = new DashboardSnapshotService(
+                jdbcTemplate, mock(DashboardSnapshotRepository.class), statsRepository);
+        ReflectionTestUtils.setField(service, "catchUpHours", 6L);
+        return service;
+    }
+
+    private DashboardSnapshot snapshot(LocalDate day, long totalEmployees, long newEmployees) {
+        return DashboardSnapshot.builder()
+                .snapshotDate(day)
+                .totalEmployees(totalEmployees)
+                .activeEmployees(totalEmployees)
+                .newEmployees(newEmployees)
+                .checkIns(newEmployees * 2)
+                .build();
+    }
+}
@@ -0,0 +1,127 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.dto.DashboardStatsDto;
+import hu.sztibor.staffi.backend.services.AuditLogTailTest.RecordingEmitter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for DashboardStatsBroadcaster
+ * Covers the delta computation and skipping the full statistics for a current Last-Event-ID
+ */
+@ExtendWith(MockitoExtension.class)
+class DashboardStatsBroadcasterTest {
+
+    @Mock
+    private DashboardService dashboardService;
+
+    private DashboardStatsBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new DashboardStatsBroadcaster(dashboardService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(broadcaster, "refreshIntervalMs", 600_000L);
+        ReflectionTestUtils.setField(broadcaster, "maxSubscribers", 10);
+        ReflectionTestUtils.setField(broadcaster, "timeoutMs", 60_000L);
+        ReflectionTestUtils.setField(broadcaster, "reconnectMs", 5_000L);
+        ReflectionTestUtils.setField(broadcaster, "senderThreads", 1);
+        broadcaster.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.stop();
+    }
+
+    @Test
+    void changedFields_ShouldReturnOnlyChangedValues_WhenFieldsDiffer() {
+        // Given
+        Map<String, Object> previous = new LinkedHashMap<>();
+        previous.put("totalEmployees", 10);
+        previous.put("activeEmployees", 8);
+        previous.put("pendingAdvanceRequests", null);
+        Map<String, Object> current = new LinkedHashMap<>();
+        current.put("totalEmployees", 10);
+        current.put("activeEmployees", 9);
+        current.put("pendingAdvanceRequests", 2);
+
+        // When
+        Map<String, Object> changed = DashboardStatsBroadcaster.changedFields(previous, current);
+
+        // Then
+        assertThat(changed).containsOnly(Map.entry("activeEmployees", 9), Map.entry("pendingAdvanceRequests", 2));
+    }
+
+    @Test
+    void changedFields_ShouldReturnEmptyMap_WhenNothingChanged() {
+        // Given
+        Map<String, Object> fields = Map.of("totalEmployees", 10, "activeEmployees", 8);
+
+        // When
+        Map<String, Object> changed = DashboardStatsBroadcaster.changedFields(fields, Map.copyOf(fields));
+
+        // Then
+        assertThat(changed).isEmpty();
+    }
+
+    @Test
+    void subscribe_ShouldSendFullStatistics_WhenNoLastEventId() throws Exception {
+        // Given
+        when(dashboardService.getGeneration()).thenReturn(1L);
+        when(dashboardService.getDashboardStats()).thenReturn(stats(10L, 8L));
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        // When
+        broadcaster.subscribe(emitter, null);
+
+        // Then
+        emitter.await(1);
+        assertThat(emitter.events.get(0).text()).contains("event:stats");
+        assertThat(emitter.events.get(0).payload()).isInstanceOfSatisfying(Map.class,
+                fields -> assertThat(fields).containsKeys("totalEmployees", "activeEmployees", "checkInsThisMonth"));
+    }
+
+    @Test
+    void subscribe_ShouldSkipFullStatistics_WhenLastEventIdIsCurrent() throws Exception {
+        // Given: a first dashboard learns the id of the current version
+        when(dashboardService.getGeneration()).thenReturn(1L, 2L);
+        when(dashboardService.getDashboardStats()).thenReturn(stats(10L, 8L), stats(10L, 9L));
+        RecordingEmitter first = new RecordingEmitter();
+        broadcaster.subscribe(first, null);
+        first.await(1);
+        String currentId = first.ids().get(0);
+
+        // When: a reconnecting dashboard presents it and the statistics change afterwards
+        RecordingEmitter reconnected = new RecordingEmitter();
+        broadcaster.subscribe(reconnected, currentId);
+        broadcaster.publishChanges();
+
+        // Then: the first event it receives is only the delta
+        reconnected.await(1);
+        assertThat(reconnected.events.get(0).text()).contains("event:delta");
+        assertThat(reconnected.events.get(0).payload()).isInstanceOfSatisfying(Map.class, fields -> {
+            assertThat(fields).containsOnlyKeys("activeEmployees");
+            assertThat(((Number) fields.get("activeEmployees")).longValue()).isEqualTo(9L);
+        });
+        assertThat(reconnected.ids()).containsExactly(Long.toString(Long.parseLong(currentId) + 1));
+    }
+
+    private static DashboardStatsDto stats(Long totalEmployees, Long activeEmployees) {
+        return DashboardStatsDto.builder()
+                .totalEmployees(totalEmployees)
+                .activeEmployees(activeEmployees)
+                .build();
+    }
+}
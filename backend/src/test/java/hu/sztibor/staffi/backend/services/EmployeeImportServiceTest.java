@@ -0,0 +1,102 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.dto.employee.EmployeeImportResultDto;
+import hu.sztibor.staffi.backend.dto.employee.EmployeeImportRowDto;
+import hu.sztibor.staffi.backend.enums.ImportRowStatus;
+import hu.sztibor.staffi.backend.repositories.EmployeeRepository;
+import hu.sztibor.staffi.backend.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EmployeeImportService
+ * Covers per-row validation of column lengths before anything is written
+ */
+@ExtendWith(MockitoExtension.class)
+class EmployeeImportServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @Mock
+    private AuditLogService auditLogService;
+
+    @Mock
+    private DashboardService dashboardService;
+
+    @Mock
+    private UserSearchIndex userSearchIndex;
+
+    @InjectMocks
+    private EmployeeImportService importService;
+
+    @Test
+    void importEmployees_ShouldFailOnlyTheRow_WhenAValueExceedsItsColumn() {
+        // Given
+        when(userRepository.findExistingEmails(List.of("anna@example.com"))).thenReturn(List.of());
+        when(employeeRepository.findExistingTaxIds(List.of("8123456789"))).thenReturn(List.of());
+        when(passwordEncoder.encode("secret1")).thenReturn("hash");
+        when(transactionTemplate.execute(any())).thenReturn(List.of(7L));
+
+        MockMultipartFile file = csv("""
+                firstName,lastName,email,password,taxId
+                Anna,Kovacs,anna@example.com,secret1,8123456789
+                Bela,Nagy,bela@example.com,secret2,812345678901234567890
+                """);
+
+        // When
+        EmployeeImportResultDto result = importService.importEmployees(file);
+
+        // Then
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getRows()).extracting(EmployeeImportRowDto::getStatus)
+                .containsExactly(ImportRowStatus.IMPORTED, ImportRowStatus.FAILED);
+        assertThat(result.getRows().get(1).getMessage()).isEqualTo("taxId is longer than 20 characters");
+        assertThat(result.getRows().get(1).getEmail()).isEqualTo("bela@example.com");
+    }
+
+    @Test
+    void importEmployees_ShouldRejectRow_WhenPasswordExceedsBcryptLimit() {
+        // Given
+        MockMultipartFile file = csv("firstName,lastName,email,password\n"
+                + "Anna,Kovacs,anna@example.com," + "x".repeat(73) + "\n");
+
+        // When
+        EmployeeImportResultDto result = importService.importEmployees(file);
+
+        // Then
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getRows().get(0).getMessage()).isEqualTo("password is longer than 72 bytes");
+        verifyNoInteractions(passwordEncoder, transactionTemplate);
+    }
+
+    private static MockMultipartFile csv(String content) {
+        return new MockMultipartFile("file", "employees.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
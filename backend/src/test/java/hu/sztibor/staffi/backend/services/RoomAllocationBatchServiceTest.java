@@ -0,0 +1,282 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.dto.room.AllocationOperationDto;
+import hu.sztibor.staffi.backend.dto.room.AllocationOperationResultDto;
+import hu.sztibor.staffi.backend.dto.room.BulkAllocationDto;
+import hu.sztibor.staffi.backend.dto.room.BulkAllocationResultDto;
+import hu.sztibor.staffi.backend.entities.Room;
+import hu.sztibor.staffi.backend.enums.AllocationOperationStatus;
+import hu.sztibor.staffi.backend.enums.AllocationOperationType;
+import hu.sztibor.staffi.backend.enums.AllocationStatus;
+import hu.sztibor.staffi.backend.enums.AuditAction;
+import hu.sztibor.staffi.backend.exceptions.AppException;
+import hu.sztibor.staffi.backend.exceptions.RoomFullException;
+import hu.sztibor.staffi.backend.repositories.EmployeeRepository;
+import hu.sztibor.staffi.backend.repositories.EmployeeRepository.EmployeeCompany;
+import hu.sztibor.staffi.backend.repositories.RoomAllocationRepository;
+import hu.sztibor.staffi.backend.repositories.RoomAllocationRepository.EmployeeAllocation;
+import hu.sztibor.staffi.backend.repositories.RoomRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RoomAllocationBatchService
+ * Covers per-line validation, net capacity checks and all-or-nothing batches
+ */
+@ExtendWith(MockitoExtension.class)
+class RoomAllocationBatchServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @Mock
+    private RoomAllocationRepository allocationRepository;
+
+    @Mock
+    private RoomOccupancyRegistry occupancyRegistry;
+
+    @Mock
+    private AuditLogService auditLogService;
+
+    @Mock
+    private DashboardService dashboardService;
+
+    @InjectMocks
+    private RoomAllocationBatchService batchService;
+
+    @Test
+    void applyBatch_ShouldApplyNothing_WhenAllOrNothingAndALineFails() {
+        // Given
+        when(employeeRepository.findCompanyNamesByIds(anySet())).thenReturn(List.of(company(1L, "Acme")));
+        when(allocationRepository.findAllocationsByEmployeeIds(anySet(), eq(AllocationStatus.ACTIVE))).thenReturn(List.of());
+        when(roomRepository.findAllById(any())).thenReturn(List.of(room(10L, "101")));
+        when(occupancyRegistry.freeBeds(10L)).thenReturn(2);
+
+        BulkAllocationDto dto = batch(true,
+                operation(AllocationOperationType.CHECK_IN, 1L, 10L),
+                operation(AllocationOperationType.CHECK_IN, 2L, 10L));
+
+        // When
+        BulkAllocationResultDto result = batchService.applyBatch(dto);
+
+        // Then
+        assertThat(result.getApplied()).isZero();
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getResults()).extracting(AllocationOperationResultDto::getStatus)
+                .containsExactly(AllocationOperationStatus.NOT_APPLIED, AllocationOperationStatus.FAILED);
+        assertThat(result.getResults().get(1).getMessage()).isEqualTo("Employee not found");
+        verifyNoInteractions(transactionTemplate, jdbcTemplate);
+    }
+
+    @Test
+    void applyBatch_ShouldFailLastArrivals_WhenRoomCannotHoldThem() {
+        // Given
+        when(employeeRepository.findCompanyNamesByIds(anySet()))
+                .thenReturn(List.of(company(1L, "Acme"), company(2L, "Acme")));
+        when(allocationRepository.findAllocationsByEmployeeIds(anySet(), eq(AllocationStatus.ACTIVE))).thenReturn(List.of());
+        when(roomRepository.findAllById(any())).thenReturn(List.of(room(10L, "101")));
+        when(occupancyRegistry.freeBeds(10L)).thenReturn(1);
+        when(transactionTemplate.execute(any())).thenReturn(List.of(100L));
+
+        BulkAllocationDto dto = batch(false,
+                operation(AllocationOperationType.CHECK_IN, 1L, 10L),
+                operation(AllocationOperationType.CHECK_IN, 2L, 10L));
+
+        // When
+        BulkAllocationResultDto result = batchService.applyBatch(dto);
+
+        // Then
+        assertThat(result.getApplied()).isEqualTo(1);
+        assertThat(result.getResults().get(0).getAllocationId()).isEqualTo(100L);
+        assertThat(result.getResults().get(1).getStatus()).isEqualTo(AllocationOperationStatus.FAILED);
+        assertThat(result.getResults().get(1).getMessage()).isEqualTo("Room 101 is at full capacity");
+    }
+
+    @Test
+    void applyBatch_ShouldSwapEmployees_WhenBothRoomsAreFull() {
+        // Given
+        when(employeeRepository.findCompanyNamesByIds(anySet()))
+                .thenReturn(List.of(company(1L, "Acme"), company(2L, "Globex")));
+        when(allocationRepository.findAllocationsByEmployeeIds(anySet(), eq(AllocationStatus.ACTIVE)))
+                .thenReturn(List.of(allocation(50L, 1L, 10L, "101"), allocation(51L, 2L, 11L, "102")));
+        when(roomRepository.findAllById(any())).thenReturn(List.of(room(10L, "101"), room(11L, "102")));
+        when(transactionTemplate.execute(any())).thenReturn(List.of(100L, 101L));
+
+        BulkAllocationDto dto = batch(false,
+                operation(AllocationOperationType.MOVE, 1L, 11L),
+                operation(AllocationOperationType.MOVE, 2L, 10L));
+
+        // When
+        BulkAllocationResultDto result = batchService.applyBatch(dto);
+
+        // Then
+        assertThat(result.getApplied()).isEqualTo(2);
+        assertThat(result.getFailed()).isZero();
+        verify(occupancyRegistry, never()).freeBeds(any());
+    }
+
+    @Test
+    void applyBatch_ShouldFailOnlyLinesThatNoLongerFit_WhenBedsWereTakenConcurrently() {
+        // Given: two beds free at the check, one left when reserving
+        when(employeeRepository.findCompanyNamesByIds(anySet()))
+                .thenReturn(List.of(company(1L, "Acme"), company(2L, "Acme")));
+        when(allocationRepository.findAllocationsByEmployeeIds(anySet(), eq(AllocationStatus.ACTIVE))).thenReturn(List.of());
+        when(roomRepository.findAllById(any())).thenReturn(List.of(room(10L, "101")));
+        when(occupancyRegistry.freeBeds(10L)).thenReturn(2, 1);
+        when(transactionTemplate.execute(any()))
+                .thenThrow(new RoomFullException("Room 10 is at full capacity"))
+                .thenReturn(List.of(100L));
+
+        BulkAllocationDto dto = batch(false,
+                operation(AllocationOperationType.CHECK_IN, 1L, 10L),
+                operation(AllocationOperationType.CHECK_IN, 2L, 10L));
+
+        // When
+        BulkAllocationResultDto result = batchService.applyBatch(dto);
+
+        // Then
+        assertThat(result.getApplied()).isEqualTo(1);
+        assertThat(result.getResults().get(0).getAllocationId()).isEqualTo(100L);
+        assertThat(result.getResults().get(1).getStatus()).isEqualTo(AllocationOperationStatus.FAILED);
+        assertThat(result.getResults().get(1).getMessage()).isEqualTo("Room 101 is at full capacity");
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    void applyBatch_ShouldNotRetry_WhenWriteFailsWithOtherBadRequest() {
+        // Given
+        when(employeeRepository.findCompanyNamesByIds(anySet())).thenReturn(List.of(company(1L, "Acme")));
+        when(allocationRepository.findAllocationsByEmployeeIds(anySet(), eq(AllocationStatus.ACTIVE))).thenReturn(List.of());
+        when(roomRepository.findAllById(any())).thenReturn(List.of(room(10L, "101")));
+        when(occupancyRegistry.freeBeds(10L)).thenReturn(1);
+        when(transactionTemplate.execute(any()))
+                .thenThrow(new AppException("Room not found", HttpStatus.BAD_REQUEST));
+
+        BulkAllocationDto dto = batch(false, operation(AllocationOperationType.CHECK_IN, 1L, 10L));
+
+        // When / Then
+        assertThatThrownBy(() -> batchService.applyBatch(dto))
+                .isInstanceOf(AppException.class)
+                .hasMessage("Room not found");
+        verify(transactionTemplate).execute(any());
+    }
+
+    @Test
+    void applyBatch_ShouldAuditEveryAllocation_WhenMoveIsWritten() {
+        // Given
+        when(employeeRepository.findCompanyNamesByIds(anySet())).thenReturn(List.of(company(1L, "Acme")));
+        when(allocationRepository.findAllocationsByEmployeeIds(anySet(), eq(AllocationStatus.ACTIVE)))
+                .thenReturn(List.of(allocation(50L, 1L, 10L, "101")));
+        when(roomRepository.findAllById(any())).thenReturn(List.of(room(11L, "102")));
+        when(occupancyRegistry.freeBeds(11L)).thenReturn(1);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1}});
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)))
+                .thenAnswer(invocation -> {
+                    invocation.<KeyHolder>getArgument(2).getKeyList().add(Map.of("id", 100L));
+                    return new int[]{1};
+                });
+
+        // When
+        BulkAllocationResultDto result = batchService.applyBatch(batch(false, operation(AllocationOperationType.MOVE, 1L, 11L)));
+
+        // Then
+        assertThat(result.getResults().get(0).getAllocationId()).isEqualTo(100L);
+        verify(auditLogService).logAction(eq("RoomAllocation"), eq(50L), eq(AuditAction.UPDATE),
+                eq("Employee 1 checked out from room 101 (bulk allocation)"), any(), any());
+        verify(auditLogService).logAction(eq("RoomAllocation"), eq(100L), eq(AuditAction.CREATE),
+                eq("Employee 1 checked into room 102 (bulk allocation)"), isNull(), any());
+        verifyNoMoreInteractions(auditLogService);
+    }
+
+    private static BulkAllocationDto batch(boolean allOrNothing, AllocationOperationDto... operations) {
+        return BulkAllocationDto.builder()
+                .operations(List.of(operations))
+                .date(LocalDate.of(2025, 3, 1))
+                .allOrNothing(allOrNothing)
+                .build();
+    }
+
+    private static AllocationOperationDto operation(AllocationOperationType type, Long employeeId, Long roomId) {
+        return AllocationOperationDto.builder().type(type).employeeId(employeeId).roomId(roomId).build();
+    }
+
+    private static Room room(Long id, String roomNumber) {
+        return Room.builder().id(id).roomNumber(roomNumber).capacity(2).build();
+    }
+
+    private static EmployeeCompany company(Long employeeId, String companyName) {
+        return new EmployeeCompany() {
+            @Override
+            public Long getEmployeeId() {
+                return employeeId;
+            }
+
+            @Override
+            public String getCompanyName() {
+                return companyName;
+            }
+        };
+    }
+
+    private static EmployeeAllocation allocation(Long allocationId, Long employeeId, Long roomId, String roomNumber) {
+        return new EmployeeAllocation() {
+            @Override
+            public Long getAllocationId() {
+                return allocationId;
+            }
+
+            @Override
+            public Long getEmployeeId() {
+                return employeeId;
+            }
+
+            @Override
+            public Long getRoomId() {
+                return roomId;
+            }
+
+            @Override
+            public String getRoomNumber() {
+                return roomNumber;
+            }
+        };
+    }
+}
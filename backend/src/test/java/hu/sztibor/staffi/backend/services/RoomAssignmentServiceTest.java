@@ -0,0 +1,72 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.services.RoomAssignmentService.Arrival;
+import hu.sztibor.staffi.backend.services.RoomAssignmentService.RoomState;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for RoomAssignmentService
+ * Covers the greedy placement of arrivals into rooms
+ */
+class RoomAssignmentServiceTest {
+
+    @Test
+    void plan_ShouldPreferRoomOfSameCompany_WhenSeveralRoomsHaveFreeBeds() {
+        RoomState globexRoom = room(1L, 1, 3, "Globex", "HU");
+        RoomState acmeRoom = room(2L, 1, 1, "Acme", "RO");
+        RoomState emptyRoom = room(3L, 0, 4, null, null);
+
+        Map<Long, RoomState> placements = RoomAssignmentService.plan(
+                List.of(new Arrival(10L, " acme ", "HU")),
+                List.of(globexRoom, acmeRoom, emptyRoom));
+
+        assertThat(placements.get(10L).roomId()).isEqualTo(2L);
+    }
+
+    @Test
+    void plan_ShouldKeepGroupInSmallestFittingRoom_WhenAllRoomsAreEmpty() {
+        List<RoomState> rooms = List.of(room(1L, 0, 6, null, null), room(2L, 0, 3, null, null), room(3L, 0, 2, null, null));
+
+        Map<Long, RoomState> placements = RoomAssignmentService.plan(
+                List.of(new Arrival(10L, "Acme", "HU"), new Arrival(11L, "Acme", "HU"), new Arrival(12L, "Acme", "HU")),
+                rooms);
+
+        assertThat(placements.values()).extracting(RoomState::roomId).containsOnly(2L);
+        assertThat(rooms.get(1).freeBeds()).isZero();
+    }
+
+    @Test
+    void plan_ShouldOpenFewestRooms_WhenGroupDoesNotFitOneRoom() {
+        List<Arrival> arrivals = List.of(
+                new Arrival(10L, "Acme", "HU"), new Arrival(11L, "Acme", "HU"), new Arrival(12L, "Acme", "HU"),
+                new Arrival(13L, "Acme", "HU"), new Arrival(14L, "Acme", "HU"));
+
+        Map<Long, RoomState> placements = RoomAssignmentService.plan(
+                arrivals, List.of(room(1L, 0, 4, null, null), room(2L, 0, 4, null, null), room(3L, 0, 2, null, null)));
+
+        assertThat(placements).hasSize(5);
+        assertThat(placements.values()).extracting(RoomState::roomId).containsOnly(1L, 3L);
+    }
+
+    @Test
+    void plan_ShouldLeaveArrivalsOut_WhenBedsRunOut() {
+        Map<Long, RoomState> placements = RoomAssignmentService.plan(
+                List.of(new Arrival(10L, "Acme", "HU"), new Arrival(11L, "Acme", "HU"), new Arrival(12L, "Globex", "RO")),
+                List.of(room(1L, 1, 2, "Acme", "HU")));
+
+        assertThat(placements).containsOnlyKeys(10L, 11L);
+    }
+
+    private static RoomState room(Long roomId, int occupants, int freeBeds, String companyName, String nationality) {
+        RoomState room = new RoomState(roomId, occupants, freeBeds);
+        if (occupants > 0) {
+            room.addOccupants(companyName, nationality, occupants);
+        }
+        return room;
+    }
+}
@@ -0,0 +1,243 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.exceptions.AppException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for RoomOccupancyRegistry
+ * Transactions are simulated with TransactionSynchronizationManager
+ */
+@ExtendWith(MockitoExtension.class)
+class RoomOccupancyRegistryTest {
+
+    private static final long ROOM_ID = 1L;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private RoomOccupancyRegistry registry;
+
+    private ResultSet row;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        // Room 1: capacity 2, one occupant
+        row = mock(ResultSet.class);
+        when(row.getLong("id")).thenReturn(ROOM_ID);
+        when(row.getInt("capacity")).thenReturn(2);
+        when(row.getInt("occupied")).thenReturn(1);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(ROOM_ID)))
+                .thenAnswer(invocation -> List.of(invocation.<RowMapper<?>>getArgument(1).mapRow(row, 0)));
+
+        registry = new RoomOccupancyRegistry(jdbcTemplate, new SimpleMeterRegistry());
+        registry.registerMetrics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reserve_ShouldRejectCheckIn_WhenRoomIsFull() {
+        registry.reserve(ROOM_ID);
+
+        assertThat(registry.occupancy(ROOM_ID)).isEqualTo(2);
+        assertThatThrownBy(() -> registry.reserve(ROOM_ID))
+                .isInstanceOf(AppException.class)
+                .hasMessage("Room is at full capacity");
+    }
+
+    @Test
+    void reserve_ShouldHoldBedWhileTransactionIsPending_AndReleaseItOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        registry.reserve(ROOM_ID);
+
+        // A concurrent check-in sees the pending reservation
+        assertThatThrownBy(() -> registry.reserve(ROOM_ID)).isInstanceOf(AppException.class);
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(registry.occupancy(ROOM_ID)).isEqualTo(1);
+    }
+
+    @Test
+    void release_ShouldFreeBedOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        registry.release(ROOM_ID);
+
+        assertThat(registry.occupancy(ROOM_ID)).isEqualTo(1);
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(registry.occupancy(ROOM_ID)).isZero();
+    }
+
+    @Test
+    void changeCapacity_ShouldRejectReductionBelowOccupancy() {
+        registry.reserve(ROOM_ID);
+
+        assertThatThrownBy(() -> registry.changeCapacity(ROOM_ID, 1))
+                .isInstanceOf(AppException.class)
+                .hasMessageContaining("2 occupants");
+    }
+
+    @Test
+    void changeCapacity_ShouldAllowMoreCheckInsAfterIncrease() {
+        registry.reserve(ROOM_ID);
+        registry.changeCapacity(ROOM_ID, 3);
+
+        registry.reserve(ROOM_ID);
+
+        assertThat(registry.occupancy(ROOM_ID)).isEqualTo(3);
+    }
+
+    @Test
+    void findVacancies_ShouldListRoom_WhenItHasEnoughFreeBeds() {
+        registry.occupancy(ROOM_ID);
+
+        assertThat(registry.findVacancies(1, null, null))
+                .extracting(RoomOccupancyRegistry.RoomVacancy::freeBeds)
+                .containsExactly(1);
+        assertThat(registry.findVacancies(2, null, null)).isEmpty();
+    }
+
+    @Test
+    void findVacancies_ShouldDropRoom_WhenLastBedIsReserved() {
+        TransactionSynchronizationManager.initSynchronization();
+        registry.reserve(ROOM_ID);
+
+        // The pending reservation already takes the bed
+        assertThat(registry.findVacancies(1, null, null)).isEmpty();
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(registry.findVacancies(1, null, null)).hasSize(1);
+    }
+
+    @Test
+    void findVacancies_ShouldOnlyMatchSameCompany_WhenCompanyIsGiven() {
+        registry.changeCapacity(ROOM_ID, 4);
+        registry.reserve(ROOM_ID, "Acme");
+
+        assertThat(registry.findVacancies(1, null, "acme")).hasSize(1);
+        assertThat(registry.findVacancies(1, null, "Globex")).isEmpty();
+
+        registry.release(ROOM_ID);
+
+        assertThat(registry.findVacancies(1, null, "Globex")).hasSize(1);
+    }
+
+    @Test
+    void release_ShouldReloadCompaniesOnCommit_WhenOccupantChangedCompany() {
+        // Given an employee checked in for Acme
+        registry.changeCapacity(ROOM_ID, 4);
+        registry.reserve(ROOM_ID, "Acme");
+        TransactionSynchronizationManager.initSynchronization();
+        registry.release(ROOM_ID);
+
+        // When the check-out commits and the remaining occupant works for Globex
+        when(row.getString("company_name")).thenReturn("Globex");
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Then
+        assertThat(registry.findVacancies(1, null, "Acme")).isEmpty();
+        assertThat(registry.findVacancies(1, null, "Globex")).hasSize(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void release_ShouldKeepCompanies_WhenRoomChangesWhileReloading() throws Exception {
+        // Given an employee checked in for Acme and checking out
+        registry.changeCapacity(ROOM_ID, 4);
+        registry.reserve(ROOM_ID, "Acme");
+        TransactionSynchronizationManager.initSynchronization();
+        registry.release(ROOM_ID);
+
+        // When an Initech check-in commits while the companies are being reloaded
+        when(row.getString("company_name")).thenReturn("Globex");
+        doAnswer(invocation -> {
+            if (invocation.<String>getArgument(0).contains("company_name")) {
+                registry.reserve(ROOM_ID, "Initech");
+            }
+            return List.of(invocation.<RowMapper<?>>getArgument(1).mapRow(row, 0));
+        }).when(jdbcTemplate).query(anyString(), any(RowMapper.class), eq(ROOM_ID));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Then the reloaded companies are dropped instead of overwriting the check-in
+        assertThat(registry.occupancy(ROOM_ID)).isEqualTo(2);
+        assertThat(registry.findVacancies(1, null, "Globex")).isEmpty();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reconcile_ShouldSkipRoom_WhenCheckOutIsStillCompleting() {
+        // Room 1 holds two occupants and one of them checks out
+        registry.reserve(ROOM_ID);
+        TransactionSynchronizationManager.initSynchronization();
+        registry.release(ROOM_ID);
+
+        // The check-out is committed in the database before its callback has run
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class)))
+                .thenAnswer(invocation -> List.of(invocation.<RowMapper<?>>getArgument(1).mapRow(row, 0)));
+        registry.reconcile();
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(registry.occupancy(ROOM_ID)).isEqualTo(1);
+    }
+
+    @Test
+    void freeBeds_ShouldUseTrackedRoom_WhenItWasRegisteredWhileLoading() throws Exception {
+        // Given the room gets tracked by another caller while its companies are being queried
+        when(row.getString("company_name")).thenAnswer(invocation -> {
+            registry.register(ROOM_ID, null, 3);
+            return null;
+        });
+
+        // When
+        int freeBeds = registry.freeBeds(ROOM_ID);
+
+        // Then the slot published first wins over the one just loaded
+        assertThat(freeBeds).isEqualTo(3);
+    }
+
+    @Test
+    void move_ShouldSucceed_WhenTargetIsOnlyFreedByTheSameMove() {
+        registry.reserve(ROOM_ID);
+
+        registry.move(ROOM_ID, ROOM_ID, null);
+
+        assertThat(registry.occupancy(ROOM_ID)).isEqualTo(2);
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
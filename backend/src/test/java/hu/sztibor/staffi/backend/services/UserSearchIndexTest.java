@@ -0,0 +1,128 @@
+package hu.sztibor.staffi.backend.services;
+
+import hu.sztibor.staffi.backend.entities.User;
+import hu.sztibor.staffi.backend.enums.Role;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for UserSearchIndex
+ * The index is filled directly and marked ready, without loading it from the database
+ */
+class UserSearchIndexTest {
+
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new UserSearchIndex(null, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(index, "ready", true);
+        index.index(user(1L, "Őzike", "Kovács", "ozike.kovacs@example.com", Role.EMPLOYEE));
+        index.index(user(2L, "Ödön", "Szőke", "odon@example.com", Role.EMPLOYEE));
+        index.index(user(3L, "Anna", "Kovácsné Tóth", "anna@example.com", Role.HR));
+        index.index(user(4L, "Béla", "Nagy", "bela.kovacs@example.com", Role.EMPLOYEE));
+    }
+
+    @Test
+    void fold_ShouldStripAccentsAndCase() {
+        assertThat(UserSearchIndex.fold("ŐZIKE Űrhajós Éva")).isEqualTo("ozike urhajos eva");
+    }
+
+    @Test
+    void autocomplete_ShouldMatchIgnoringAccents() {
+        List<Long> ids = ids(index.autocomplete("szoke", entry -> true, 10));
+
+        assertThat(ids).containsExactly(2L);
+    }
+
+    @Test
+    void autocomplete_ShouldRankPrefixMatchesFirst() {
+        List<Long> ids = ids(index.autocomplete("kovac", entry -> true, 10));
+
+        // Last name prefixes ordered by name, then the email substring match
+        assertThat(ids).containsExactly(1L, 3L, 4L);
+    }
+
+    @Test
+    void autocomplete_ShouldMatchWordInsideName() {
+        List<Long> ids = ids(index.autocomplete("toth", entry -> true, 10));
+
+        assertThat(ids).containsExactly(3L);
+    }
+
+    @Test
+    void autocomplete_ShouldApplyFilterAndLimit() {
+        List<Long> ids = ids(index.autocomplete("kovac", entry -> entry.role() == Role.EMPLOYEE, 1));
+
+        assertThat(ids).containsExactly(1L);
+    }
+
+    @Test
+    void index_ShouldReplacePreviousEntry() {
+        index.index(user(2L, "Ödön", "Fekete", "odon@example.com", Role.EMPLOYEE));
+
+        assertThat(index.autocomplete("szoke", entry -> true, 10)).isEmpty();
+        assertThat(ids(index.autocomplete("fekete", entry -> true, 10))).containsExactly(2L);
+    }
+
+    @Test
+    void remove_ShouldDropEntry() {
+        index.remove(1L);
+
+        assertThat(ids(index.autocomplete("ozike", entry -> true, 10))).isEmpty();
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void autocomplete_ShouldQueryDatabase_WhenIndexIsNotLoaded() {
+        // Given
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        UserSearchIndex loading = new UserSearchIndex(jdbcTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(loading, "maxIdFilter", 5000);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("%kov%"), eq("%kov%"), eq("%kov%"), eq(5000)))
+                .thenReturn(List.of(
+                        UserSearchIndex.SearchEntry.of(4L, "Béla", "Nagy", "bela.kovacs@example.com", Role.EMPLOYEE, true),
+                        UserSearchIndex.SearchEntry.of(1L, "Őzike", "Kovács", "ozike.kovacs@example.com", Role.EMPLOYEE, true)));
+
+        // When
+        List<Long> ids = ids(loading.autocomplete("Kov", entry -> true, 10));
+
+        // Then
+        assertThat(ids).containsExactly(1L, 4L);
+
+        // LIKE wildcards in the term are matched literally
+        loading.autocomplete("kov_", entry -> true, 10);
+        verify(jdbcTemplate).query(anyString(), any(RowMapper.class),
+                eq("%kov\\_%"), eq("%kov\\_%"), eq("%kov\\_%"), eq(5000));
+    }
+
+    private static List<Long> ids(List<UserSearchIndex.SearchEntry> entries) {
+        return entries.stream().map(UserSearchIndex.SearchEntry::id).toList();
+    }
+
+    private static User user(long id, String firstName, String lastName, String email, Role role) {
+        return User.builder()
+                .id(id)
+                .firstName(firstName)
+                .lastName(lastName)
+                .email(email)
+                .password("hashedPassword123")
+                .role(role)
+                .isActive(true)
+                .build();
+    }
+}
@@ -0,0 +1,52 @@
+package hu.sztibor.staffi.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for CsvReader
+ */
+class CsvReaderTest {
+
+    @Test
+    void readRecord_ShouldSplitCommaSeparatedLines() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("firstName,lastName\r\nJohn,Doe\r\n"));
+
+        assertThat(csv.readRecord()).containsExactly("firstName", "lastName");
+        assertThat(csv.readRecord()).containsExactly("John", "Doe");
+        assertThat(csv.readRecord()).isNull();
+    }
+
+    @Test
+    void readRecord_ShouldDetectSemicolonSeparator() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("\uFEFFfirstName;lastName;primaryAddress\nJános;Kiss;Budapest, Fő utca 1\n"));
+
+        assertThat(csv.readRecord()).containsExactly("firstName", "lastName", "primaryAddress");
+        assertThat(csv.readRecord()).containsExactly("János", "Kiss", "Budapest, Fő utca 1");
+    }
+
+    @Test
+    void readRecord_ShouldHandleQuotedFields() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("a,b,c\n\"x, y\",\"say \"\"hi\"\"\",\"two\nlines\"\nlast,,"));
+
+        csv.readRecord();
+        assertThat(csv.readRecord()).containsExactly("x, y", "say \"hi\"", "two\nlines");
+        assertThat(csv.getLineNumber()).isEqualTo(4);
+        assertThat(csv.readRecord()).isEqualTo(List.of("last", "", ""));
+        assertThat(csv.readRecord()).isNull();
+    }
+
+    @Test
+    void readRecord_ShouldFailOnUnterminatedQuote() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("a\n\"open"));
+
+        csv.readRecord();
+        assertThatThrownBy(csv::readRecord).isInstanceOf(IOException.class);
+    }
+}
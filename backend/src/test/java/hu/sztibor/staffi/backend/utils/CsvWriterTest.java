@@ -0,0 +1,39 @@
+package hu.sztibor.staffi.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for CsvWriter
+ */
+class CsvWriterTest {
+
+    @Test
+    void writeRecord_ShouldQuoteOnlyFieldsThatNeedIt() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvWriter csv = new CsvWriter(out);
+
+        csv.writeRecord(1L, "plain", null, "a,b", "say \"hi\"", "two\nlines");
+
+        assertThat(out.toString()).isEqualTo("1,plain,,\"a,b\",\"say \"\"hi\"\"\",\"two\nlines\"\r\n");
+    }
+
+    @Test
+    void writeRecord_ShouldRoundTripThroughCsvReader() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvWriter csv = new CsvWriter(out);
+        csv.writeRecord("description", "newValue");
+        csv.writeRecord("Updated employee Kovács, Béla", "{\"status\":\"ACTIVE\"}");
+
+        CsvReader reader = new CsvReader(new StringReader(out.toString()));
+
+        assertThat(reader.readRecord()).containsExactly("description", "newValue");
+        assertThat(reader.readRecord()).containsExactly("Updated employee Kovács, Béla", "{\"status\":\"ACTIVE\"}");
+        assertThat(reader.readRecord()).isNull();
+    }
+}